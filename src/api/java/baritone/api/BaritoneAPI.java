@@ -33,13 +33,23 @@ public final class BaritoneAPI {
     private static final IBaritoneProvider provider;
     private static final Settings settings;
 
+    /**
+     * Set by tools that use Baritone without a running client, such as benchmarks. In that case there is no settings
+     * file to read and no provider, since every {@link IBaritone} belongs to a client.
+     */
+    private static final boolean HEADLESS = Boolean.getBoolean("baritone.headless");
+
     static {
         settings = new Settings();
-        SettingsUtil.readAndApply(settings, SettingsUtil.SETTINGS_DEFAULT_NAME);
+        if (HEADLESS) {
+            provider = null;
+        } else {
+            SettingsUtil.readAndApply(settings, SettingsUtil.SETTINGS_DEFAULT_NAME);
 
-        ServiceLoader<IBaritoneProvider> baritoneLoader = ServiceLoader.load(IBaritoneProvider.class);
-        Iterator<IBaritoneProvider> instances = baritoneLoader.iterator();
-        provider = instances.next();
+            ServiceLoader<IBaritoneProvider> baritoneLoader = ServiceLoader.load(IBaritoneProvider.class);
+            Iterator<IBaritoneProvider> instances = baritoneLoader.iterator();
+            provider = instances.next();
+        }
     }
 
     public static IBaritoneProvider getProvider() {
@@ -49,4 +59,8 @@ public final class BaritoneAPI {
     public static Settings getSettings() {
         return BaritoneAPI.settings;
     }
+
+    public static boolean isHeadless() {
+        return BaritoneAPI.HEADLESS;
+    }
 }
@@ -516,6 +516,96 @@ public final class Settings {
      */
     public final Setting<Float> pathingMapLoadFactor = new Setting<>(0.75f);
 
+    /**
+     * Store pathing nodes in primitive arrays instead of allocating one PathNode object per visited position
+     * <p>
+     * Creates far less garbage on long searches. Leave off to use the original PathNode map, e.g. to compare the two.
+     */
+    public final Setting<Boolean> primitiveNodeStore = new Setting<>(false);
+
+    /**
+     * Reuse the same node map and open set from one path calculation to the next, instead of allocating new ones
+     * <p>
+     * They're shrunk back down to the largest of the last few searches afterwards, so one huge search doesn't keep its memory forever
+     */
+    public final Setting<Boolean> pathingSearchArena = new Setting<>(true);
+
+    /**
+     * How many threads one path calculation may use
+     * <p>
+     * Each thread past the first runs a greedier copy of the search (weighted A*), and all of them share the cost of
+     * the cheapest path to the goal found so far, so that none of them explore anything that can't beat it. This finds
+     * a complete path sooner on long calculations that would otherwise only get a segment before the timeout.
+     * <p>
+     * Only plain pathing is parallel, processes with their own cost rules (building, mining) always use one thread.
+     */
+    public final Setting<Integer> pathingThreads = new Setting<>(1);
+
+    /**
+     * On open flat ground, skip the traverses and diagonals that only lead to equally good permutations of the same
+     * path, in the style of Jump Point Search
+     * <p>
+     * Only affects the regular A*, the path found costs the same.
+     */
+    public final Setting<Boolean> pathingSymmetryPruning = new Setting<>(false);
+
+    /**
+     * Before calculating the moves out of a node, rule out the ones that obviously can't be taken from the blocks
+     * right around it (diagonals into a wall, parkour with nothing to jump over), and only calculate the rest
+     * <p>
+     * Only affects the regular A*, the path found is exactly the same.
+     */
+    public final Setting<Boolean> pathingMoveCandidates = new Setting<>(false);
+
+    /**
+     * Keep the movement costs calculated by one search for the next ones, per chunk, so that pathing through the same
+     * area again (e.g. around a base or a farm) doesn't calculate them all over again
+     * <p>
+     * A chunk's costs are thrown away when a block changes in or next to it, and all of them when the rules change.
+     * Processes with their own cost rules (building, mining) don't use it.
+     */
+    public final Setting<Boolean> movementCostCache = new Setting<>(false);
+
+    /**
+     * Keep the search graph from one path calculation to the next, and repair it when blocks change instead of
+     * searching again from scratch
+     * <p>
+     * Replanning towards the same goal, e.g. after something got in the way of the current path, only recalculates the
+     * movements around blocks that changed. Uses Lifelong Planning A* instead of the regular A*.
+     */
+    public final Setting<Boolean> incrementalPathing = new Setting<>(false);
+
+    /**
+     * Start over instead of repairing the kept search graph once it has more nodes than this
+     */
+    public final Setting<Integer> incrementalPathingMaxNodes = new Setting<>(500000);
+
+    /**
+     * Search from both the start and the goal at once when the goal is one exact position, meeting in the middle
+     * <p>
+     * Usually expands far fewer nodes on long trips to a specific block. Falls back to the regular search for other
+     * goals.
+     */
+    public final Setting<Boolean> bidirectionalPathing = new Setting<>(false);
+
+    /**
+     * For goals far away, first plan a rough route between chunks from the cache, then only path along the first bit
+     * of it
+     * <p>
+     * Keeps each path calculation small no matter how far the goal is, at the cost of paths that aren't quite optimal
+     */
+    public final Setting<Boolean> hierarchicalPathing = new Setting<>(false);
+
+    /**
+     * Only plan a rough route first if the goal is at least this many blocks away horizontally
+     */
+    public final Setting<Integer> hierarchicalPathingMinDistance = new Setting<>(512);
+
+    /**
+     * How far along the rough route each path calculation goes
+     */
+    public final Setting<Integer> hierarchicalPathingSegmentLength = new Setting<>(128);
+
     /**
      * How far are you allowed to fall onto solid ground (without a water bucket)?
      * 3 won't deal any damage. But if you just want to get down the mountain quickly and you have
@@ -624,12 +714,38 @@ public final class Settings {
     public final Setting<Boolean> pruneRegionsFromRAM = new Setting<>(true);
 
     /**
-     * The chunk packer queue can never grow to larger than this, if it does, the oldest chunks are discarded
+     * Roughly how many bytes of memory the cached regions of a world may take up. Once there are more, the regions
+     * that haven't been used for the longest and are furthest from the player are saved and removed from RAM.
+     * <p>
+     * 0 or less for no limit, which is the default
+     */
+    public final Setting<Long> cachedRegionsMemoryBudget = new Setting<>(0L);
+
+    /**
+     * Load cached regions from disk in the background before pathing needs them: around the player, where the player
+     * is heading, along the current path and towards the goal
+     */
+    public final Setting<Boolean> prefetchRegions = new Setting<>(false);
+
+    /**
+     * Don't load regions ahead of time that are further than this many blocks from the player
+     */
+    public final Setting<Integer> prefetchRegionsDistance = new Setting<>(1024);
+
+    /**
+     * The chunk packer queue can never grow to larger than this. Chunks that don't fit are remembered by position only
+     * (a chunk that changes again before it's packed is still only packed once), and queued by the packer threads once
+     * they've caught up, so the game thread never waits for them.
      * <p>
-     * The newest chunks are kept, so that if you're moving in a straight line quickly then stop, your immediate render distance is still included
+     * No chunk is ever discarded. Takes effect for worlds joined after changing it.
      */
     public final Setting<Integer> chunkPackerQueueMaxSize = new Setting<>(2000);
 
+    /**
+     * How many threads pack chunks for the cache in parallel. Takes effect for worlds joined after changing it.
+     */
+    public final Setting<Integer> chunkPackerThreads = new Setting<>(1);
+
     /**
      * Fill in blocks behind you
      */
@@ -17,6 +17,7 @@
 
 package baritone.api.cache;
 
+import net.minecraft.block.Block;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.Chunk;
 
@@ -70,6 +71,20 @@ public interface ICachedWorld {
      */
     ArrayList<BlockPos> getLocationsOf(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq);
 
+    /**
+     * Finds the cached locations of the specified special block that are horizontally closest to the center. The
+     * same as {@link #getLocationsOf(String, int, int, int, int)}, except that only the closest ones are returned,
+     * sorted by distance.
+     *
+     * @param block               The special block to search for
+     * @param maximum             The maximum number of position results to receive
+     * @param centerX             The x block coordinate center of the search
+     * @param centerZ             The z block coordinate center of the search
+     * @param maxRegionDistanceSq The maximum region distance, squared
+     * @return The closest locations found that match the special block, closest first
+     */
+    ArrayList<BlockPos> getNearestLocationsOf(Block block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq);
+
     /**
      * Reloads all of the cached regions in this world from disk. Anything that is not saved
      * will be lost. This operation does not execute in a new thread by default.
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.cache.CachedRegion;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import java.nio.file.Path;
+
+/**
+ * Reads blocks from the .bcr region files of a cache directory, the same way the cache is read in game. Regions are
+ * read on first use and kept for the lifetime of this source.
+ */
+public final class CachedRegionSource implements IBlockSource {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final String directory;
+
+    private final int dimension;
+
+    private final Long2ObjectMap<CachedRegion> regions = new Long2ObjectOpenHashMap<>();
+
+    private CachedRegion prev;
+
+    /**
+     * @param directory The cache directory, the one with the r.x.z.bcr files in it
+     * @param dimension The dimension the regions are in, which decides what unknown blocks below the surface are
+     */
+    public CachedRegionSource(Path directory, int dimension) {
+        this.directory = directory.toString();
+        this.dimension = dimension;
+    }
+
+    private CachedRegion region(int x, int z) {
+        CachedRegion cached = prev;
+        if (cached != null && cached.getX() == x >> 9 && cached.getZ() == z >> 9) {
+            return cached;
+        }
+        long key = (long) (x >> 9) & 0xFFFFFFFFL | ((long) (z >> 9) & 0xFFFFFFFFL) << 32;
+        synchronized (regions) { // a parallel search reads from several threads
+            cached = regions.computeIfAbsent(key, k -> CachedRegion.read(directory, x >> 9, z >> 9, dimension));
+        }
+        prev = cached;
+        return cached;
+    }
+
+    @Override
+    public IBlockState get(int x, int y, int z) {
+        if (y < 0 || y >= 256) {
+            return AIR;
+        }
+        IBlockState state = region(x, z).getBlock(x & 511, y, z & 511);
+        return state == null ? AIR : state;
+    }
+
+    @Override
+    public boolean isLoaded(int x, int z) {
+        return region(x, z).isCached(x & 511, z & 511);
+    }
+}
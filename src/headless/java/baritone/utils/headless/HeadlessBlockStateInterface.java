@@ -0,0 +1,56 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.utils.BlockStateInterface;
+import baritone.utils.pathing.BetterWorldBorder;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.border.WorldBorder;
+
+/**
+ * Reads block states from an {@link IBlockSource} instead of the client world and cache
+ */
+public final class HeadlessBlockStateInterface extends BlockStateInterface {
+
+    private final IBlockSource source;
+
+    public HeadlessBlockStateInterface(IBlockSource source) {
+        super(new BetterWorldBorder(new WorldBorder()), null);
+        this.source = source;
+    }
+
+    @Override
+    public BlockStateInterface copy() {
+        return new HeadlessBlockStateInterface(source);
+    }
+
+    @Override
+    public IBlockState get0(int x, int y, int z) {
+        return source.get(x, y, z);
+    }
+
+    @Override
+    public boolean isLoaded(int x, int z) {
+        return source.isLoaded(x, z);
+    }
+
+    @Override
+    public boolean worldContainsLoadedChunk(int blockX, int blockZ) {
+        return source.isLoaded(blockX, blockZ);
+    }
+}
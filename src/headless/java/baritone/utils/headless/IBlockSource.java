@@ -0,0 +1,36 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * Where a {@link HeadlessBlockStateInterface} reads blocks from, in place of the client world and cache
+ */
+public interface IBlockSource {
+
+    /**
+     * @return The block state at the specified position, air if it isn't known
+     */
+    IBlockState get(int x, int y, int z);
+
+    /**
+     * @return Whether the column at the specified position is known, the rest is treated like unloaded chunks
+     */
+    boolean isLoaded(int x, int z);
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.pathing.goals.GoalYLevel;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.PathCalculationResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A path calculation that can be run again offline, read from a text file like this one:
+ * <pre>
+ * # lines starting with # are comments
+ * world terrain HILLS 42
+ * start 8 63 8
+ * goal 248 70 248
+ * setting allowParkour true
+ * timeout 2000 5000
+ * expect SUCCESS_TO_GOAL
+ * </pre>
+ * <ul>
+ * <li>{@code world} is one of {@code terrain <type> [seed]} for a generated {@link Terrain},
+ * {@code regions <directory> [dimension]} for a cache directory of .bcr files, or
+ * {@code schematic <file> [x y z]} for a schematic placed at that position. Paths are relative to the scenario file.</li>
+ * <li>{@code goal} takes a y level, an x and z, or an x, y and z, same as the goal command</li>
+ * <li>{@code setting} may be repeated, anything not set has its default value</li>
+ * <li>{@code timeout} is the primary and failure timeout in milliseconds, the settings are used if it's absent</li>
+ * <li>{@code expect} is optional, a scenario with an expected result that doesn't match counts as failed</li>
+ * </ul>
+ */
+public final class Scenario {
+
+    public final String name;
+
+    /**
+     * The world line, with any path made absolute. Two scenarios with equal worlds share one loaded world.
+     */
+    public final List<String> world;
+
+    public final BetterBlockPos start;
+
+    public final Goal goal;
+
+    public final Map<String, String> settings;
+
+    public final long primaryTimeout;
+
+    public final long failureTimeout;
+
+    public final PathCalculationResult.Type expected;
+
+    private Scenario(String name, List<String> world, BetterBlockPos start, Goal goal, Map<String, String> settings, long primaryTimeout, long failureTimeout, PathCalculationResult.Type expected) {
+        this.name = name;
+        this.world = Collections.unmodifiableList(world);
+        this.start = start;
+        this.goal = goal;
+        this.settings = Collections.unmodifiableMap(settings);
+        this.primaryTimeout = primaryTimeout;
+        this.failureTimeout = failureTimeout;
+        this.expected = expected;
+    }
+
+    public static Scenario read(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        return parse(file.getFileName().toString(), directory, Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param name      The name of the scenario, used in reports
+     * @param directory The directory that paths in the world line are relative to
+     * @param lines     The lines of the scenario file
+     * @return The scenario
+     * @throws IllegalArgumentException if the scenario is malformed
+     */
+    public static Scenario parse(String name, Path directory, List<String> lines) {
+        List<String> world = null;
+        BetterBlockPos start = null;
+        Goal goal = null;
+        Map<String, String> settings = new LinkedHashMap<>();
+        long primaryTimeout = -1;
+        long failureTimeout = -1;
+        PathCalculationResult.Type expected = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+                continue;
+            }
+            String[] args = line.split(" +");
+            try {
+                switch (args[0]) {
+                    case "world":
+                        world = parseWorld(directory, args);
+                        break;
+                    case "start":
+                        expectArgs(args, 3, 3);
+                        start = new BetterBlockPos(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                        break;
+                    case "goal":
+                        goal = parseGoal(args);
+                        break;
+                    case "setting":
+                        expectArgs(args, 2, Integer.MAX_VALUE);
+                        String[] setting = line.split(" +", 3); // the value may have spaces in it
+                        settings.put(setting[1], setting[2]);
+                        break;
+                    case "timeout":
+                        expectArgs(args, 2, 2);
+                        primaryTimeout = Long.parseLong(args[1]);
+                        failureTimeout = Long.parseLong(args[2]);
+                        break;
+                    case "expect":
+                        expectArgs(args, 1, 1);
+                        expected = PathCalculationResult.Type.valueOf(args[1].toUpperCase(Locale.ROOT));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown key " + args[0]);
+                }
+            } catch (IllegalArgumentException e) { // NumberFormatException is one too
+                throw new IllegalArgumentException(name + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (world == null || start == null || goal == null) {
+            throw new IllegalArgumentException(name + ": world, start and goal are required");
+        }
+        return new Scenario(name, world, start, goal, settings, primaryTimeout, failureTimeout, expected);
+    }
+
+    private static void expectArgs(String[] args, int min, int max) {
+        int count = args.length - 1;
+        if (count < min || count > max) {
+            throw new IllegalArgumentException("Wrong number of arguments for " + args[0]);
+        }
+    }
+
+    private static List<String> parseWorld(Path directory, String[] args) {
+        expectArgs(args, 1, 4);
+        List<String> world = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        switch (args[1]) {
+            case "terrain":
+                expectArgs(args, 2, 3);
+                Terrain.valueOf(args[2].toUpperCase(Locale.ROOT));
+                if (args.length > 3) {
+                    Long.parseLong(args[3]);
+                }
+                break;
+            case "regions":
+                expectArgs(args, 2, 3);
+                world.set(1, directory.resolve(args[2]).normalize().toString());
+                if (args.length > 3) {
+                    Integer.parseInt(args[3]);
+                }
+                break;
+            case "schematic":
+                if (args.length != 3 && args.length != 6) {
+                    throw new IllegalArgumentException("Wrong number of arguments for schematic");
+                }
+                world.set(1, directory.resolve(args[2]).normalize().toString());
+                for (int i = 3; i < args.length; i++) {
+                    Integer.parseInt(args[i]);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown world type " + args[1]);
+        }
+        return world;
+    }
+
+    private static Goal parseGoal(String[] args) {
+        expectArgs(args, 1, 3);
+        switch (args.length - 1) {
+            case 1:
+                return new GoalYLevel(Integer.parseInt(args[1]));
+            case 2:
+                return new GoalXZ(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            default:
+                return new GoalBlock(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        }
+    }
+}
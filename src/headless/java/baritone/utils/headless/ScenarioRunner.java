@@ -0,0 +1,224 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.Baritone;
+import baritone.api.Settings;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.schematic.IStaticSchematic;
+import baritone.api.schematic.format.ISchematicFormat;
+import baritone.api.utils.PathCalculationResult;
+import baritone.api.utils.SettingsUtil;
+import baritone.pathing.calc.AStarPathFinder;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.ToolSet;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.schematic.SchematicSystem;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.world.border.WorldBorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link Scenario}s without a client, and reports how the search went. Worlds are loaded once and shared by every
+ * scenario that refers to them.
+ * <p>
+ * From the command line, takes scenario files and directories to look for *.scenario files in, prints one tab separated
+ * line per scenario, and exits with 1 if any of them failed or didn't have the expected result.
+ */
+public final class ScenarioRunner {
+
+    private final Map<List<String>, IBlockSource> worlds = new HashMap<>();
+
+    /**
+     * A context for pathing through the specified world, as a player with nothing but throwaway blocks on the hotbar.
+     * Settings are read as of now, same as any other context.
+     *
+     * @param world The world
+     * @return The context
+     */
+    public static CalculationContext createContext(IBlockSource world) {
+        return new CalculationContext(
+                null,
+                true,
+                null,
+                null,
+                new HeadlessBlockStateInterface(world),
+                new ToolSet(null),
+                true,
+                false,
+                true,
+                0,
+                0,
+                new BetterWorldBorder(new WorldBorder())
+        );
+    }
+
+    public Report run(Scenario scenario) throws IOException {
+        Settings settings = Baritone.settings();
+        settings.allSettings.forEach(Settings.Setting::reset);
+        for (Map.Entry<String, String> setting : scenario.settings.entrySet()) {
+            SettingsUtil.parseAndApply(settings, setting.getKey().toLowerCase(Locale.ROOT), setting.getValue());
+        }
+        IBlockSource world = worlds.get(scenario.world);
+        if (world == null) {
+            world = loadWorld(scenario.world);
+            worlds.put(scenario.world, world);
+        }
+        CalculationContext context = createContext(world);
+        long primaryTimeout = scenario.primaryTimeout >= 0 ? scenario.primaryTimeout : settings.primaryTimeoutMS.value;
+        long failureTimeout = scenario.failureTimeout >= 0 ? scenario.failureTimeout : settings.failureTimeoutMS.value;
+        AStarPathFinder finder = new AStarPathFinder(scenario.start.x, scenario.start.y, scenario.start.z, scenario.goal, new Favoring(null, context), context);
+        long start = System.nanoTime();
+        PathCalculationResult result = finder.calculate(primaryTimeout, failureTimeout);
+        long wallTime = System.nanoTime() - start;
+        return new Report(scenario, result, finder.getNumNodesExpanded(), wallTime);
+    }
+
+    private static IBlockSource loadWorld(List<String> world) throws IOException {
+        switch (world.get(0)) {
+            case "terrain": {
+                long seed = world.size() > 2 ? Long.parseLong(world.get(2)) : 0;
+                return Terrain.valueOf(world.get(1).toUpperCase(Locale.ROOT)).generate(seed);
+            }
+            case "regions": {
+                int dimension = world.size() > 2 ? Integer.parseInt(world.get(2)) : 0;
+                return new CachedRegionSource(Paths.get(world.get(1)), dimension);
+            }
+            case "schematic": {
+                File file = new File(world.get(1));
+                Optional<ISchematicFormat> format = SchematicSystem.INSTANCE.getByFile(file);
+                if (!format.isPresent()) {
+                    throw new IOException("Unknown schematic format " + file);
+                }
+                IStaticSchematic schematic;
+                try (InputStream in = new FileInputStream(file)) {
+                    schematic = format.get().parse(in);
+                }
+                if (world.size() > 2) {
+                    return VoxelWorld.fromSchematic(schematic, Integer.parseInt(world.get(2)), Integer.parseInt(world.get(3)), Integer.parseInt(world.get(4)));
+                }
+                return VoxelWorld.fromSchematic(schematic, 0, 0, 0);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown world type " + world.get(0));
+        }
+    }
+
+    public static final class Report {
+
+        public static final String HEADER = "scenario\tresult\texpected\tnodes\tnodes/s\tcost\tlength\tms";
+
+        public final Scenario scenario;
+        public final PathCalculationResult.Type type;
+        public final int nodesExpanded;
+        public final double nodesPerSecond;
+        /**
+         * In ticks, NaN if no path was found
+         */
+        public final double pathCost;
+        /**
+         * In movements, 0 if no path was found
+         */
+        public final int pathLength;
+        public final long wallTimeNanos;
+
+        Report(Scenario scenario, PathCalculationResult result, int nodesExpanded, long wallTimeNanos) {
+            this.scenario = scenario;
+            this.type = result.getType();
+            this.nodesExpanded = nodesExpanded;
+            this.nodesPerSecond = nodesExpanded / (Math.max(1, wallTimeNanos) / 1e9);
+            this.pathCost = result.getPath().map(path -> path.ticksRemainingFrom(0)).orElse(Double.NaN);
+            this.pathLength = result.getPath().map(IPath::length).orElse(1) - 1;
+            this.wallTimeNanos = wallTimeNanos;
+        }
+
+        /**
+         * @return Whether the result is the expected one, always true if the scenario doesn't expect anything
+         */
+        public boolean isAsExpected() {
+            return scenario.expected == null || scenario.expected == type;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s\t%s\t%s\t%d\t%.0f\t%.2f\t%d\t%.1f",
+                    scenario.name,
+                    type,
+                    scenario.expected == null ? "-" : scenario.expected,
+                    nodesExpanded,
+                    nodesPerSecond,
+                    pathCost,
+                    pathLength,
+                    wallTimeNanos / 1e6
+            );
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ScenarioRunner <scenario file or directory>...");
+            System.exit(2);
+        }
+        // both of these have to happen before anything touches settings or blocks
+        System.setProperty("baritone.headless", "true");
+        PrintStream out = System.out; // Bootstrap sends System.out to the log, the report should stay on stdout
+        Bootstrap.register();
+
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(p -> p.toString().endsWith(".scenario")).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        ScenarioRunner runner = new ScenarioRunner();
+        int failed = 0;
+        out.println(Report.HEADER);
+        for (Path file : files) {
+            try {
+                Report report = runner.run(Scenario.read(file));
+                out.println(report);
+                if (!report.isAsExpected()) {
+                    failed++;
+                }
+            } catch (Exception e) {
+                out.println(file.getFileName() + "\tERROR\t" + e);
+                failed++;
+            }
+        }
+        out.println(files.size() + " scenarios, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import java.util.Random;
+
+/**
+ * Kinds of synthetic worlds, generated from a seed so that every run paths through exactly the same blocks
+ */
+public enum Terrain {
+
+    /**
+     * Grass at sea level with scattered trees, where almost every node is a plain traverse or diagonal
+     */
+    FLAT {
+        @Override
+        int height(int x, int z, Random rand) {
+            return SEA_LEVEL;
+        }
+
+        @Override
+        void decorate(VoxelWorld world, Random rand) {
+            for (int i = 0; i < SIZE * SIZE / 200; i++) {
+                int x = rand.nextInt(SIZE);
+                int z = rand.nextInt(SIZE);
+                int top = SEA_LEVEL + 1 + 4 + rand.nextInt(3);
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        if (world.isLoaded(x + dx, z + dz)) {
+                            world.fill(x + dx, top - 2, top + 1, z + dz, Blocks.LEAVES.getDefaultState());
+                        }
+                    }
+                }
+                world.fill(x, SEA_LEVEL + 1, top, z, Blocks.LOG.getDefaultState());
+            }
+        }
+    },
+    /**
+     * Rolling hills with lakes in the valleys, lots of ascends, descends and falls
+     */
+    HILLS {
+        @Override
+        int height(int x, int z, Random rand) {
+            double h = Math.sin(x / 17D) * Math.cos(z / 23D) * 10 + Math.sin((x + z) / 9D) * 4;
+            return SEA_LEVEL + (int) h + rand.nextInt(2);
+        }
+    },
+    /**
+     * Deep water with a few small islands, mostly swimming
+     */
+    OCEAN {
+        @Override
+        int height(int x, int z, Random rand) {
+            double island = Math.sin(x / 13D) * Math.sin(z / 11D);
+            return island > 0.85 ? SEA_LEVEL + 2 : SEA_LEVEL - 20 + rand.nextInt(3);
+        }
+    },
+    /**
+     * Terraces separated by walls too tall to jump, with gravel and lava on some of them, so that the search has to
+     * pillar, bridge, mine and avoid
+     */
+    CLIFFS {
+        @Override
+        int height(int x, int z, Random rand) {
+            return SEA_LEVEL + ((x / 24 + z / 40) % 5) * 6;
+        }
+
+        @Override
+        void decorate(VoxelWorld world, Random rand) {
+            for (int i = 0; i < SIZE * SIZE / 100; i++) {
+                int x = rand.nextInt(SIZE);
+                int z = rand.nextInt(SIZE);
+                int y = world.surface(x, z).y - 1;
+                world.set(x, y, z, rand.nextInt(4) == 0 ? Blocks.LAVA.getDefaultState() : Blocks.GRAVEL.getDefaultState());
+            }
+        }
+    };
+
+    /**
+     * The size of a generated world along x and z, it spans from 0 inclusive to this exclusive
+     */
+    public static final int SIZE = 256;
+
+    private static final int SEA_LEVEL = 62;
+
+    abstract int height(int x, int z, Random rand);
+
+    void decorate(VoxelWorld world, Random rand) {}
+
+    public VoxelWorld generate(long seed) {
+        Random rand = new Random(seed);
+        VoxelWorld world = new VoxelWorld(0, 0, SIZE, SIZE);
+        IBlockState bedrock = Blocks.BEDROCK.getDefaultState();
+        IBlockState stone = Blocks.STONE.getDefaultState();
+        IBlockState dirt = Blocks.DIRT.getDefaultState();
+        IBlockState grass = Blocks.GRASS.getDefaultState();
+        IBlockState water = Blocks.WATER.getDefaultState();
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int height = Math.max(4, Math.min(VoxelWorld.HEIGHT - 2, height(x, z, rand)));
+                world.set(x, 0, z, bedrock);
+                world.fill(x, 1, height - 3, z, stone);
+                world.fill(x, height - 3, height, z, dirt);
+                if (height < SEA_LEVEL) {
+                    world.fill(x, height, SEA_LEVEL + 1, z, water);
+                } else {
+                    world.set(x, height, z, grass);
+                }
+            }
+        }
+        decorate(world, rand);
+        return world;
+    }
+}
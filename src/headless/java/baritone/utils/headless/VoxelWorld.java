@@ -0,0 +1,149 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.api.schematic.IStaticSchematic;
+import baritone.api.utils.BetterBlockPos;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A box of blocks held entirely in memory, the full height of the world. Everything outside of it is air, and not
+ * loaded.
+ */
+public final class VoxelWorld implements IBlockSource {
+
+    public static final int HEIGHT = 256;
+
+    private final int minX;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeZ;
+
+    private final List<IBlockState> palette = new ArrayList<>();
+
+    /**
+     * Indices into {@link #palette}, ordered y, z, x from outermost to innermost
+     */
+    private final byte[] blocks;
+
+    public VoxelWorld(int minX, int minZ, int sizeX, int sizeZ) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.blocks = new byte[sizeX * sizeZ * HEIGHT];
+        palette.add(Blocks.AIR.getDefaultState());
+    }
+
+    /**
+     * Copies a schematic into a new world just big enough to hold it
+     *
+     * @param schematic The schematic
+     * @param x         Where the minimum x of the schematic ends up
+     * @param y         Where the minimum y of the schematic ends up
+     * @param z         Where the minimum z of the schematic ends up
+     * @return The world
+     */
+    public static VoxelWorld fromSchematic(IStaticSchematic schematic, int x, int y, int z) {
+        if (y < 0 || y + schematic.heightY() > HEIGHT) {
+            throw new IllegalArgumentException("Schematic doesn't fit between y=0 and y=" + HEIGHT);
+        }
+        VoxelWorld world = new VoxelWorld(x, z, schematic.widthX(), schematic.lengthZ());
+        for (int dx = 0; dx < schematic.widthX(); dx++) {
+            for (int dz = 0; dz < schematic.lengthZ(); dz++) {
+                for (int dy = 0; dy < schematic.heightY(); dy++) {
+                    IBlockState state = schematic.getDirect(dx, dy, dz);
+                    if (state != null) {
+                        world.set(x + dx, y + dy, z + dz, state);
+                    }
+                }
+            }
+        }
+        return world;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    @Override
+    public boolean isLoaded(int x, int z) {
+        return x >= minX && x < minX + sizeX && z >= minZ && z < minZ + sizeZ;
+    }
+
+    @Override
+    public IBlockState get(int x, int y, int z) {
+        if (y < 0 || y >= HEIGHT || !isLoaded(x, z)) {
+            return palette.get(0);
+        }
+        return palette.get(blocks[index(x, y, z)] & 0xFF);
+    }
+
+    public void set(int x, int y, int z, IBlockState state) {
+        if (y < 0 || y >= HEIGHT || !isLoaded(x, z)) {
+            throw new IndexOutOfBoundsException(x + "," + y + "," + z + " is outside of this world");
+        }
+        int id = palette.indexOf(state);
+        if (id == -1) {
+            id = palette.size();
+            if (id > 0xFF) {
+                throw new IllegalStateException("Too many distinct block states");
+            }
+            palette.add(state);
+        }
+        blocks[index(x, y, z)] = (byte) id;
+    }
+
+    public void fill(int x, int fromY, int toY, int z, IBlockState state) {
+        for (int y = fromY; y < toY; y++) {
+            set(x, y, z, state);
+        }
+    }
+
+    private int index(int x, int y, int z) {
+        return (y * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+
+    /**
+     * @return The position a player standing on the highest solid block of this column would have its feet at
+     */
+    public BetterBlockPos surface(int x, int z) {
+        for (int y = HEIGHT - 1; y >= 0; y--) {
+            if (get(x, y, z).getMaterial().blocksMovement()) {
+                return new BetterBlockPos(x, y + 1, z);
+            }
+        }
+        return new BetterBlockPos(x, 1, z);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.Terrain;
+import baritone.utils.headless.VoxelWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.init.Bootstrap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole search across a synthetic world, from one corner to the opposite one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dbaritone.headless=true", "-Xmx2G"})
+public class AStarBenchmark {
+
+    @Param({"FLAT", "HILLS", "OCEAN", "CLIFFS"})
+    public Terrain terrain;
+
+    @Param({"false", "true"})
+    public boolean primitiveNodeStore;
+
+    @Param({"false", "true"})
+    public boolean symmetryPruning;
+
+    @Param({"false", "true"})
+    public boolean moveCandidates;
+
+    private CalculationContext context;
+
+    private BetterBlockPos start;
+
+    private Goal goal;
+
+    private final SearchArena arena = new SearchArena();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Bootstrap.register(); // there is no client to have done this
+        VoxelWorld world = terrain.generate(42);
+        Baritone.settings().primitiveNodeStore.value = primitiveNodeStore;
+        Baritone.settings().pathingSymmetryPruning.value = symmetryPruning;
+        Baritone.settings().pathingMoveCandidates.value = moveCandidates;
+        context = ScenarioRunner.createContext(world);
+        start = world.surface(8, 8);
+        goal = new GoalBlock(world.surface(Terrain.SIZE - 8, Terrain.SIZE - 8));
+    }
+
+    @Benchmark
+    public Optional<IPath> calculate() {
+        return new AStarPathFinder(start.x, start.y, start.z, goal, new Favoring(null, context), context).calculate0(30000, 30000);
+    }
+
+    @Benchmark
+    public Optional<IPath> calculateWithArena() {
+        AStarPathFinder finder = new AStarPathFinder(start.x, start.y, start.z, goal, new Favoring(null, context), context, arena);
+        try {
+            return finder.calculate0(30000, 30000);
+        } finally {
+            // normally done by calculate, nothing else could have been holding it since this is the only thread
+            arena.release();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.INodeStore;
+import baritone.pathing.calc.PathNodeStore;
+import baritone.pathing.calc.PrimitiveNodeStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap operations on a fixed set of nodes with random costs. Every benchmark has to fill the heap first, so
+ * {@link #update()} and {@link #removeLowest()} include the time of {@link #insert()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryHeapOpenSetBenchmark {
+
+    private static final int NODES = 10000;
+
+    @Param({"object", "primitive"})
+    public String store;
+
+    private INodeStore nodes;
+
+    private BinaryHeapOpenSet openSet;
+
+    private final int[] handles = new int[NODES];
+
+    private final double[] costs = new double[NODES];
+
+    private final double[] decreasedCosts = new double[NODES];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GoalBlock goal = new GoalBlock(0, 0, 0);
+        nodes = store.equals("primitive") ? new PrimitiveNodeStore(goal, NODES, 0.75F) : new PathNodeStore(goal, NODES, 0.75F);
+        openSet = new BinaryHeapOpenSet(nodes);
+        Random rand = new Random(42);
+        for (int i = 0; i < NODES; i++) {
+            int x = i % 100;
+            int z = i / 100;
+            handles[i] = nodes.getOrCreate(x, 64, z, BetterBlockPos.longHash(x, 64, z));
+            costs[i] = rand.nextDouble() * 1000;
+            decreasedCosts[i] = costs[i] * rand.nextDouble();
+        }
+    }
+
+    private void fill() {
+        openSet.clear();
+        for (int i = 0; i < NODES; i++) {
+            nodes.setCombinedCost(handles[i], costs[i]);
+            openSet.insert(handles[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int insert() {
+        fill();
+        return openSet.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int update() {
+        fill();
+        for (int i = 0; i < NODES; i++) {
+            nodes.setCombinedCost(handles[i], decreasedCosts[i]);
+            openSet.update(handles[i]);
+        }
+        return openSet.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int removeLowest() {
+        fill();
+        int lowest = INodeStore.NONE;
+        while (!openSet.isEmpty()) {
+            lowest = openSet.removeLowest();
+        }
+        return lowest;
+    }
+}
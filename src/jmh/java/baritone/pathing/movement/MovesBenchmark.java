@@ -0,0 +1,84 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.movement;
+
+import baritone.api.utils.BetterBlockPos;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.Terrain;
+import baritone.utils.headless.VoxelWorld;
+import baritone.utils.pathing.MutableMoveResult;
+import net.minecraft.init.Bootstrap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost calculation of one move, from a fixed sample of positions on the surface of a synthetic world
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dbaritone.headless=true")
+public class MovesBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({"FLAT", "HILLS", "CLIFFS"})
+    public Terrain terrain;
+
+    @Param // every move
+    public Moves move;
+
+    private CalculationContext context;
+
+    private final int[] x = new int[POSITIONS];
+    private final int[] y = new int[POSITIONS];
+    private final int[] z = new int[POSITIONS];
+
+    private final MutableMoveResult result = new MutableMoveResult();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Bootstrap.register(); // there is no client to have done this
+        VoxelWorld world = terrain.generate(42);
+        context = ScenarioRunner.createContext(world);
+        Random rand = new Random(42);
+        for (int i = 0; i < POSITIONS; i++) {
+            // stay away from the edges, parkour looks up to 4 blocks out
+            BetterBlockPos pos = world.surface(8 + rand.nextInt(Terrain.SIZE - 16), 8 + rand.nextInt(Terrain.SIZE - 16));
+            x[i] = pos.x;
+            y[i] = pos.y;
+            z[i] = pos.z;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public double apply() {
+        double total = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            result.reset();
+            move.apply(context, x[i], y[i], z[i], result);
+            total += result.cost;
+        }
+        return total;
+    }
+}
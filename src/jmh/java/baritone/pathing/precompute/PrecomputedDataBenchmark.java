@@ -0,0 +1,107 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.precompute;
+
+import baritone.utils.BlockStateInterface;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.Terrain;
+import baritone.utils.headless.VoxelWorld;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Bootstrap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of every flag, on block states sampled from around the surface of a synthetic world, which is where the
+ * search asks about them. The data is filled in during warmup, so this measures the cached path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dbaritone.headless=true")
+public class PrecomputedDataBenchmark {
+
+    private static final int POSITIONS = 4096;
+
+    @Param({"FLAT", "HILLS", "OCEAN", "CLIFFS"})
+    public Terrain terrain;
+
+    private PrecomputedData data;
+
+    private BlockStateInterface bsi;
+
+    private final int[] x = new int[POSITIONS];
+    private final int[] y = new int[POSITIONS];
+    private final int[] z = new int[POSITIONS];
+    private final IBlockState[] states = new IBlockState[POSITIONS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Bootstrap.register(); // there is no client to have done this
+        VoxelWorld world = terrain.generate(42);
+        data = PrecomputedData.get();
+        bsi = ScenarioRunner.createContext(world).bsi;
+        Random rand = new Random(42);
+        for (int i = 0; i < POSITIONS; i++) {
+            x[i] = rand.nextInt(Terrain.SIZE);
+            z[i] = rand.nextInt(Terrain.SIZE);
+            y[i] = world.surface(x[i], z[i]).y - 2 + rand.nextInt(4);
+            states[i] = bsi.get0(x[i], y[i], z[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int canWalkOn() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if (data.canWalkOn(bsi, x[i], y[i], z[i], states[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int canWalkThrough() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if (data.canWalkThrough(bsi, x[i], y[i], z[i], states[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int fullyPassable() {
+        int count = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if (data.fullyPassable(bsi, x[i], y[i], z[i], states[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
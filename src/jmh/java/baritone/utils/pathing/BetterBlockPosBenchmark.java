@@ -0,0 +1,58 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.pathing;
+
+import baritone.api.utils.BetterBlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BetterBlockPosBenchmark {
+
+    private static final int POSITIONS = 4096;
+
+    private final int[] x = new int[POSITIONS];
+    private final int[] y = new int[POSITIONS];
+    private final int[] z = new int[POSITIONS];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < POSITIONS; i++) {
+            // the kind of spread a search has, a few hundred blocks around a point with most of the y range
+            x[i] = 1000 + (i * 7919) % 512 - 256;
+            y[i] = (i * 31) % 256;
+            z[i] = -1000 + (i * 104729) % 512 - 256;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long longHash() {
+        long sum = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            sum += BetterBlockPos.longHash(x[i], y[i], z[i]);
+        }
+        return sum;
+    }
+}
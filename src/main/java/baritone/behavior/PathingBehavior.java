@@ -23,14 +23,23 @@ import baritone.api.event.events.*;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.pathing.movement.IMovement;
 import baritone.api.process.PathingCommand;
 import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
+import baritone.api.utils.Pair;
 import baritone.api.utils.PathCalculationResult;
 import baritone.api.utils.interfaces.IGoalRenderPos;
 import baritone.pathing.calc.AStarPathFinder;
 import baritone.pathing.calc.AbstractNodeCostSearch;
+import baritone.pathing.calc.BidirectionalPathFinder;
+import baritone.pathing.calc.HierarchicalPathFinder;
+import baritone.pathing.calc.IncrementalPathFinder;
+import baritone.pathing.calc.IncrementalSearchGraph;
+import baritone.pathing.calc.SearchArena;
+import baritone.pathing.calc.hierarchy.CachedPortals;
 import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.MovementCostCache;
 import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.path.PathExecutor;
 import baritone.process.ElytraProcess;
@@ -75,6 +84,14 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
 
     private final LinkedBlockingQueue<PathEvent> toDispatch = new LinkedBlockingQueue<>();
 
+    private final SearchArena searchArena = new SearchArena();
+
+    private final IncrementalSearchGraph incrementalGraph = new IncrementalSearchGraph();
+
+    private final CachedPortals cachedPortals = new CachedPortals();
+
+    private final MovementCostCache movementCostCache = new MovementCostCache();
+
     public PathingBehavior(Baritone baritone) {
         super(baritone);
     }
@@ -108,6 +125,30 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         dispatchEvents();
     }
 
+    @Override
+    public void onBlockChange(BlockChangeEvent event) {
+        if (Baritone.settings().incrementalPathing.value) {
+            for (Pair<BlockPos, ?> change : event.getBlocks()) {
+                BlockPos pos = change.first();
+                incrementalGraph.onBlockChange(pos.getX(), pos.getY(), pos.getZ());
+            }
+        }
+        for (Pair<BlockPos, ?> change : event.getBlocks()) {
+            BlockPos pos = change.first();
+            movementCostCache.invalidate(pos.getX() >> 4, pos.getZ() >> 4);
+        }
+    }
+
+    @Override
+    public void onChunkEvent(ChunkEvent event) {
+        if (event.isPostPopulate() && Baritone.settings().incrementalPathing.value) {
+            incrementalGraph.onChunkLoad(event.getX(), event.getZ());
+        }
+        if (event.isPostPopulate() || event.getType() == ChunkEvent.Type.UNLOAD) {
+            movementCostCache.invalidate(event.getX(), event.getZ());
+        }
+    }
+
     @Override
     public void onPlayerSprintState(SprintStateEvent event) {
         if (isPathing()) {
@@ -378,6 +419,24 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         }
     }
 
+    /**
+     * Called when a movement of the current path turns out to cost more than it did when the path was calculated, so
+     * that it isn't taken from the incremental search graph as is the next time
+     */
+    public void secretInternalMovementCostChanged(IMovement movement) {
+        if (Baritone.settings().incrementalPathing.value) {
+            BetterBlockPos src = movement.getSrc();
+            incrementalGraph.onBlockChange(src.x, src.y, src.z);
+        }
+    }
+
+    /**
+     * @return Where movement costs are kept from one search to the next, see {@link baritone.api.Settings#movementCostCache}
+     */
+    public MovementCostCache getMovementCostCache() {
+        return movementCostCache;
+    }
+
     public CalculationContext secretInternalGetCalculationContext() {
         return context;
     }
@@ -494,7 +553,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             primaryTimeout = Baritone.settings().planAheadPrimaryTimeoutMS.value;
             failureTimeout = Baritone.settings().planAheadFailureTimeoutMS.value;
         }
-        AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context);
+        AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context, searchArena, incrementalGraph, cachedPortals);
         if (!Objects.equals(pathfinder.getGoal(), goal)) { // will return the exact same object if simplification didn't happen
             logDebug("Simplifying " + goal.getClass() + " to GoalXZ due to distance");
         }
@@ -554,7 +613,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         });
     }
 
-    private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context) {
+    private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context, SearchArena arena, IncrementalSearchGraph graph, CachedPortals portals) {
         Goal transformed = goal;
         if (Baritone.settings().simplifyUnloadedYCoord.value && goal instanceof IGoalRenderPos) {
             BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
@@ -563,7 +622,30 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             }
         }
         Favoring favoring = new Favoring(context.getBaritone().getPlayerContext(), previous, context);
-        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context);
+        if (Baritone.settings().hierarchicalPathing.value && context.worldData != null) {
+            BlockPos target = HierarchicalPathFinder.targetOf(transformed);
+            int minDistance = Baritone.settings().hierarchicalPathingMinDistance.value;
+            if (target != null && start.distanceSq(target.getX(), start.getY(), target.getZ()) >= (double) minDistance * minDistance) {
+                return new HierarchicalPathFinder(start.getX(), start.getY(), start.getZ(), transformed, target, favoring, context, portals);
+            }
+        }
+        if (Baritone.settings().incrementalPathing.value) {
+            if (graph.acquire()) {
+                return new IncrementalPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context, graph);
+            }
+            // a cancelled search is still repairing it, this one does without
+        } else if (graph.size() > 0 && graph.acquire()) {
+            // incremental pathing was turned off, nothing is going to reuse it
+            try {
+                graph.trim(0);
+            } finally {
+                graph.release();
+            }
+        }
+        if (Baritone.settings().bidirectionalPathing.value && BidirectionalPathFinder.canSearch(transformed)) {
+            return new BidirectionalPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context);
+        }
+        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context, arena);
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.behavior;
+
+import baritone.Baritone;
+import baritone.api.cache.IWorldData;
+import baritone.api.event.events.TickEvent;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.cache.CachedWorld;
+import baritone.pathing.calc.HierarchicalPathFinder;
+import baritone.pathing.path.PathExecutor;
+import net.minecraft.client.entity.EntityPlayerSP;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.List;
+
+/**
+ * Loads cached regions from disk before pathing needs them: the ones around the player, where the player is heading,
+ * along the current path and towards the goal
+ */
+public final class RegionPrefetchBehavior extends Behavior {
+
+    /**
+     * How many ticks between looking for regions to load
+     */
+    private static final int INTERVAL = 20;
+
+    /**
+     * How many ticks ahead to guess where the player will be, from its current velocity
+     */
+    private static final int LOOKAHEAD_TICKS = 200;
+
+    private int ticks;
+
+    public RegionPrefetchBehavior(Baritone baritone) {
+        super(baritone);
+    }
+
+    @Override
+    public void onTick(TickEvent event) {
+        if (event.getType() == TickEvent.Type.OUT || !Baritone.settings().prefetchRegions.value) {
+            return;
+        }
+        if (++ticks < INTERVAL) {
+            return;
+        }
+        ticks = 0;
+        IWorldData worldData = ctx.worldData();
+        if (worldData == null) {
+            return;
+        }
+        CachedWorld world = (CachedWorld) worldData.getCachedWorld();
+        int maxDistance = Baritone.settings().prefetchRegionsDistance.value;
+        BetterBlockPos feet = ctx.playerFeet();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                world.prefetchRegion((feet.x >> 9) + dx, (feet.z >> 9) + dz);
+            }
+        }
+        EntityPlayerSP player = ctx.player();
+        prefetchTowards(world, feet, feet.x + player.motionX * LOOKAHEAD_TICKS, feet.z + player.motionZ * LOOKAHEAD_TICKS, maxDistance);
+        PathExecutor current = baritone.getPathingBehavior().getCurrent();
+        if (current != null) {
+            List<BetterBlockPos> positions = current.getPath().positions();
+            // consecutive positions are next to each other, no need to look at every one
+            for (int i = 0; i < positions.size(); i += 16) {
+                BetterBlockPos pos = positions.get(i);
+                world.prefetchRegion(pos.x >> 9, pos.z >> 9);
+            }
+            BetterBlockPos dest = current.getPath().getDest();
+            world.prefetchRegion(dest.x >> 9, dest.z >> 9);
+        }
+        Goal goal = baritone.getPathingBehavior().getGoal();
+        BlockPos target = goal == null ? null : HierarchicalPathFinder.targetOf(goal);
+        if (target != null) {
+            prefetchTowards(world, feet, target.getX(), target.getZ(), maxDistance);
+        }
+    }
+
+    /**
+     * Loads the regions on the straight line from the player to the specified position, up to the maximum distance
+     */
+    private static void prefetchTowards(CachedWorld world, BetterBlockPos from, double toX, double toZ, int maxDistance) {
+        double dx = toX - from.x;
+        double dz = toZ - from.z;
+        double length = Math.sqrt(dx * dx + dz * dz);
+        if (length < 1) {
+            return;
+        }
+        double distance = Math.min(length, maxDistance);
+        // half a region at a time, so that no region the line passes through is skipped entirely
+        for (double d = 256; d < distance + 256; d += 256) {
+            double along = Math.min(d, distance);
+            int x = (int) Math.floor(from.x + dx / length * along);
+            int z = (int) Math.floor(from.z + dz / length * along);
+            world.prefetchRegion(x >> 9, z >> 9);
+        }
+    }
+}
@@ -26,8 +26,11 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -104,6 +107,34 @@ public final class CachedChunk {
      */
     public static final int SIZE_IN_BYTES = SIZE / 8;
 
+    /**
+     * The number of words of chunk data for 16 blocks of height
+     */
+    private static final int SECTION_WORDS = SIZE / 64 / 16;
+
+    /**
+     * A section that's entirely one type, for each type by its 2 bits as they're stored. Never modified.
+     */
+    private static final long[][] UNIFORM_SECTIONS = new long[4][];
+
+    static {
+        for (int i = 0; i < 4; i++) {
+            UNIFORM_SECTIONS[i] = new long[SECTION_WORDS];
+            Arrays.fill(UNIFORM_SECTIONS[i], i * 0x5555555555555555L);
+        }
+    }
+
+    /**
+     * Each type by its 2 bits as they're stored, first bit lowest
+     */
+    private static final PathingBlockType[] TYPES = new PathingBlockType[4];
+
+    static {
+        for (int i = 0; i < 4; i++) {
+            TYPES[i] = PathingBlockType.fromBits((i & 1) != 0, (i & 2) != 0);
+        }
+    }
+
     /**
      * The chunk x coordinate
      */
@@ -115,11 +146,14 @@ public final class CachedChunk {
     public final int z;
 
     /**
-     * The actual raw data of this packed chunk.
+     * The actual raw data of this packed chunk, one array of {@link #SECTION_WORDS} words per 16 blocks of height.
      * <p>
-     * Each block is expressed as 2 bits giving a total of 16 KiB
+     * Each block is expressed as 2 bits giving a total of 16 KiB, laid out the same as a {@link java.util.BitSet} would
+     * be: bit {@code i} is bit {@code i & 63} of word {@code i >> 6}. Sections that are entirely one type (like all the
+     * air above the surface) are one of the shared {@link #UNIFORM_SECTIONS} instead, so they take no memory of their
+     * own.
      */
-    private final BitSet data;
+    private final long[][] sections;
 
     private final Int2ObjectOpenHashMap<String> special;
 
@@ -134,14 +168,17 @@ public final class CachedChunk {
 
     public final long cacheTimestamp;
 
-    CachedChunk(int x, int z, BitSet data, IBlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
+    CachedChunk(int x, int z, long[] data, IBlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
         validateSize(data);
 
         this.x = x;
         this.z = z;
-        this.data = data;
+        this.sections = new long[16][];
+        for (int section = 0; section < 16; section++) {
+            this.sections[section] = compressSection(data, section);
+        }
         this.overview = overview;
-        this.heightMap = new int[256];
+        this.heightMap = calculateHeightMap(data);
         this.specialBlockLocations = specialBlockLocations;
         this.cacheTimestamp = cacheTimestamp;
         if (specialBlockLocations.isEmpty()) {
@@ -150,7 +187,6 @@ public final class CachedChunk {
             this.special = new Int2ObjectOpenHashMap<>();
             setSpecial();
         }
-        calculateHeightMap();
     }
 
     private final void setSpecial() {
@@ -197,24 +233,127 @@ public final class CachedChunk {
         return ChunkPacker.pathingTypeToBlock(type, dimension);
     }
 
+    /**
+     * @param x The x position within this chunk
+     * @param y The y position
+     * @param z The z position within this chunk
+     * @return How the block at the specified position was cached
+     */
+    public final PathingBlockType getPathingType(int x, int y, int z) {
+        return getType(getPositionIndex(x, y, z));
+    }
+
     private PathingBlockType getType(int index) {
-        return PathingBlockType.fromBits(data.get(index), data.get(index + 1));
+        // index is always even, so both bits are in the same word
+        return TYPES[(int) (sections[index >> 13][index >> 6 & (SECTION_WORDS - 1)] >>> (index & 63)) & 3];
     }
 
-    private void calculateHeightMap() {
-        for (int z = 0; z < 16; z++) {
-            for (int x = 0; x < 16; x++) {
-                int index = z << 4 | x;
-                heightMap[index] = 0;
-                for (int y = 256; y >= 0; y--) {
-                    int i = getPositionIndex(x, y, z);
-                    if (data.get(i) || data.get(i + 1)) {
-                        heightMap[index] = y;
-                        break;
-                    }
+    /**
+     * @return One of the {@link #UNIFORM_SECTIONS} if the section is entirely one type, otherwise a copy of its words
+     */
+    private static long[] compressSection(long[] data, int section) {
+        int from = section * SECTION_WORDS;
+        long first = data[from];
+        // the section is uniform if the first word is, and every other word is the same as the first
+        if (first == (first & 3) * 0x5555555555555555L) {
+            boolean uniform = true;
+            for (int i = 1; i < SECTION_WORDS; i++) {
+                if (data[from + i] != first) {
+                    uniform = false;
+                    break;
                 }
             }
+            if (uniform) {
+                return UNIFORM_SECTIONS[(int) (first & 3)];
+            }
         }
+        return Arrays.copyOfRange(data, from, from + SECTION_WORDS);
+    }
+
+    /**
+     * @return Roughly how many bytes of memory the chunk data takes, not counting the overview and special blocks
+     */
+    public final int getDataSizeInBytes() {
+        int size = 16 * 4 + 16; // the array of sections
+        for (long[] section : sections) {
+            if (!isUniform(section)) {
+                size += SECTION_WORDS * 8 + 16;
+            }
+        }
+        return size;
+    }
+
+    private static boolean isUniform(long[] section) {
+        for (long[] uniform : UNIFORM_SECTIONS) {
+            if (section == uniform) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the highest block in each column that isn't air, a whole word (2 rows of 16 columns) at a time
+     *
+     * @param data The raw packed chunk data
+     * @return The y of the highest block that isn't air for each column, as z << 4 | x, or 0 if they're all air
+     */
+    static int[] calculateHeightMap(long[] data) {
+        int[] heightMap = new int[256];
+        // one bit per column, the lower bit of its 2 bits, for the columns that haven't been found yet
+        long[] remaining = new long[8];
+        Arrays.fill(remaining, 0x5555555555555555L);
+        int remainingWords = 8;
+        for (int y = 255; y >= 0 && remainingWords > 0; y--) {
+            for (int i = 0; i < 8; i++) {
+                if (remaining[i] == 0) {
+                    continue;
+                }
+                long word = data[y << 3 | i];
+                long found = (word | word >>> 1) & remaining[i];
+                if (found == 0) {
+                    continue;
+                }
+                remaining[i] &= ~found;
+                if (remaining[i] == 0) {
+                    remainingWords--;
+                }
+                while (found != 0) {
+                    int bit = Long.numberOfTrailingZeros(found);
+                    found &= found - 1;
+                    // bit is z << 5 | x << 1 within the word, and each word is 2 values of z
+                    int x = bit >> 1 & 15;
+                    int z = i << 1 | bit >> 5;
+                    heightMap[z << 4 | x] = y;
+                }
+            }
+        }
+        return heightMap;
+    }
+
+    /**
+     * @param x The x position within this chunk
+     * @param z The z position within this chunk
+     * @return The y of the highest block in the column that isn't air, or 0 if they're all air
+     */
+    public final int getHeight(int x, int z) {
+        return heightMap[z << 4 | x];
+    }
+
+    /**
+     * @param x The x position within this chunk
+     * @param y The y position
+     * @param z The z position within this chunk
+     * @return The highest y below the specified one where the block isn't cached as air, or -1 if there isn't one
+     */
+    public final int getNextNonAirBelow(int x, int y, int z) {
+        // nothing above the height map is anything but air
+        for (int below = Math.min(y - 1, heightMap[z << 4 | x]); below >= 0; below--) {
+            if (getType(getPositionIndex(x, below, z)) != PathingBlockType.AIR) {
+                return below;
+            }
+        }
+        return -1;
     }
 
     public final IBlockState[] getOverview() {
@@ -237,10 +376,30 @@ public final class CachedChunk {
     }
 
     /**
-     * @return Returns the raw packed chunk data as a byte array
+     * @return Returns the raw packed chunk data as a byte array, in the same layout as {@link java.util.BitSet#toByteArray()}
      */
     public final byte[] toByteArray() {
-        return this.data.toByteArray();
+        ByteBuffer bytes = ByteBuffer.allocate(SIZE_IN_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer words = bytes.asLongBuffer();
+        for (long[] section : sections) {
+            words.put(section);
+        }
+        return bytes.array();
+    }
+
+    /**
+     * The reverse of {@link #toByteArray()}
+     *
+     * @param bytes The raw packed chunk data, trailing zeros may be left out
+     * @return The raw packed chunk data as words
+     */
+    static long[] fromByteArray(byte[] bytes) {
+        if (bytes.length > SIZE_IN_BYTES) {
+            throw new IllegalArgumentException("Chunk data of invalid length provided");
+        }
+        long[] data = new long[SIZE / 64];
+        ByteBuffer.wrap(Arrays.copyOf(bytes, SIZE_IN_BYTES)).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(data);
+        return data;
     }
 
     /**
@@ -256,16 +415,16 @@ public final class CachedChunk {
     }
 
     /**
-     * Validates the size of an input {@link BitSet} containing the raw
-     * packed chunk data. Sizes that exceed {@link CachedChunk#SIZE} are
-     * considered invalid, and thus, an exception will be thrown.
+     * Validates the size of an input array containing the raw packed chunk
+     * data. Sizes other than {@link CachedChunk#SIZE} bits are considered
+     * invalid, and thus, an exception will be thrown.
      *
      * @param data The raw data
-     * @throws IllegalArgumentException if the bitset size exceeds the maximum size
+     * @throws IllegalArgumentException if the array isn't exactly the right size
      */
-    private static void validateSize(BitSet data) {
-        if (data.size() > SIZE) {
-            throw new IllegalArgumentException("BitSet of invalid length provided");
+    private static void validateSize(long[] data) {
+        if (data.length * 64 != SIZE) {
+            throw new IllegalArgumentException("Chunk data of invalid length provided");
         }
     }
 }
@@ -24,12 +24,13 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * @author Brady
@@ -41,14 +42,29 @@ public final class CachedRegion implements ICachedRegion {
     private static final byte CHUNK_PRESENT = 1;
 
     /**
-     * Magic value to detect invalid cache files, or incompatible cache files saved in an old version of Baritone
+     * Magic value of the old format, an entire region in one gzip stream. Converted to the current format, see
+     * {@link RegionFile#MAGIC}, when loaded.
      */
-    private static final int CACHED_REGION_MAGIC = 456022910;
+    private static final int LEGACY_CACHED_REGION_MAGIC = 456022910;
 
     /**
-     * All of the chunks in this region: A 32x32 array of them.
+     * The first two bytes of a gzip stream, which the current format never starts with
      */
-    private final CachedChunk[][] chunks = new CachedChunk[32][32];
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    /**
+     * All of the chunks in this region, indexed by {@code x * 32 + z}
+     * <p>
+     * These are read without locking. When a chunk moves here from {@link #stored}, it's always set here before it's
+     * cleared there, so that a reader that checks both never finds neither, see {@link #getChunkIfCached(int, int)}.
+     */
+    private final AtomicReferenceArray<CachedChunk> chunks = new AtomicReferenceArray<>(32 * 32);
+
+    /**
+     * Chunks that have been loaded from disk but not decompressed yet, they're moved to {@link #chunks} once they're
+     * first needed. These are slices of the mapped region file, see {@link RegionFile#get(int)}.
+     */
+    private final AtomicReferenceArray<StoredChunk> stored = new AtomicReferenceArray<>(32 * 32);
 
     /**
      * The region x coordinate
@@ -67,6 +83,31 @@ public final class CachedRegion implements ICachedRegion {
      */
     private boolean hasUnsavedChanges;
 
+    /**
+     * The chunks that have changed since the most recent load or save, indexed by {@code x * 32 + z}
+     */
+    private final BitSet dirty = new BitSet(32 * 32);
+
+    /**
+     * The region file as of the most recent load or save, null until the first one
+     * <p>
+     * Only used while holding {@link #fileLock}, which is taken before the lock on this region. Disk I/O happens while
+     * holding that one rather than the lock on this region, so that reading chunks never waits for the disk.
+     */
+    private RegionFile file;
+
+    private final Object fileLock = new Object();
+
+    /**
+     * When this region was last looked up, see {@link CachedWorld#getRegion(int, int)}
+     */
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    /**
+     * Set once this region is evicted from RAM, see {@link #markEvicted(boolean)}
+     */
+    private boolean evicted;
+
     CachedRegion(int x, int z, int dimension) {
         this.x = x;
         this.z = z;
@@ -74,233 +115,492 @@ public final class CachedRegion implements ICachedRegion {
         this.dimension = dimension;
     }
 
+    /**
+     * Reads a region straight from a cache directory, without a {@link CachedWorld}, e.g. to path through it offline.
+     * Nothing is ever saved back, not even to convert an old region file.
+     *
+     * @param directory The cache directory that the region file is in
+     * @param x         The region x coordinate
+     * @param z         The region z coordinate
+     * @param dimension The dimension the region is in
+     * @return The region, without any chunks if it wasn't on disk or couldn't be read
+     */
+    public static CachedRegion read(String directory, int x, int z, int dimension) {
+        CachedRegion region = new CachedRegion(x, z, dimension);
+        region.load(directory, false);
+        return region;
+    }
+
     @Override
     public final IBlockState getBlock(int x, int y, int z) {
-        CachedChunk chunk = chunks[x >> 4][z >> 4];
+        CachedChunk chunk = getChunkIfCached(x >> 4, z >> 4);
         if (chunk != null) {
             return chunk.getBlock(x & 15, y, z & 15, dimension);
         }
         return null;
     }
 
+    /**
+     * @return The highest y below the specified one where the block isn't cached as air, or -1 if there isn't one
+     */
+    public final int getNextNonAirBelow(int x, int y, int z) {
+        CachedChunk chunk = getChunkIfCached(x >> 4, z >> 4);
+        if (chunk == null) {
+            return -1; // not cached is read as air
+        }
+        return chunk.getNextNonAirBelow(x & 15, y, z & 15);
+    }
+
     @Override
     public final boolean isCached(int x, int z) {
-        return chunks[x >> 4][z >> 4] != null;
+        int index = (x >> 4) * 32 + (z >> 4);
+        // stored first, it's only ever cleared after chunks is set
+        return stored.get(index) != null || chunks.get(index) != null;
     }
 
-    public final ArrayList<BlockPos> getLocationsOf(String block) {
-        ArrayList<BlockPos> res = new ArrayList<>();
-        for (int chunkX = 0; chunkX < 32; chunkX++) {
-            for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
-                if (chunks[chunkX][chunkZ] == null) {
-                    continue;
-                }
-                ArrayList<BlockPos> locs = chunks[chunkX][chunkZ].getAbsoluteBlocks(block);
-                if (locs != null) {
-                    res.addAll(locs);
-                }
-            }
+    /**
+     * The same as {@link #getChunk(int, int)}, but only locks if the chunk still has to be decompressed
+     */
+    private CachedChunk getChunkIfCached(int chunkX, int chunkZ) {
+        int index = chunkX * 32 + chunkZ;
+        CachedChunk chunk = chunks.get(index);
+        if (chunk != null) {
+            return chunk;
+        }
+        if (stored.get(index) != null) {
+            return getChunk(chunkX, chunkZ);
         }
-        return res;
+        // it might have been decompressed in between, stored is only cleared after chunks is set
+        return chunks.get(index);
     }
 
-    public final synchronized void updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
-        this.chunks[chunkX][chunkZ] = chunk;
-        hasUnsavedChanges = true;
+    /**
+     * @param chunkX The chunk x coordinate within this region, 0 to 31
+     * @param chunkZ The chunk z coordinate within this region, 0 to 31
+     * @return The cached chunk, or null if it isn't cached
+     */
+    public final synchronized CachedChunk getChunk(int chunkX, int chunkZ) {
+        int index = chunkX * 32 + chunkZ;
+        StoredChunk storedChunk = stored.get(index);
+        if (storedChunk != null) {
+            try {
+                chunks.set(index, readChunk(storedChunk, chunkX + 32 * this.x, chunkZ + 32 * this.z));
+            } catch (Exception ex) { // same as when the whole region is corrupted, carry on without it
+                ex.printStackTrace();
+            }
+            // only now that it's in chunks, see isCached
+            stored.set(index, null);
+        }
+        return chunks.get(index);
     }
 
-
-    public synchronized final void save(String directory) {
-        if (!hasUnsavedChanges) {
-            return;
+    /**
+     * The special blocks of a chunk, without decompressing it if it hasn't been yet
+     *
+     * @param chunkX The chunk x coordinate within this region, 0 to 31
+     * @param chunkZ The chunk z coordinate within this region, 0 to 31
+     * @return The positions within the chunk by block name, see {@link CachedChunk#getRelativeBlocks()}, or null if
+     * the chunk isn't cached
+     */
+    final synchronized Map<String, List<BlockPos>> getSpecialBlocks(int chunkX, int chunkZ) {
+        int index = chunkX * 32 + chunkZ;
+        CachedChunk chunk = chunks.get(index);
+        if (chunk != null) {
+            return chunk.getRelativeBlocks();
+        }
+        StoredChunk storedChunk = stored.get(index);
+        if (storedChunk == null) {
+            return null;
         }
-        removeExpired();
+        Map<String, List<BlockPos>> location = new HashMap<>();
         try {
-            Path path = Paths.get(directory);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
+            readSpecialBlocks(new DataInputStream(storedChunk.stream()), location);
+            return location;
+        } catch (Exception ex) { // same as when the chunk itself is corrupted
+            ex.printStackTrace();
+            return null;
+        }
+    }
 
+    /**
+     * @return Whether the chunk was updated, false if this region was evicted in the meantime, in which case it has to
+     * go to the region that replaces it instead
+     */
+    public final synchronized boolean updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+        if (evicted) {
+            return false;
+        }
+        int index = chunkX * 32 + chunkZ;
+        this.chunks.set(index, chunk);
+        this.stored.set(index, null);
+        dirty.set(index);
+        hasUnsavedChanges = true;
+        return true;
+    }
+
+    /**
+     * Writes the chunks that changed since the most recent load or save to the region file. The lock on this region
+     * isn't held while writing, so that nothing that reads from it has to wait for the disk.
+     */
+    public final void save(String directory) {
+        synchronized (fileLock) {
+            BitSet changed;
+            CachedChunk[] changedChunks = new CachedChunk[32 * 32];
+            ByteBuffer[] records = new ByteBuffer[32 * 32];
+            long[] timestamps = new long[32 * 32];
+            synchronized (this) {
+                if (!hasUnsavedChanges) {
+                    return;
+                }
+                removeExpired();
+                changed = (BitSet) dirty.clone();
+                for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                    CachedChunk chunk = chunks.get(i);
+                    StoredChunk storedChunk = stored.get(i);
+                    if (chunk != null) {
+                        changedChunks[i] = chunk;
+                        timestamps[i] = chunk.cacheTimestamp;
+                    } else if (storedChunk != null) {
+                        // only still compressed if a save failed, and the file it was read from is gone now
+                        records[i] = storedChunk.data;
+                        timestamps[i] = storedChunk.cacheTimestamp;
+                    }
+                }
+                dirty.clear();
+                hasUnsavedChanges = false;
             }
-            System.out.println("Saving region " + x + "," + z + " to disk " + path);
-            Path regionFile = getRegionFile(path, this.x, this.z);
-            if (!Files.exists(regionFile)) {
-                Files.createFile(regionFile);
-            }
-            try (
-                    FileOutputStream fileOut = new FileOutputStream(regionFile.toFile());
-                    GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 16384);
-                    DataOutputStream out = new DataOutputStream(gzipOut)
-            ) {
-                out.writeInt(CACHED_REGION_MAGIC);
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        CachedChunk chunk = this.chunks[x][z];
-                        if (chunk == null) {
-                            out.write(CHUNK_NOT_PRESENT);
-                        } else {
-                            out.write(CHUNK_PRESENT);
-                            byte[] chunkBytes = chunk.toByteArray();
-                            out.write(chunkBytes);
-                            // Messy, but fills the empty 0s that should be trailing to fill up the space.
-                            out.write(new byte[CachedChunk.SIZE_IN_BYTES - chunkBytes.length]);
-                        }
+            RegionFile file = null;
+            try {
+                for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                    if (changedChunks[i] != null) {
+                        records[i] = ByteBuffer.wrap(writeChunk(changedChunks[i]));
                     }
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            for (int i = 0; i < 256; i++) {
-                                out.writeUTF(BlockUtils.blockToString(chunks[x][z].getOverview()[i].getBlock()));
+                Path path = Paths.get(directory);
+                if (!Files.exists(path)) {
+                    Files.createDirectories(path);
+                }
+                file = getFile(path);
+                boolean replaced = file.save(changed, records, timestamps);
+                synchronized (this) {
+                    if (!replaced) {
+                        // the old file is still mapped, which stops it from being replaced on windows. once nothing
+                        // refers to the old mappings anymore, they can be unmapped
+                        for (int i = 0; i < 32 * 32; i++) {
+                            StoredChunk storedChunk = stored.get(i);
+                            if (storedChunk != null) {
+                                stored.set(i, new StoredChunk(ByteBuffer.wrap(storedChunk.bytes()), storedChunk.cacheTimestamp));
                             }
                         }
+                        file.replace();
                     }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            Map<String, List<BlockPos>> locs = chunks[x][z].getRelativeBlocks();
-                            out.writeShort(locs.entrySet().size());
-                            for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
-                                out.writeUTF(entry.getKey());
-                                out.writeShort(entry.getValue().size());
-                                for (BlockPos pos : entry.getValue()) {
-                                    out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
-                                    out.writeByte((byte) (pos.getY()));
-                                }
-                            }
+                    // the same chunks, as they are in the file now, rather than keeping the old mappings around
+                    for (int i = 0; i < 32 * 32; i++) {
+                        StoredChunk storedChunk = stored.get(i);
+                        ByteBuffer data = file.get(i);
+                        if (storedChunk != null && data != null) {
+                            stored.set(i, new StoredChunk(data, storedChunk.cacheTimestamp));
                         }
                     }
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            out.writeLong(chunks[x][z].cacheTimestamp);
-                        }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                if (file != null) {
+                    // it's unknown how much of this save made it to disk, so the next one writes everything
+                    file.clear();
+                    markMissingChunksDirty(file);
+                } else {
+                    synchronized (this) {
+                        dirty.or(changed);
+                        hasUnsavedChanges = true;
                     }
                 }
             }
-            hasUnsavedChanges = false;
-            System.out.println("Saved region successfully");
-        } catch (Exception ex) {
-            ex.printStackTrace();
         }
     }
 
-    public synchronized void load(String directory) {
-        try {
-            Path path = Paths.get(directory);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
-            }
+    private RegionFile getFile(Path directory) {
+        Path regionFile = getRegionFile(directory, this.x, this.z);
+        if (file == null || !file.getPath().equals(regionFile)) {
+            file = new RegionFile(regionFile);
+        }
+        return file;
+    }
 
-            Path regionFile = getRegionFile(path, this.x, this.z);
-            if (!Files.exists(regionFile)) {
-                return;
+    /**
+     * Marks every chunk that isn't in the region file as changed, so that the next save writes it
+     */
+    private synchronized void markMissingChunksDirty(RegionFile file) {
+        for (int i = 0; i < 32 * 32; i++) {
+            if ((chunks.get(i) != null || stored.get(i) != null) && file.get(i) == null) {
+                dirty.set(i);
+                hasUnsavedChanges = true;
             }
+        }
+    }
+
+    public void load(String directory) {
+        load(directory, true);
+    }
+
+    /**
+     * @param upgrade Whether to convert the region file right away if it's in the old format
+     */
+    private void load(String directory, boolean upgrade) {
+        synchronized (fileLock) {
+            RegionFile file = null;
+            try {
+                Path path = Paths.get(directory);
+                if (!Files.exists(path)) {
+                    Files.createDirectories(path);
+                }
 
-            System.out.println("Loading region " + x + "," + z + " from disk " + path);
-            long start = System.nanoTime() / 1000000L;
-
-            try (
-                    FileInputStream fileIn = new FileInputStream(regionFile.toFile());
-                    GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768);
-                    DataInputStream in = new DataInputStream(gzipIn)
-            ) {
-                int magic = in.readInt();
-                if (magic != CACHED_REGION_MAGIC) {
-                    // in the future, if we change the format on disk
-                    // we can keep converters for the old format
-                    // by switching on the magic value, and either loading it normally, or loading through a converter.
-                    throw new IOException("Bad magic value " + magic);
+                file = getFile(path);
+                Path regionFile = file.getPath();
+                if (!Files.exists(regionFile)) {
+                    file.clear();
+                    markMissingChunksDirty(file);
+                    return;
                 }
-                boolean[][] present = new boolean[32][32];
-                BitSet[][] bitSets = new BitSet[32][32];
-                Map<String, List<BlockPos>>[][] location = new Map[32][32];
-                IBlockState[][][] overview = new IBlockState[32][32][];
-                long[][] cacheTimestamp = new long[32][32];
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        int isChunkPresent = in.read();
-                        switch (isChunkPresent) {
-                            case CHUNK_PRESENT:
-                                byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
-                                in.readFully(bytes);
-                                bitSets[x][z] = BitSet.valueOf(bytes);
-                                location[x][z] = new HashMap<>();
-                                overview[x][z] = new IBlockState[256];
-                                present[x][z] = true;
-                                break;
-                            case CHUNK_NOT_PRESENT:
-                                break;
-                            default:
-                                throw new IOException("Malformed stream");
+
+                System.out.println("Loading region " + x + "," + z + " from disk " + path);
+                long start = System.nanoTime() / 1000000L;
+
+                if (isLegacy(regionFile)) {
+                    file.clear();
+                    CachedChunk[] legacy = loadLegacy(regionFile);
+                    synchronized (this) {
+                        for (int i = 0; i < legacy.length; i++) {
+                            if (legacy[i] != null) {
+                                this.chunks.set(i, legacy[i]);
+                                this.stored.set(i, null);
+                            }
                         }
                     }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            for (int i = 0; i < 256; i++) {
-                                overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
+                    // none of them are in the file in the current format
+                    markMissingChunksDirty(file);
+                    if (upgrade) {
+                        System.out.println("Converting region " + x + "," + z + " to the new format");
+                        save(directory);
+                    }
+                } else if (file.load() && file.getMagic() == RegionFile.PREVIOUS_MAGIC) {
+                    CachedChunk[] previous = new CachedChunk[32 * 32];
+                    for (int i = 0; i < previous.length; i++) {
+                        ByteBuffer data = file.get(i);
+                        if (data != null) {
+                            previous[i] = readPreviousChunk(new StoredChunk(data, file.getTimestamp(i)), (i >> 5) + 32 * x, (i & 31) + 32 * z);
+                        }
+                    }
+                    file.clear();
+                    synchronized (this) {
+                        for (int i = 0; i < previous.length; i++) {
+                            if (previous[i] != null) {
+                                this.chunks.set(i, previous[i]);
+                                this.stored.set(i, null);
                             }
                         }
                     }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            // 16 * 16 * 256 = 65536 so a short is enough
-                            // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
-                            //   also why would you have more than 32767 special blocks in a chunk
-                            // haha double jokes on you now it works for 65535 not just 32767
-                            int numSpecialBlockTypes = in.readShort() & 0xffff;
-                            for (int i = 0; i < numSpecialBlockTypes; i++) {
-                                String blockName = in.readUTF();
-                                BlockUtils.stringToBlockRequired(blockName);
-                                List<BlockPos> locs = new ArrayList<>();
-                                location[x][z].put(blockName, locs);
-                                int numLocations = in.readShort() & 0xffff;
-                                if (numLocations == 0) {
-                                    // an entire chunk full of air can happen in the end
-                                    numLocations = 65536;
-                                }
-                                for (int j = 0; j < numLocations; j++) {
-                                    byte xz = in.readByte();
-                                    int X = xz & 0x0f;
-                                    int Z = (xz >>> 4) & 0x0f;
-                                    int Y = in.readByte() & 0xff;
-                                    locs.add(new BlockPos(X, Y, Z));
-                                }
+                    markMissingChunksDirty(file);
+                    if (upgrade) {
+                        System.out.println("Converting region " + x + "," + z + " to the new format");
+                        save(directory);
+                    }
+                } else {
+                    synchronized (this) {
+                        for (int i = 0; i < 32 * 32; i++) {
+                            ByteBuffer data = file.get(i);
+                            if (data != null) {
+                                this.stored.set(i, new StoredChunk(data, file.getTimestamp(i)));
+                                this.chunks.set(i, null);
                             }
                         }
+                        dirty.clear();
+                        hasUnsavedChanges = false;
                     }
+                    markMissingChunksDirty(file);
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            cacheTimestamp[x][z] = in.readLong();
-                        }
+                removeExpired();
+                long end = System.nanoTime() / 1000000L;
+                System.out.println("Loaded region successfully in " + (end - start) + "ms");
+            } catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
+                ex.printStackTrace();
+                if (file != null) {
+                    // whatever is in memory has to be written over it
+                    markMissingChunksDirty(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isLegacy(Path regionFile) throws IOException {
+        try (InputStream in = Files.newInputStream(regionFile)) {
+            return in.read() == GZIP_MAGIC >> 8 && in.read() == (GZIP_MAGIC & 0xff);
+        }
+    }
+
+    /**
+     * The special blocks come first and aren't compressed, so that they can be read without decompressing the rest of
+     * the chunk, see {@link #getSpecialBlocks(int, int)}
+     */
+    private static byte[] writeChunk(CachedChunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeSpecialBlocks(new DataOutputStream(bytes), chunk.getRelativeBlocks());
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.write(chunk.toByteArray());
+            for (int i = 0; i < 256; i++) {
+                out.writeUTF(BlockUtils.blockToString(chunk.getOverview()[i].getBlock()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeSpecialBlocks(DataOutputStream out, Map<String, List<BlockPos>> locs) throws IOException {
+        out.writeShort(locs.entrySet().size());
+        for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeShort(entry.getValue().size());
+            for (BlockPos pos : entry.getValue()) {
+                out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+                out.writeByte((byte) (pos.getY()));
+            }
+        }
+    }
+
+    private static CachedChunk readChunk(StoredChunk stored, int chunkX, int chunkZ) throws IOException {
+        InputStream stream = stored.stream();
+        Map<String, List<BlockPos>> location = new HashMap<>();
+        readSpecialBlocks(new DataInputStream(stream), location);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(stream))) {
+            byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
+            in.readFully(bytes);
+            IBlockState[] overview = new IBlockState[256];
+            for (int i = 0; i < 256; i++) {
+                overview[i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
+            }
+            return new CachedChunk(chunkX, chunkZ, CachedChunk.fromByteArray(bytes), overview, location, stored.cacheTimestamp);
+        }
+    }
+
+    /**
+     * Reads a chunk as it was stored in {@link RegionFile#PREVIOUS_MAGIC} files, with the special blocks compressed
+     * along with everything else
+     */
+    private static CachedChunk readPreviousChunk(StoredChunk stored, int chunkX, int chunkZ) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(stored.stream()))) {
+            byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
+            in.readFully(bytes);
+            IBlockState[] overview = new IBlockState[256];
+            for (int i = 0; i < 256; i++) {
+                overview[i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
+            }
+            Map<String, List<BlockPos>> location = new HashMap<>();
+            readSpecialBlocks(in, location);
+            return new CachedChunk(chunkX, chunkZ, CachedChunk.fromByteArray(bytes), overview, location, stored.cacheTimestamp);
+        }
+    }
+
+    private static void readSpecialBlocks(DataInputStream in, Map<String, List<BlockPos>> location) throws IOException {
+        // 16 * 16 * 256 = 65536 so a short is enough
+        // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
+        //   also why would you have more than 32767 special blocks in a chunk
+        // haha double jokes on you now it works for 65535 not just 32767
+        int numSpecialBlockTypes = in.readShort() & 0xffff;
+        for (int i = 0; i < numSpecialBlockTypes; i++) {
+            String blockName = in.readUTF();
+            BlockUtils.stringToBlockRequired(blockName);
+            List<BlockPos> locs = new ArrayList<>();
+            location.put(blockName, locs);
+            int numLocations = in.readShort() & 0xffff;
+            if (numLocations == 0) {
+                // an entire chunk full of air can happen in the end
+                numLocations = 65536;
+            }
+            for (int j = 0; j < numLocations; j++) {
+                byte xz = in.readByte();
+                int X = xz & 0x0f;
+                int Z = (xz >>> 4) & 0x0f;
+                int Y = in.readByte() & 0xff;
+                locs.add(new BlockPos(X, Y, Z));
+            }
+        }
+    }
+
+    /**
+     * Reads a region file in the old format, the entire region as one gzip stream
+     *
+     * @return The chunks that are in it, indexed by {@code x * 32 + z}
+     */
+    private CachedChunk[] loadLegacy(Path regionFile) throws IOException {
+        try (
+                FileInputStream fileIn = new FileInputStream(regionFile.toFile());
+                GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768);
+                DataInputStream in = new DataInputStream(gzipIn)
+        ) {
+            int magic = in.readInt();
+            if (magic != LEGACY_CACHED_REGION_MAGIC) {
+                throw new IOException("Bad magic value " + magic);
+            }
+            boolean[][] present = new boolean[32][32];
+            long[][][] data = new long[32][32][];
+            Map<String, List<BlockPos>>[][] location = new Map[32][32];
+            IBlockState[][][] overview = new IBlockState[32][32][];
+            long[][] cacheTimestamp = new long[32][32];
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    int isChunkPresent = in.read();
+                    switch (isChunkPresent) {
+                        case CHUNK_PRESENT:
+                            byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
+                            in.readFully(bytes);
+                            data[x][z] = CachedChunk.fromByteArray(bytes);
+                            location[x][z] = new HashMap<>();
+                            overview[x][z] = new IBlockState[256];
+                            present[x][z] = true;
+                            break;
+                        case CHUNK_NOT_PRESENT:
+                            break;
+                        default:
+                            throw new IOException("Malformed stream");
                     }
                 }
-                // only if the entire file was uncorrupted do we actually set the chunks
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            int regionX = this.x;
-                            int regionZ = this.z;
-                            int chunkX = x + 32 * regionX;
-                            int chunkZ = z + 32 * regionZ;
-                            this.chunks[x][z] = new CachedChunk(chunkX, chunkZ, bitSets[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        for (int i = 0; i < 256; i++) {
+                            overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
                         }
                     }
                 }
             }
-            removeExpired();
-            hasUnsavedChanges = false;
-            long end = System.nanoTime() / 1000000L;
-            System.out.println("Loaded region successfully in " + (end - start) + "ms");
-        } catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
-            ex.printStackTrace();
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        readSpecialBlocks(in, location[x][z]);
+                    }
+                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        cacheTimestamp[x][z] = in.readLong();
+                    }
+                }
+            }
+            // only if the entire file was uncorrupted are any of the chunks used
+            CachedChunk[] chunks = new CachedChunk[32 * 32];
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        int regionX = this.x;
+                        int regionZ = this.z;
+                        int chunkX = x + 32 * regionX;
+                        int chunkZ = z + 32 * regionZ;
+                        chunks[x * 32 + z] = new CachedChunk(chunkX, chunkZ, data[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
+                    }
+                }
+            }
+            return chunks;
         }
     }
 
@@ -313,27 +613,101 @@ public final class CachedRegion implements ICachedRegion {
         long oldestAcceptableAge = now - expiry * 1000L;
         for (int x = 0; x < 32; x++) {
             for (int z = 0; z < 32; z++) {
-                if (this.chunks[x][z] != null && this.chunks[x][z].cacheTimestamp < oldestAcceptableAge) {
-                    System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - this.chunks[x][z].cacheTimestamp) / 1000L + " seconds ago, and max age is " + expiry);
-                    this.chunks[x][z] = null;
+                CachedChunk chunk = this.chunks.get(x * 32 + z);
+                StoredChunk storedChunk = this.stored.get(x * 32 + z);
+                long cacheTimestamp;
+                if (chunk != null) {
+                    cacheTimestamp = chunk.cacheTimestamp;
+                } else if (storedChunk != null) {
+                    cacheTimestamp = storedChunk.cacheTimestamp;
+                } else {
+                    continue;
+                }
+                if (cacheTimestamp < oldestAcceptableAge) {
+                    System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - cacheTimestamp) / 1000L + " seconds ago, and max age is " + expiry);
+                    this.chunks.set(x * 32 + z, null);
+                    this.stored.set(x * 32 + z, null);
+                    dirty.set(x * 32 + z);
+                    hasUnsavedChanges = true;
                 }
             }
         }
     }
 
     public synchronized final CachedChunk mostRecentlyModified() {
-        CachedChunk recent = null;
+        int recentX = -1;
+        int recentZ = -1;
+        long recentTimestamp = 0;
         for (int x = 0; x < 32; x++) {
             for (int z = 0; z < 32; z++) {
-                if (this.chunks[x][z] == null) {
+                CachedChunk chunk = this.chunks.get(x * 32 + z);
+                StoredChunk storedChunk = this.stored.get(x * 32 + z);
+                long cacheTimestamp;
+                if (chunk != null) {
+                    cacheTimestamp = chunk.cacheTimestamp;
+                } else if (storedChunk != null) {
+                    cacheTimestamp = storedChunk.cacheTimestamp;
+                } else {
                     continue;
                 }
-                if (recent == null || this.chunks[x][z].cacheTimestamp > recent.cacheTimestamp) {
-                    recent = this.chunks[x][z];
+                if (recentX == -1 || cacheTimestamp > recentTimestamp) {
+                    recentX = x;
+                    recentZ = z;
+                    recentTimestamp = cacheTimestamp;
                 }
             }
         }
-        return recent;
+        return recentX == -1 ? null : getChunk(recentX, recentZ);
+    }
+
+    /**
+     * @return Roughly how many bytes of memory the chunks in this region take up
+     */
+    public synchronized final long getMemoryUsage() {
+        long total = 0;
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                CachedChunk chunk = chunks.get(x * 32 + z);
+                StoredChunk storedChunk = stored.get(x * 32 + z);
+                if (chunk != null) {
+                    // the overview is 256 references to block states that are shared between chunks
+                    total += chunk.getDataSizeInBytes() + 256 * 4 + 16;
+                } else if (storedChunk != null && !storedChunk.data.isDirect()) {
+                    // a mapped chunk is in the page cache rather than on the heap, only a copy counts
+                    total += storedChunk.data.remaining();
+                }
+            }
+        }
+        return total;
+    }
+
+    public synchronized final boolean hasUnsavedChanges() {
+        return hasUnsavedChanges;
+    }
+
+    /**
+     * Marks this region as evicted from RAM, after which {@link #updateCachedChunk} doesn't change it anymore
+     *
+     * @param requireSaved Only if there are no unsaved changes
+     * @return Whether it was marked, false if it has unsaved changes that were required to be saved
+     */
+    final synchronized boolean markEvicted(boolean requireSaved) {
+        if (requireSaved && hasUnsavedChanges) {
+            return false;
+        }
+        evicted = true;
+        return true;
+    }
+
+    final void markAccessed() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * @return When this region was last looked up, in milliseconds since the epoch
+     */
+    public final long getLastAccess() {
+        return lastAccess;
     }
 
     /**
@@ -355,4 +729,54 @@ public final class CachedRegion implements ICachedRegion {
     private static Path getRegionFile(Path cacheDir, int regionX, int regionZ) {
         return Paths.get(cacheDir.toString(), "r." + regionX + "." + regionZ + ".bcr");
     }
+
+    /**
+     * A chunk as it is in the region file, compressed
+     */
+    private static final class StoredChunk {
+
+        /**
+         * Either part of the mapped region file, or a copy of it
+         */
+        private final ByteBuffer data;
+
+        private final long cacheTimestamp;
+
+        private StoredChunk(ByteBuffer data, long cacheTimestamp) {
+            this.data = data;
+            this.cacheTimestamp = cacheTimestamp;
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            return bytes;
+        }
+
+        /**
+         * @return The chunk as a stream, read straight from the mapping rather than copied out of it first
+         */
+        private InputStream stream() {
+            ByteBuffer buffer = data.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    len = Math.min(len, buffer.remaining());
+                    buffer.get(b, off, len);
+                    return len;
+                }
+            };
+        }
+    }
 }
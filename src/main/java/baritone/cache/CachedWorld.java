@@ -20,12 +20,19 @@ package baritone.cache;
 import baritone.Baritone;
 import baritone.api.BaritoneAPI;
 import baritone.api.IBaritone;
+import baritone.api.Settings;
 import baritone.api.cache.ICachedWorld;
 import baritone.api.cache.IWorldData;
+import baritone.api.utils.BlockUtils;
 import baritone.api.utils.Helper;
 import com.google.common.cache.CacheBuilder;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.block.Block;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.Chunk;
@@ -34,9 +41,17 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Brady
@@ -49,10 +64,66 @@ public final class CachedWorld implements ICachedWorld, Helper {
      */
     private static final int REGION_MAX = 30_000_000 / 512 + 1;
 
+    /**
+     * Loads regions from disk ahead of time, see {@link #prefetchRegion(int, int)}. One thread, since it's all disk
+     * I/O anyway, and a bounded queue so that prefetching never piles up.
+     */
+    private static final ThreadPoolExecutor regionLoader = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64));
+
+    static {
+        regionLoader.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * A map of all of the cached regions.
+     * <p>
+     * Never modified, it's replaced with a modified copy instead, so that it can be read without locking. Regions are
+     * added and removed far less often than they're looked up.
+     */
+    private volatile Long2ObjectMap<CachedRegion> cachedRegions = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The regions that are queued to be loaded ahead of time
+     */
+    private final LongSet prefetching = LongSets.synchronize(new LongOpenHashSet());
+
+    /**
+     * The regions that are being loaded from disk right now, so that something else that needs the same region waits
+     * for it instead of loading it a second time
+     */
+    private final Map<Long, CompletableFuture<CachedRegion>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Where the special blocks in the loaded regions are
+     */
+    private final SpecialBlockIndex specialBlocks = new SpecialBlockIndex();
+
+    /**
+     * Held while replacing {@link #cachedRegions}, never while reading it and never during disk I/O
+     */
+    private final ReentrantLock regionsLock = new ReentrantLock();
+
+    private final LongAdder regionsLockAcquired = new LongAdder();
+
+    private final LongAdder regionsLockContended = new LongAdder();
+
+    private final LongAdder regionsLockWaitNanos = new LongAdder();
+
+    private final LongAdder regionHits = new LongAdder();
+
+    private final LongAdder regionMisses = new LongAdder();
+
+    private final LongAdder regionsEvicted = new LongAdder();
+
+    /**
+     * Whether a check of {@link Settings#cachedRegionsMemoryBudget} is queued or running
      */
-    private Long2ObjectMap<CachedRegion> cachedRegions = new Long2ObjectOpenHashMap<>();
+    private final AtomicBoolean budgetCheckPending = new AtomicBoolean();
+
+    /**
+     * Chunks added to the cache since the memory budget was last checked
+     */
+    private final AtomicInteger updatesSinceBudgetCheck = new AtomicInteger();
 
     /**
      * The directory that the cached region files are saved to
@@ -60,10 +131,36 @@ public final class CachedWorld implements ICachedWorld, Helper {
     private final String directory;
 
     /**
-     * Queue of positions to pack. Refers to the toPackMap, in that every element of this queue will be a
-     * key in that map.
+     * Positions to pack, shared by all the packer threads. Refers to the toPackMap, in that every element of this queue
+     * will be a key in that map.
+     */
+    private final LinkedBlockingQueue<ChunkPos> toPackQueue;
+
+    /**
+     * Positions to pack that didn't fit in the {@link #toPackQueue}, or that were taken by one packer thread while
+     * another was still packing the same position. The packer threads move them to the queue once there's room, so
+     * whoever queues a chunk never has to wait.
+     */
+    private final Set<ChunkPos> toPackOverflow = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The positions that a packer thread is packing right now, so that one chunk is never packed by two threads at
+     * once, which could otherwise finish in the wrong order and leave an outdated version in the cache
      */
-    private final LinkedBlockingQueue<ChunkPos> toPackQueue = new LinkedBlockingQueue<>();
+    private final Set<ChunkPos> packing = ConcurrentHashMap.newKeySet();
+
+    private final int packerThreads;
+
+    private final LongAdder packed = new LongAdder();
+
+    /**
+     * How many times a chunk didn't fit in the queue
+     */
+    private final LongAdder overflowed = new LongAdder();
+
+    private long lastStatsTime = System.nanoTime();
+
+    private long lastStatsPacked;
 
     /**
      * All chunk positions pending packing. This map will be updated in-place if a new update to the chunk occurs
@@ -83,7 +180,11 @@ public final class CachedWorld implements ICachedWorld, Helper {
         this.directory = directory.toString();
         this.dimension = dimension;
         System.out.println("Cached world directory: " + directory);
-        Baritone.getExecutor().execute(new PackerThread());
+        this.toPackQueue = new LinkedBlockingQueue<>(Math.max(1, Baritone.settings().chunkPackerQueueMaxSize.value));
+        this.packerThreads = Math.max(1, Baritone.settings().chunkPackerThreads.value);
+        for (int i = 0; i < packerThreads; i++) {
+            Baritone.getExecutor().execute(new PackerThread());
+        }
         Baritone.getExecutor().execute(() -> {
             try {
                 Thread.sleep(30000);
@@ -102,11 +203,56 @@ public final class CachedWorld implements ICachedWorld, Helper {
 
     @Override
     public final void queueForPacking(Chunk chunk) {
-        if (toPackMap.put(chunk.getPos(), chunk) == null) {
-            toPackQueue.add(chunk.getPos());
+        ChunkPos pos = chunk.getPos();
+        if (toPackMap.put(pos, chunk) != null) {
+            // already queued, the packer thread will get this version instead
+            return;
+        }
+        if (toPackQueue.offer(pos)) {
+            return;
+        }
+        // the packer threads can't keep up. this is usually the game thread, so rather than waiting for room, leave it
+        // for the packer threads to queue once they've caught up. no chunk is dropped, and a chunk that changes again
+        // in the meantime is still only packed once
+        overflowed.increment();
+        toPackOverflow.add(pos);
+        // in case the packer threads emptied the queue in between, and are all waiting on it now
+        moveOverflowToQueue();
+    }
+
+    /**
+     * Queues as many of the {@link #toPackOverflow} positions as there's room for
+     */
+    private void moveOverflowToQueue() {
+        for (Iterator<ChunkPos> it = toPackOverflow.iterator(); it.hasNext() && toPackQueue.remainingCapacity() > 0; ) {
+            ChunkPos pos = it.next();
+            if (!packing.contains(pos) && toPackOverflow.remove(pos) && !toPackQueue.offer(pos)) {
+                toPackOverflow.add(pos); // filled up in between
+                return;
+            }
         }
     }
 
+    /**
+     * @return How many chunks are waiting to be packed, and how many were packed per second since the last time
+     */
+    public final synchronized String getPackerStats() {
+        long now = System.nanoTime();
+        long total = packed.sum();
+        double perSecond = (total - lastStatsPacked) / ((now - lastStatsTime) / 1e9);
+        lastStatsTime = now;
+        lastStatsPacked = total;
+        return String.format(
+                "Chunk packer: %d queued, %d waiting for room, %d packed, %.1f chunks/s on %d threads, ran out of room %d times",
+                toPackQueue.size(),
+                toPackOverflow.size(),
+                total,
+                perSecond,
+                packerThreads,
+                overflowed.sum()
+        );
+    }
+
     @Override
     public final boolean isCached(int blockX, int blockZ) {
         CachedRegion region = getRegion(blockX >> 9, blockZ >> 9);
@@ -123,6 +269,10 @@ public final class CachedWorld implements ICachedWorld, Helper {
     @Override
     public final ArrayList<BlockPos> getLocationsOf(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
         ArrayList<BlockPos> res = new ArrayList<>();
+        Block type = BlockUtils.stringToBlockNullable(block);
+        if (type == null) {
+            return res;
+        }
         int centerRegionX = centerX >> 9;
         int centerRegionZ = centerZ >> 9;
 
@@ -136,11 +286,8 @@ public final class CachedWorld implements ICachedWorld, Helper {
                     }
                     int regionX = xoff + centerRegionX;
                     int regionZ = zoff + centerRegionZ;
-                    CachedRegion region = getOrCreateRegion(regionX, regionZ);
-                    if (region != null) {
-                        // TODO: 100% verify if this or addAll is faster.
-                        res.addAll(region.getLocationsOf(block));
-                    }
+                    specialBlocks.addRegion(regionX, regionZ, getOrCreateRegion(regionX, regionZ));
+                    specialBlocks.addLocationsOf(type, regionX, regionZ, res);
                 }
             }
             if (res.size() >= maximum) {
@@ -151,9 +298,41 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return res;
     }
 
+    @Override
+    public final ArrayList<BlockPos> getNearestLocationsOf(Block block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
+        int centerRegionX = centerX >> 9;
+        int centerRegionZ = centerZ >> 9;
+        int radius = (int) Math.sqrt(maxRegionDistanceSq);
+        for (int xoff = -radius; xoff <= radius; xoff++) {
+            for (int zoff = -radius; zoff <= radius; zoff++) {
+                if (xoff * xoff + zoff * zoff <= maxRegionDistanceSq) {
+                    int regionX = xoff + centerRegionX;
+                    int regionZ = zoff + centerRegionZ;
+                    specialBlocks.addRegion(regionX, regionZ, getOrCreateRegion(regionX, regionZ));
+                }
+            }
+        }
+        return specialBlocks.nearest(block, maximum, centerX, centerZ, maxRegionDistanceSq);
+    }
+
     private void updateCachedChunk(CachedChunk chunk) {
-        CachedRegion region = getOrCreateRegion(chunk.x >> 5, chunk.z >> 5);
-        region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk);
+        int regionX = chunk.x >> 5;
+        int regionZ = chunk.z >> 5;
+        CachedRegion region = getOrCreateRegion(regionX, regionZ);
+        while (!region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk)) {
+            // it was evicted after we got it, so wait for the eviction to finish before loading it back from disk
+            CompletableFuture<CachedRegion> eviction = loading.get(getRegionID(regionX, regionZ));
+            if (eviction != null) {
+                eviction.join();
+            }
+            region = getOrCreateRegion(regionX, regionZ);
+        }
+        specialBlocks.updateChunk(regionX, regionZ, chunk.x & 31, chunk.z & 31, chunk.getRelativeBlocks());
+        if (updatesSinceBudgetCheck.incrementAndGet() >= 256) {
+            // regions grow as chunks are added to them, not just when they're loaded
+            updatesSinceBudgetCheck.set(0);
+            scheduleBudgetCheck();
+        }
     }
 
     @Override
@@ -179,14 +358,65 @@ public final class CachedWorld implements ICachedWorld, Helper {
         prune();
     }
 
+    /**
+     * @return How many regions are in RAM and how much memory they take up, and how often a lookup found its region
+     */
+    public final String getCacheStats() {
+        long bytes = 0;
+        List<CachedRegion> regions = allRegions();
+        for (CachedRegion region : regions) {
+            bytes += region.getMemoryUsage();
+        }
+        long hits = regionHits.sum();
+        long misses = regionMisses.sum();
+        long budget = Baritone.settings().cachedRegionsMemoryBudget.value;
+        return String.format(
+                "Region cache: %d regions, %.1fMiB of %s, %d hits, %d misses (%.1f%% hit rate), %d regions evicted",
+                regions.size(),
+                bytes / 1048576.0,
+                budget > 0 ? String.format("%.1fMiB", budget / 1048576.0) : "unlimited",
+                hits,
+                misses,
+                hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses),
+                regionsEvicted.sum()
+        );
+    }
+
+    /**
+     * @return How often changing the set of loaded regions had to wait for another thread doing the same, and how long
+     */
+    public final String getContentionStats() {
+        long acquired = regionsLockAcquired.sum();
+        long contended = regionsLockContended.sum();
+        return String.format(
+                "Region map: %d regions, %d of %d changes waited for the lock (%.1f%%), %.1fms waited in total",
+                cachedRegions.size(),
+                contended,
+                acquired,
+                acquired == 0 ? 0 : 100.0 * contended / acquired,
+                regionsLockWaitNanos.sum() / 1e6
+        );
+    }
+
+    private void lockRegions() {
+        if (!regionsLock.tryLock()) {
+            long start = System.nanoTime();
+            regionsLock.lock();
+            regionsLockContended.increment();
+            regionsLockWaitNanos.add(System.nanoTime() - start);
+        }
+        regionsLockAcquired.increment();
+    }
+
     /**
      * Delete regions that are too far from the player
      */
-    private synchronized void prune() {
+    private void prune() {
         if (!Baritone.settings().pruneRegionsFromRAM.value) {
             return;
         }
         BlockPos pruneCenter = guessPosition();
+        LongSet far = new LongOpenHashSet();
         for (CachedRegion region : allRegions()) {
             if (region == null) {
                 continue;
@@ -198,11 +428,139 @@ public final class CachedWorld implements ICachedWorld, Helper {
                 if (!Baritone.settings().censorCoordinates.value) {
                     logDebug("Deleting cached region " + region.getX() + "," + region.getZ() + " from ram");
                 }
-                cachedRegions.remove(getRegionID(region.getX(), region.getZ()));
+                far.add(getRegionID(region.getX(), region.getZ()));
+            }
+        }
+        if (far.isEmpty()) {
+            return;
+        }
+        removeRegions(far);
+    }
+
+    private void removeRegions(LongSet ids) {
+        List<CachedRegion> removedRegions = new ArrayList<>();
+        lockRegions();
+        try {
+            Long2ObjectMap<CachedRegion> removed = new Long2ObjectOpenHashMap<>(cachedRegions);
+            for (LongIterator it = ids.iterator(); it.hasNext(); ) {
+                CachedRegion region = removed.remove(it.nextLong());
+                if (region != null) {
+                    removedRegions.add(region);
+                }
+            }
+            cachedRegions = removed;
+        } finally {
+            regionsLock.unlock();
+        }
+        for (CachedRegion region : removedRegions) {
+            specialBlocks.removeRegion(region.getX(), region.getZ());
+        }
+    }
+
+    /**
+     * Checks the memory budget in the background, since evicting a region means saving it to disk first
+     */
+    private void scheduleBudgetCheck() {
+        if (Baritone.settings().cachedRegionsMemoryBudget.value <= 0 || !budgetCheckPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            regionLoader.execute(() -> {
+                try {
+                    enforceMemoryBudget();
+                } finally {
+                    budgetCheckPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // the next region or chunk that's added will try again
+            budgetCheckPending.set(false);
+        }
+    }
+
+    /**
+     * While the cached regions take up more memory than {@link Settings#cachedRegionsMemoryBudget}, evict the one that
+     * was looked up the longest ago, weighted by how far it is from the player, since a region that's far away is
+     * less likely to be needed again soon even if it was used recently. The regions right around the player are never
+     * evicted.
+     */
+    private void enforceMemoryBudget() {
+        long budget = Baritone.settings().cachedRegionsMemoryBudget.value;
+        if (budget <= 0) {
+            return;
+        }
+        List<CachedRegion> regions = allRegions();
+        Map<CachedRegion, Long> usage = new IdentityHashMap<>();
+        long total = 0;
+        for (CachedRegion region : regions) {
+            long bytes = region.getMemoryUsage();
+            usage.put(region, bytes);
+            total += bytes;
+        }
+        if (total <= budget) {
+            return;
+        }
+        BlockPos center = guessPosition();
+        int centerX = center.getX() >> 9;
+        int centerZ = center.getZ() >> 9;
+        long now = System.currentTimeMillis();
+        Map<CachedRegion, Double> score = new IdentityHashMap<>();
+        for (CachedRegion region : regions) {
+            double distance = Math.sqrt(Math.pow(region.getX() - centerX, 2) + Math.pow(region.getZ() - centerZ, 2));
+            // a second of idle time is the minimum so that distance still counts for regions that are in use
+            score.put(region, Math.max(now - region.getLastAccess(), 1000L) * (1 + distance));
+        }
+        regions.sort(Comparator.comparingDouble(score::get).reversed());
+        for (CachedRegion region : regions) {
+            if (total <= budget) {
+                break;
+            }
+            if (Math.abs(region.getX() - centerX) <= 1 && Math.abs(region.getZ() - centerZ) <= 1) {
+                continue;
+            }
+            if (evict(region)) {
+                total -= usage.get(region);
             }
         }
     }
 
+    /**
+     * Removes the region from RAM, saving it first if it has changes that aren't on disk yet
+     *
+     * @return Whether the region was removed
+     */
+    private boolean evict(CachedRegion region) {
+        long id = getRegionID(region.getX(), region.getZ());
+        CompletableFuture<CachedRegion> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(id, future) != null) {
+            // being loaded right now, so it's about to be used
+            return false;
+        }
+        try {
+            // anything that needs this region while it's being saved waits on the future, and then loads it from disk
+            // once it's saved, rather than loading the old version of it
+            removeRegions(LongSets.singleton(id));
+            boolean chunkCaching = Baritone.settings().chunkCaching.value;
+            if (chunkCaching) {
+                region.save(this.directory);
+            }
+            // something that got the region before it was removed might have changed it since it was saved
+            if (!region.markEvicted(chunkCaching)) {
+                // couldn't be saved, or changed again, keep it rather than losing it
+                addRegion(id, region);
+                return false;
+            }
+            if (!Baritone.settings().censorCoordinates.value) {
+                logDebug("Evicted cached region " + region.getX() + "," + region.getZ() + " from ram");
+            }
+            regionsEvicted.increment();
+            return true;
+        } finally {
+            loading.remove(id);
+            future.complete(null);
+        }
+    }
+
     /**
      * If we are still in this world and dimension, return player feet, otherwise return most recently modified chunk
      */
@@ -232,7 +590,7 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return new BlockPos((mostRecentlyModified.x << 4) + 8, 0, (mostRecentlyModified.z << 4) + 8);
     }
 
-    private synchronized List<CachedRegion> allRegions() {
+    private List<CachedRegion> allRegions() {
         return new ArrayList<>(this.cachedRegions.values());
     }
 
@@ -249,8 +607,15 @@ public final class CachedWorld implements ICachedWorld, Helper {
     }
 
     @Override
-    public final synchronized CachedRegion getRegion(int regionX, int regionZ) {
-        return cachedRegions.get(getRegionID(regionX, regionZ));
+    public final CachedRegion getRegion(int regionX, int regionZ) {
+        CachedRegion region = cachedRegions.get(getRegionID(regionX, regionZ));
+        if (region != null) {
+            region.markAccessed();
+            regionHits.increment();
+        } else {
+            regionMisses.increment();
+        }
+        return region;
     }
 
     /**
@@ -261,18 +626,86 @@ public final class CachedWorld implements ICachedWorld, Helper {
      * @param regionZ The region Z coordinate
      * @return The region located at the specified coordinates
      */
-    private synchronized CachedRegion getOrCreateRegion(int regionX, int regionZ) {
-        return cachedRegions.computeIfAbsent(getRegionID(regionX, regionZ), id -> {
-            CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
-            newRegion.load(this.directory);
-            return newRegion;
-        });
+    private CachedRegion getOrCreateRegion(int regionX, int regionZ) {
+        long id = getRegionID(regionX, regionZ);
+        while (true) {
+            CachedRegion region = cachedRegions.get(id);
+            if (region != null) {
+                region.markAccessed();
+                return region;
+            }
+            CompletableFuture<CachedRegion> future = new CompletableFuture<>();
+            CompletableFuture<CachedRegion> inProgress = loading.putIfAbsent(id, future);
+            if (inProgress != null) {
+                region = inProgress.join();
+                if (region != null) {
+                    return region;
+                }
+                continue; // it was being evicted, and is saved now
+            }
+            try {
+                region = cachedRegions.get(id);
+                if (region == null) {
+                    // nobody waits on the lock for the disk, only those who need this very region wait on the future
+                    region = new CachedRegion(regionX, regionZ, dimension);
+                    region.load(this.directory);
+                    addRegion(id, region);
+                    scheduleBudgetCheck();
+                }
+                future.complete(region);
+                return region;
+            } catch (Throwable th) {
+                future.completeExceptionally(th);
+                throw th;
+            } finally {
+                loading.remove(id);
+            }
+        }
+    }
+
+    private void addRegion(long id, CachedRegion region) {
+        lockRegions();
+        try {
+            Long2ObjectMap<CachedRegion> added = new Long2ObjectOpenHashMap<>(cachedRegions);
+            added.put(id, region);
+            cachedRegions = added;
+        } finally {
+            regionsLock.unlock();
+        }
     }
 
     public void tryLoadFromDisk(int regionX, int regionZ) {
         getOrCreateRegion(regionX, regionZ);
     }
 
+    /**
+     * Loads the specified region from disk in the background, if it isn't loaded already. Does nothing if too many
+     * regions are queued already.
+     *
+     * @param regionX The region X coordinate
+     * @param regionZ The region Z coordinate
+     */
+    public void prefetchRegion(int regionX, int regionZ) {
+        if (!isRegionInWorld(regionX, regionZ)) {
+            return;
+        }
+        long id = getRegionID(regionX, regionZ);
+        if (cachedRegions.containsKey(id) || !prefetching.add(id)) {
+            return;
+        }
+        try {
+            regionLoader.execute(() -> {
+                try {
+                    getOrCreateRegion(regionX, regionZ);
+                } finally {
+                    prefetching.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            prefetching.remove(id);
+        }
+    }
+
     /**
      * Returns the region ID based on the region coordinates. 0 will be
      * returned if the specified region coordinates are out of bounds.
@@ -305,14 +738,30 @@ public final class CachedWorld implements ICachedWorld, Helper {
         public void run() {
             while (true) {
                 try {
+                    // the packer threads pull from the overflow at the pace they actually pack at
+                    moveOverflowToQueue();
                     ChunkPos pos = toPackQueue.take();
-                    Chunk chunk = toPackMap.remove(pos);
-                    if (toPackQueue.size() > Baritone.settings().chunkPackerQueueMaxSize.value) {
+                    if (!packing.add(pos)) {
+                        // another thread is still packing an older version, this one has to wait until it's done
+                        toPackOverflow.add(pos);
+                        if (!packing.contains(pos)) {
+                            moveOverflowToQueue(); // it finished in between, and might not have seen this
+                        }
                         continue;
                     }
-                    CachedChunk cached = ChunkPacker.pack(chunk);
-                    CachedWorld.this.updateCachedChunk(cached);
-                    //System.out.println("Processed chunk at " + chunk.x + "," + chunk.z);
+                    try {
+                        Chunk chunk = toPackMap.remove(pos);
+                        if (chunk == null) {
+                            // the soft reference was cleared, nothing to pack
+                            continue;
+                        }
+                        CachedChunk cached = ChunkPacker.pack(chunk);
+                        CachedWorld.this.updateCachedChunk(cached);
+                        packed.increment();
+                        //System.out.println("Processed chunk at " + chunk.x + "," + chunk.z);
+                    } finally {
+                        packing.remove(pos);
+                    }
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                     break;
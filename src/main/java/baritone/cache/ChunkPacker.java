@@ -19,10 +19,14 @@ package baritone.cache;
 
 import baritone.api.utils.BlockUtils;
 import baritone.pathing.movement.MovementHelper;
+import baritone.utils.accessor.IBitArray;
+import baritone.utils.accessor.IBlockStateContainer;
 import baritone.utils.pathing.PathingBlockType;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.block.*;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
+import net.minecraft.util.BitArray;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.BlockStateContainer;
 import net.minecraft.world.chunk.Chunk;
@@ -38,13 +42,30 @@ public final class ChunkPacker {
 
     private ChunkPacker() {}
 
+    /**
+     * Set in a palette entry's classification once it has been classified
+     */
+    private static final int CLASSIFIED = 1 << 2;
+
+    /**
+     * Set in a palette entry's classification if it's one of {@link CachedChunk#BLOCKS_TO_KEEP_TRACK_OF}
+     */
+    private static final int SPECIAL = 1 << 3;
+
+    /**
+     * Set in a palette entry's classification if the type of each block also depends on the blocks around it
+     */
+    private static final int NEEDS_NEIGHBORS = 1 << 4;
+
     public static CachedChunk pack(Chunk chunk) {
         //long start = System.nanoTime() / 1000000L;
 
         Map<String, List<BlockPos>> specialBlocks = new HashMap<>();
-        BitSet bitSet = new BitSet(CachedChunk.SIZE);
+        // same layout as the cached chunk data, 2 bits for every block in the order of CachedChunk.getPositionIndex
+        long[] words = new long[CachedChunk.SIZE / 64];
         try {
             ExtendedBlockStorage[] chunkInternalStorageArray = chunk.getBlockStorageArray();
+            IntArrayList needsNeighbors = new IntArrayList();
             for (int y0 = 0; y0 < 16; y0++) {
                 ExtendedBlockStorage extendedblockstorage = chunkInternalStorageArray[y0];
                 if (extendedblockstorage == null) {
@@ -59,61 +80,158 @@ public final class ChunkPacker {
                     continue;
                 }
                 BlockStateContainer bsc = extendedblockstorage.getData();
-                int yReal = y0 << 4;
-                // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
-                // for better cache locality, iterate in that order
-                for (int y1 = 0; y1 < 16; y1++) {
-                    int y = y1 | yReal;
-                    for (int z = 0; z < 16; z++) {
-                        for (int x = 0; x < 16; x++) {
-                            int index = CachedChunk.getPositionIndex(x, y, z);
-                            IBlockState state = bsc.get(x, y1, z);
-                            boolean[] bits = getPathingBlockType(state, chunk, x, y, z).getBits();
-                            bitSet.set(index, bits[0]);
-                            bitSet.set(index + 1, bits[1]);
-                            Block block = state.getBlock();
-                            if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
-                                String name = BlockUtils.blockToString(block);
-                                specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y, z));
-                            }
-                        }
-                    }
+                if (((IBlockStateContainer) bsc).getStorage() == null) {
+                    packSection(bsc, y0, chunk, words, specialBlocks);
+                } else {
+                    packSectionFromPalette((IBlockStateContainer) bsc, y0, words, specialBlocks, needsNeighbors);
                 }
             }
+            // still water is only water if it's not next to flowing water, so those have to look at their neighbors
+            for (int i = 0; i < needsNeighbors.size(); i++) {
+                int block = needsNeighbors.getInt(i);
+                int x = block & 15;
+                int z = block >> 4 & 15;
+                int y = block >> 8;
+                set(words, block, getPathingBlockType(chunk.getBlockState(x, y, z), chunk, x, y, z));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
         //long end = System.nanoTime() / 1000000L;
         //System.out.println("Chunk packing took " + (end - start) + "ms for " + chunk.x + "," + chunk.z);
         IBlockState[] blocks = new IBlockState[256];
-
-        // @formatter:off
+        int[] heightMap = CachedChunk.calculateHeightMap(words);
         for (int z = 0; z < 16; z++) {
-            https://www.ibm.com/developerworks/library/j-perry-writing-good-java-code/index.html
             for (int x = 0; x < 16; x++) {
-                for (int y = 255; y >= 0; y--) {
-                    int index = CachedChunk.getPositionIndex(x, y, z);
-                    if (bitSet.get(index) || bitSet.get(index + 1)) {
-                        blocks[z << 4 | x] = chunk.getBlockState(x, y, z);
-                        continue https;
+                int y = heightMap[z << 4 | x];
+                int index = CachedChunk.getPositionIndex(x, y, z);
+                if ((words[index >> 6] >>> (index & 63) & 3) != 0) {
+                    blocks[z << 4 | x] = chunk.getBlockState(x, y, z);
+                } else {
+                    // the entire column is air
+                    blocks[z << 4 | x] = Blocks.AIR.getDefaultState();
+                }
+            }
+        }
+        return new CachedChunk(chunk.x, chunk.z, words, blocks, specialBlocks, System.currentTimeMillis());
+    }
+
+    /**
+     * Packs a section by classifying each entry of its palette once, then going through the palette indices of the
+     * blocks straight from the backing array
+     * <p>
+     * The order of blocks in a section (y, z, x) is the same as in the packed chunk, so the 2-bit types are written a
+     * whole word at a time.
+     *
+     * @param needsNeighbors Where the blocks that have to look at their neighbors are added to, see
+     *                       {@link #NEEDS_NEIGHBORS}, as y << 8 | z << 4 | x
+     */
+    private static void packSectionFromPalette(IBlockStateContainer bsc, int y0, long[] words, Map<String, List<BlockPos>> specialBlocks, IntArrayList needsNeighbors) {
+        BitArray array = bsc.getStorage();
+        long[] longArray = array.getBackingLongArray();
+        int bitsPerEntry = ((IBitArray) array).getBitsPerEntry();
+        long maxEntryValue = ((IBitArray) array).getMaxEntryValue();
+        // classified lazily, with the global palette most possible entries don't appear in any one section
+        int[] classification = new int[(int) maxEntryValue + 1];
+        int yReal = y0 << 4;
+        int word = (yReal << 8) * 2 / 64;
+        long packed = 0;
+        for (int idx = 0, kl = bitsPerEntry - 1; idx < 4096; idx++, kl += bitsPerEntry) {
+            final int i = idx * bitsPerEntry;
+            final int j = i >> 6;
+            final int l = i & 63;
+            final int k = kl >> 6;
+            final long jl = longArray[j] >>> l;
+            int entry = j == k ? (int) (jl & maxEntryValue) : (int) ((jl | longArray[k] << (64 - l)) & maxEntryValue);
+            int type = classification[entry];
+            if (type == 0) {
+                IBlockState state = bsc.getAtPalette(entry);
+                type = classify(state == null ? Blocks.AIR.getDefaultState() : state);
+                classification[entry] = type;
+            }
+            if ((type & (SPECIAL | NEEDS_NEIGHBORS)) != 0) {
+                int x = idx & 15;
+                int z = idx >> 4 & 15;
+                int y = yReal | idx >> 8;
+                if ((type & SPECIAL) != 0) {
+                    IBlockState state = bsc.getAtPalette(entry);
+                    String name = BlockUtils.blockToString(state.getBlock());
+                    specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y, z));
+                }
+                if ((type & NEEDS_NEIGHBORS) != 0) {
+                    needsNeighbors.add(y << 8 | z << 4 | x);
+                }
+            }
+            packed |= (long) (type & 3) << ((idx & 31) << 1);
+            if ((idx & 31) == 31) {
+                words[word++] = packed;
+                packed = 0;
+            }
+        }
+    }
+
+    /**
+     * Packs a section one block at a time, for when its palette can't be read directly
+     */
+    private static void packSection(BlockStateContainer bsc, int y0, Chunk chunk, long[] words, Map<String, List<BlockPos>> specialBlocks) {
+        int yReal = y0 << 4;
+        // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
+        // for better cache locality, iterate in that order
+        for (int y1 = 0; y1 < 16; y1++) {
+            int y = y1 | yReal;
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    IBlockState state = bsc.get(x, y1, z);
+                    set(words, y << 8 | z << 4 | x, getPathingBlockType(state, chunk, x, y, z));
+                    Block block = state.getBlock();
+                    if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+                        String name = BlockUtils.blockToString(block);
+                        specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y, z));
                     }
                 }
-                blocks[z << 4 | x] = Blocks.AIR.getDefaultState();
             }
         }
-        // @formatter:on
-        return new CachedChunk(chunk.x, chunk.z, bitSet, blocks, specialBlocks, System.currentTimeMillis());
     }
 
+    /**
+     * @param block y << 8 | z << 4 | x
+     */
+    private static void set(long[] words, int block, PathingBlockType type) {
+        int index = block << 1; // same as CachedChunk.getPositionIndex
+        words[index >> 6] = words[index >> 6] & ~(3L << (index & 63)) | (long) packedBits(type) << (index & 63);
+    }
 
-    private static PathingBlockType getPathingBlockType(IBlockState state, Chunk chunk, int x, int y, int z) {
+    /**
+     * @return The 2 bits of the type as they're laid out in the cached chunk data, first bit lowest
+     */
+    private static int packedBits(PathingBlockType type) {
+        boolean[] bits = type.getBits();
+        return (bits[0] ? 1 : 0) | (bits[1] ? 2 : 0);
+    }
+
+    /**
+     * Everything about a block state that doesn't depend on where it is: its 2 bits as laid out in the cached chunk data
+     * for the type it has regardless of its neighbors, and the flags above
+     */
+    private static int classify(IBlockState state) {
+        int type = packedBits(getPathingBlockType(state)) | CLASSIFIED;
+        if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(state.getBlock())) {
+            type |= SPECIAL;
+        }
+        if (needsNeighbors(state)) {
+            type |= NEEDS_NEIGHBORS;
+        }
+        return type;
+    }
+
+    private static boolean needsNeighbors(IBlockState state) {
         Block block = state.getBlock();
-        if (block == Blocks.WATER || block == Blocks.FLOWING_WATER) {
-            // only water source blocks are plausibly usable, flowing water should be avoid
-            // FLOWING_WATER is a waterfall, it doesn't really matter and caching it as AVOID just makes it look wrong
-            if (MovementHelper.possiblyFlowing(state)) {
-                return PathingBlockType.AVOID;
-            }
+        return (block == Blocks.WATER || block == Blocks.FLOWING_WATER) && !MovementHelper.possiblyFlowing(state);
+    }
+
+    private static PathingBlockType getPathingBlockType(IBlockState state, Chunk chunk, int x, int y, int z) {
+        if (needsNeighbors(state)) {
+            // only water source blocks are plausibly usable, and not if they're next to flowing water
             if (
                     (x != 15 && MovementHelper.possiblyFlowing(chunk.getBlockState(x + 1, y, z)))
                             || (x != 0 && MovementHelper.possiblyFlowing(chunk.getBlockState(x - 1, y, z)))
@@ -130,6 +248,22 @@ public final class ChunkPacker {
             }
             return PathingBlockType.WATER;
         }
+        return getPathingBlockType(state);
+    }
+
+    /**
+     * @return The type of the block state, or the type water would have if it weren't next to anything
+     */
+    private static PathingBlockType getPathingBlockType(IBlockState state) {
+        Block block = state.getBlock();
+        if (block == Blocks.WATER || block == Blocks.FLOWING_WATER) {
+            // only water source blocks are plausibly usable, flowing water should be avoid
+            // FLOWING_WATER is a waterfall, it doesn't really matter and caching it as AVOID just makes it look wrong
+            if (MovementHelper.possiblyFlowing(state)) {
+                return PathingBlockType.AVOID;
+            }
+            return PathingBlockType.WATER;
+        }
 
         if (MovementHelper.avoidWalkingInto(block) || MovementHelper.isBottomSlab(state)) {
             return PathingBlockType.AVOID;
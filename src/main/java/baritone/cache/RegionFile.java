@@ -0,0 +1,466 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.cache;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A region file in the current format, with each chunk compressed on its own. This only knows chunks as the bytes
+ * they're stored as, what's in them is up to {@link CachedRegion}.
+ * <p>
+ * The file is mapped into memory and chunks are handed out as slices of that mapping, so a chunk is only read from disk
+ * once it's needed, and never takes up heap until it's decompressed. Every save maps the file again, and the slices of
+ * the earlier mappings stay valid for as long as anything refers to them.
+ * <p>
+ * Not thread safe, {@link CachedRegion} only ever uses it from one thread at a time.
+ */
+final class RegionFile {
+
+    /**
+     * Magic value to detect invalid cache files, or incompatible cache files saved in an old version of Baritone
+     * <p>
+     * A region file starts with this, followed by a table with an entry for each chunk (see {@link #TABLE_ENTRY_SIZE}),
+     * followed by the individually compressed chunks that are present. That way one chunk can be read without reading
+     * the entire file.
+     * <p>
+     * It also means that saving a changed chunk only needs that chunk appended to the file and its table entry
+     * updated. The old copy of the chunk is left where it was, until there's more of that than of chunks that are
+     * still in use, then the whole file is rewritten without it.
+     */
+    static final int MAGIC = 1366470209;
+
+    /**
+     * The same layout, from before the special blocks were stored uncompressed in front of each chunk. Such files can
+     * be read, but aren't appended to, the next save rewrites them.
+     */
+    static final int PREVIOUS_MAGIC = 1650946608;
+
+    /**
+     * Offset of the chunk in the file (0 if it isn't present), length of the compressed chunk, and the cache timestamp
+     */
+    static final int TABLE_ENTRY_SIZE = 4 + 4 + 8;
+
+    static final int HEADER_SIZE = 4 + 32 * 32 * TABLE_ENTRY_SIZE;
+
+    private final Path path;
+
+    /**
+     * The entire file as of the most recent load or save, null if it hasn't been read or written
+     */
+    private MappedByteBuffer mapping;
+
+    /**
+     * Earlier mappings of the file, which are unmapped by the garbage collector once nothing refers to them anymore,
+     * or by {@link #replace()} if they're in the way
+     */
+    private final List<WeakReference<MappedByteBuffer>> retired = new ArrayList<>();
+
+    /**
+     * Where each chunk is in the file, indexed by {@code x * 32 + z}, with a length of 0 if it isn't in there
+     */
+    private final int[] offsets = new int[32 * 32];
+
+    private final int[] lengths = new int[32 * 32];
+
+    private final long[] timestamps = new long[32 * 32];
+
+    /**
+     * The size of the file as of the most recent load or save, or -1 if it isn't in the current format, in which case
+     * the next save has to write the entire file
+     */
+    private long size = -1;
+
+    /**
+     * The magic value of the file as of the most recent load or save, 0 if there's none
+     */
+    private int magic;
+
+    /**
+     * Set when the file was rewritten, but the new one couldn't take the place of the old one yet, see
+     * {@link #replace()}
+     */
+    private boolean replacePending;
+
+    RegionFile(Path path) {
+        this.path = path;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return {@link #MAGIC} or {@link #PREVIOUS_MAGIC} depending on which format the file is in, 0 if it hasn't been
+     * read or written
+     */
+    int getMagic() {
+        return magic;
+    }
+
+    /**
+     * Maps the file and reads its chunk table. Whatever was read before is forgotten, even if this fails.
+     *
+     * @return Whether there is a file
+     * @throws IOException If it couldn't be read, or isn't in the current or previous format
+     */
+    boolean load() throws IOException {
+        clear();
+        if (!Files.exists(path)) {
+            return false;
+        }
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.limit() < HEADER_SIZE) {
+            throw new IOException("Truncated region file");
+        }
+        int magic = file.getInt(0);
+        if (magic != MAGIC && magic != PREVIOUS_MAGIC) {
+            throw new IOException("Bad magic value " + magic);
+        }
+        int[] offsets = new int[32 * 32];
+        int[] lengths = new int[32 * 32];
+        long[] timestamps = new long[32 * 32];
+        for (int i = 0; i < 32 * 32; i++) {
+            int entry = 4 + i * TABLE_ENTRY_SIZE;
+            int offset = file.getInt(entry);
+            int length = file.getInt(entry + 4);
+            if (offset == 0) {
+                continue;
+            }
+            if (offset < HEADER_SIZE || length <= 0 || offset > file.limit() - length) {
+                throw new IOException("Malformed chunk table");
+            }
+            offsets[i] = offset;
+            lengths[i] = length;
+            timestamps[i] = file.getLong(entry + 8);
+        }
+        // only if the entire table was uncorrupted is it actually used
+        System.arraycopy(offsets, 0, this.offsets, 0, offsets.length);
+        System.arraycopy(lengths, 0, this.lengths, 0, lengths.length);
+        System.arraycopy(timestamps, 0, this.timestamps, 0, timestamps.length);
+        setMapping(file);
+        this.magic = magic;
+        // the previous format is never appended to
+        size = magic == MAGIC ? file.limit() : -1;
+        return true;
+    }
+
+    /**
+     * Forgets what's in the file, so that the next save writes it from scratch
+     */
+    void clear() {
+        Arrays.fill(offsets, 0);
+        Arrays.fill(lengths, 0);
+        Arrays.fill(timestamps, 0);
+        setMapping(null);
+        size = -1;
+        magic = 0;
+        replacePending = false;
+    }
+
+    /**
+     * @param index The chunk, {@code x * 32 + z}
+     * @return The chunk as it's stored, a slice of the mapped file, or null if it isn't in the file
+     */
+    ByteBuffer get(int index) {
+        if (lengths[index] == 0 || mapping == null || replacePending) {
+            return null;
+        }
+        ByteBuffer chunk = mapping.duplicate();
+        chunk.position(offsets[index]);
+        chunk.limit(offsets[index] + lengths[index]);
+        return chunk.slice();
+    }
+
+    long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Saves the chunks that changed since the most recent load or save, either by appending them to the file, or by
+     * writing a new file and replacing the old one with it. Every chunk that isn't in the file already has to be one of
+     * the changed ones.
+     *
+     * @param changed    Which chunks changed, by {@code x * 32 + z}
+     * @param records    The stored form of each changed chunk, null if it was removed
+     * @param timestamps The cache timestamp of each changed chunk
+     * @return Whether it was saved. False if a new file was written, but the old one couldn't be replaced with it
+     * because it's still mapped (on Windows), in which case {@link #replace()} has to be called once nothing refers to
+     * slices of the old mappings anymore.
+     */
+    boolean save(BitSet changed, ByteBuffer[] records, long[] timestamps) throws IOException {
+        if (append(changed, records, timestamps)) {
+            return true;
+        }
+        return rewrite(changed, records, timestamps);
+    }
+
+    private boolean append(BitSet changed, ByteBuffer[] records, long[] timestamps) throws IOException {
+        if (size < 0 || replacePending || !Files.exists(path) || Files.size(path) != size) {
+            // not written by us, or not in the current format
+            return false;
+        }
+        long live = 0;
+        for (int length : lengths) {
+            live += length;
+        }
+        long appended = 0;
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            live -= lengths[i];
+            if (records[i] != null) {
+                live += records[i].remaining();
+                appended += records[i].remaining();
+            }
+        }
+        long newSize = size + appended;
+        if (newSize - HEADER_SIZE - live > live || newSize > Integer.MAX_VALUE) {
+            // more of the file would be old copies of chunks than chunks that are still in use, time to compact it
+            return false;
+        }
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = size;
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                if (records[i] != null) {
+                    writeFully(channel, records[i].duplicate(), offset);
+                    offset += records[i].remaining();
+                }
+            }
+            // the chunks have to be on disk before the table points at them, otherwise a crash in between would leave
+            // the table pointing at garbage. the other way around, the old copies are still there to be pointed at
+            channel.force(false);
+            offset = size;
+            ByteBuffer entry = ByteBuffer.allocate(TABLE_ENTRY_SIZE);
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                entry.clear();
+                if (records[i] != null) {
+                    entry.putInt((int) offset);
+                    entry.putInt(records[i].remaining());
+                    entry.putLong(timestamps[i]);
+                    offsets[i] = (int) offset;
+                    lengths[i] = records[i].remaining();
+                    this.timestamps[i] = timestamps[i];
+                    offset += records[i].remaining();
+                } else {
+                    entry.putInt(0);
+                    entry.putInt(0);
+                    entry.putLong(0);
+                    offsets[i] = 0;
+                    lengths[i] = 0;
+                    this.timestamps[i] = 0;
+                }
+                entry.flip();
+                writeFully(channel, entry, 4 + i * TABLE_ENTRY_SIZE);
+            }
+            channel.force(false);
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, newSize);
+        }
+        setMapping(file);
+        size = newSize;
+        return true;
+    }
+
+    /**
+     * Writes the entire file, with only the current copy of each chunk. The chunks that didn't change are copied
+     * straight from the old mapping.
+     */
+    private boolean rewrite(BitSet changed, ByteBuffer[] records, long[] timestamps) throws IOException {
+        ByteBuffer[] data = new ByteBuffer[32 * 32];
+        long[] newTimestamps = new long[32 * 32];
+        for (int i = 0; i < data.length; i++) {
+            if (changed.get(i)) {
+                data[i] = records[i];
+                newTimestamps[i] = timestamps[i];
+            } else {
+                data[i] = get(i);
+                newTimestamps[i] = this.timestamps[i];
+            }
+        }
+        int[] newOffsets = new int[32 * 32];
+        int[] newLengths = new int[32 * 32];
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                header.putInt(0);
+                header.putInt(0);
+                header.putLong(0);
+            } else {
+                if (offset + data[i].remaining() > Integer.MAX_VALUE) {
+                    throw new IOException("Region too large");
+                }
+                newOffsets[i] = (int) offset;
+                newLengths[i] = data[i].remaining();
+                header.putInt(newOffsets[i]);
+                header.putInt(newLengths[i]);
+                header.putLong(newTimestamps[i]);
+                offset += newLengths[i];
+            }
+        }
+        header.flip();
+        // write everything to a new file first, so that a crash halfway through doesn't lose the region
+        // and so that the old file can still be read from, while it's mapped
+        Path tempFile = getTempFile();
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = writeFully(channel, header, 0);
+            for (ByteBuffer chunk : data) {
+                if (chunk != null) {
+                    position = writeFully(channel, chunk.duplicate(), position);
+                }
+            }
+            channel.force(false);
+        }
+        System.arraycopy(newOffsets, 0, this.offsets, 0, newOffsets.length);
+        System.arraycopy(newLengths, 0, this.lengths, 0, newLengths.length);
+        System.arraycopy(newTimestamps, 0, this.timestamps, 0, newTimestamps.length);
+        size = offset;
+        magic = MAGIC;
+        if (!move(tempFile)) {
+            replacePending = true;
+            return false;
+        }
+        remap();
+        return true;
+    }
+
+    /**
+     * Replaces the file with the one that {@link #save} wrote, after unmapping the old one, which is what stops it
+     * from being replaced on Windows. Anything still referring to a slice of an old mapping crashes the game once
+     * it's unmapped, so those have to be gone by now.
+     *
+     * @throws IOException If it still couldn't be replaced, in which case what was in the file is forgotten, see
+     *                     {@link #clear()}
+     */
+    void replace() throws IOException {
+        Path tempFile = getTempFile();
+        try {
+            setMapping(null);
+            for (WeakReference<MappedByteBuffer> reference : retired) {
+                MappedByteBuffer old = reference.get();
+                if (old != null) {
+                    unmap(old);
+                }
+            }
+            retired.clear();
+            if (!move(tempFile)) {
+                throw new IOException("Couldn't replace " + path);
+            }
+            replacePending = false;
+            remap();
+        } catch (IOException ex) {
+            clear();
+            Files.deleteIfExists(tempFile);
+            throw ex;
+        }
+    }
+
+    /**
+     * @return Whether the file was replaced, false if something is in the way (an old mapping, on Windows)
+     */
+    private boolean move(Path tempFile) throws IOException {
+        try {
+            try {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (FileSystemException ex) {
+            // windows reports a file that's mapped as either access denied or in use by another process, which doesn't
+            // have an exception of its own. if it's something else, the retry in replace fails the same way and says so
+            return false;
+        }
+    }
+
+    private void remap() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            setMapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private void setMapping(MappedByteBuffer mapping) {
+        if (this.mapping != null) {
+            retired.removeIf(reference -> reference.get() == null);
+            retired.add(new WeakReference<>(this.mapping));
+        }
+        this.mapping = mapping;
+    }
+
+    private Path getTempFile() {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Unmaps a mapped buffer right away, rather than once it's garbage collected. There's no public way to do this,
+     * so it's best effort.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // java 9 and up
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (NoSuchMethodException ignored) {
+            // java 8
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method clean = cleaner.getClass().getMethod("clean");
+                clean.setAccessible(true);
+                clean.invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * @return The position after what was written
+     */
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+}
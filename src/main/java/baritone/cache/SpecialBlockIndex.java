@@ -0,0 +1,305 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.cache;
+
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+
+/**
+ * Where the special blocks (see {@link CachedChunk#BLOCKS_TO_KEEP_TRACK_OF}) of a {@link CachedWorld} are, by block id
+ * <p>
+ * For each type of block there's a grid of the regions that have any of it, and within those, of the chunks that have
+ * any of it. A search only looks at regions and chunks that contain what it's looking for, closest first, and stops
+ * once nothing that's left can be closer than what it already found.
+ * <p>
+ * A region is only added the first time it's searched, which reads the special blocks that are stored in front of each
+ * of its chunks, without decompressing the chunks themselves. From then on, it's kept up to date as its chunks are
+ * packed, until it's removed from RAM.
+ */
+final class SpecialBlockIndex {
+
+    /**
+     * Block id, then region, then chunk within the region ({@code x * 32 + z}), to the positions within that chunk
+     * ({@code y << 8 | z << 4 | x})
+     */
+    private final Int2ObjectMap<Long2ObjectMap<Int2ObjectMap<int[]>>> blocks = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * The regions that have been added, to the ids of the blocks in each of their chunks
+     */
+    private final Long2ObjectMap<Int2ObjectMap<int[]>> regions = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Regions that are being added, to the updates to their chunks that came in while they were being read, which
+     * replace what was read
+     */
+    private final Long2ObjectMap<Int2ObjectMap<Int2ObjectMap<int[]>>> adding = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Adds all the special blocks in a region, if it hasn't been added already
+     * <p>
+     * The chunks are read without holding the lock, so that chunk updates and searches elsewhere don't have
+     * to wait for it. If the region is already being added by another thread, this waits for that instead.
+     */
+    void addRegion(int regionX, int regionZ, CachedRegion region) {
+        long key = key(regionX, regionZ);
+        synchronized (this) {
+            while (adding.containsKey(key)) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (regions.containsKey(key)) {
+                return;
+            }
+            adding.put(key, new Int2ObjectOpenHashMap<>());
+        }
+        Int2ObjectMap<int[]>[] read = new Int2ObjectMap[32 * 32];
+        try {
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    Map<String, List<BlockPos>> locations = region.getSpecialBlocks(x, z);
+                    if (locations != null) {
+                        read[x * 32 + z] = byId(locations);
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                // gone if the region was removed in the meantime, in which case it isn't added after all
+                Int2ObjectMap<Int2ObjectMap<int[]>> updated = adding.remove(key);
+                if (updated != null) {
+                    regions.put(key, new Int2ObjectOpenHashMap<>());
+                    for (int i = 0; i < read.length; i++) {
+                        Int2ObjectMap<int[]> locations = updated.containsKey(i) ? updated.get(i) : read[i];
+                        if (locations != null) {
+                            setChunk(key, i, locations);
+                        }
+                    }
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replaces the special blocks of a chunk, if its region has been added
+     */
+    void updateChunk(int regionX, int regionZ, int chunkX, int chunkZ, Map<String, List<BlockPos>> locations) {
+        long key = key(regionX, regionZ);
+        Int2ObjectMap<int[]> positions = byId(locations);
+        synchronized (this) {
+            if (regions.containsKey(key)) {
+                setChunk(key, chunkX * 32 + chunkZ, positions);
+            } else if (adding.containsKey(key)) {
+                adding.get(key).put(chunkX * 32 + chunkZ, positions);
+            }
+        }
+    }
+
+    synchronized void removeRegion(int regionX, int regionZ) {
+        long key = key(regionX, regionZ);
+        adding.remove(key);
+        Int2ObjectMap<int[]> chunks = regions.remove(key);
+        if (chunks == null) {
+            return;
+        }
+        for (int[] ids : chunks.values()) {
+            for (int id : ids) {
+                Long2ObjectMap<Int2ObjectMap<int[]>> inRegions = blocks.get(id);
+                if (inRegions != null) {
+                    inRegions.remove(key);
+                    if (inRegions.isEmpty()) {
+                        blocks.remove(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the positions of a block in one region, in no particular order
+     */
+    synchronized void addLocationsOf(Block block, int regionX, int regionZ, List<BlockPos> out) {
+        Long2ObjectMap<Int2ObjectMap<int[]>> inRegions = blocks.get(Block.getIdFromBlock(block));
+        Int2ObjectMap<int[]> chunks = inRegions == null ? null : inRegions.get(key(regionX, regionZ));
+        if (chunks == null) {
+            return;
+        }
+        for (Int2ObjectMap.Entry<int[]> entry : chunks.int2ObjectEntrySet()) {
+            int chunkX = regionX * 32 + entry.getIntKey() / 32;
+            int chunkZ = regionZ * 32 + entry.getIntKey() % 32;
+            for (int pos : entry.getValue()) {
+                out.add(toBlockPos(chunkX, chunkZ, pos));
+            }
+        }
+    }
+
+    /**
+     * @param maximum             How many positions to find at most
+     * @param maxRegionDistanceSq Only look in regions that are at most this far from the region of the center, squared
+     * @return The positions of the block that are horizontally closest to the center, closest first
+     */
+    synchronized ArrayList<BlockPos> nearest(Block block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
+        ArrayList<BlockPos> res = new ArrayList<>();
+        Long2ObjectMap<Int2ObjectMap<int[]>> inRegions = blocks.get(Block.getIdFromBlock(block));
+        if (inRegions == null || maximum <= 0) {
+            return res;
+        }
+        int centerRegionX = centerX >> 9;
+        int centerRegionZ = centerZ >> 9;
+        List<Long2ObjectMap.Entry<Int2ObjectMap<int[]>>> candidates = new ArrayList<>();
+        for (Long2ObjectMap.Entry<Int2ObjectMap<int[]>> entry : inRegions.long2ObjectEntrySet()) {
+            int regionX = (int) entry.getLongKey();
+            int regionZ = (int) (entry.getLongKey() >> 32);
+            int dx = regionX - centerRegionX;
+            int dz = regionZ - centerRegionZ;
+            if (dx * dx + dz * dz <= maxRegionDistanceSq) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> distanceSq(centerX, centerZ, (int) entry.getLongKey() << 9, (int) (entry.getLongKey() >> 32) << 9, 512)));
+        // the furthest of the closest ones found so far is on top
+        PriorityQueue<long[]> found = new PriorityQueue<>(Comparator.comparingLong((long[] candidate) -> candidate[0]).reversed());
+        for (Long2ObjectMap.Entry<Int2ObjectMap<int[]>> region : candidates) {
+            int regionX = (int) region.getLongKey();
+            int regionZ = (int) (region.getLongKey() >> 32);
+            if (found.size() >= maximum && distanceSq(centerX, centerZ, regionX << 9, regionZ << 9, 512) > found.peek()[0]) {
+                break; // this region and all the ones after it are further away than everything that was found
+            }
+            for (Int2ObjectMap.Entry<int[]> chunk : region.getValue().int2ObjectEntrySet()) {
+                int chunkX = regionX * 32 + chunk.getIntKey() / 32;
+                int chunkZ = regionZ * 32 + chunk.getIntKey() % 32;
+                if (found.size() >= maximum && distanceSq(centerX, centerZ, chunkX << 4, chunkZ << 4, 16) > found.peek()[0]) {
+                    continue;
+                }
+                for (int pos : chunk.getValue()) {
+                    int dx = (chunkX << 4 | pos & 15) - centerX;
+                    int dz = (chunkZ << 4 | pos >> 4 & 15) - centerZ;
+                    long distSq = (long) dx * dx + (long) dz * dz;
+                    if (found.size() < maximum) {
+                        found.add(new long[]{distSq, chunkX, chunkZ, pos});
+                    } else if (distSq < found.peek()[0]) {
+                        found.poll();
+                        found.add(new long[]{distSq, chunkX, chunkZ, pos});
+                    }
+                }
+            }
+        }
+        while (!found.isEmpty()) {
+            long[] closest = found.poll();
+            res.add(toBlockPos((int) closest[1], (int) closest[2], (int) closest[3]));
+        }
+        Collections.reverse(res);
+        return res;
+    }
+
+    /**
+     * @param positions Block id to the positions of that block within the chunk, see {@link #byId(Map)}
+     */
+    private void setChunk(long key, int chunk, Int2ObjectMap<int[]> positions) {
+        Int2ObjectMap<int[]> chunks = regions.get(key);
+        int[] old = chunks.remove(chunk);
+        if (old != null) {
+            for (int id : old) {
+                Long2ObjectMap<Int2ObjectMap<int[]>> inRegions = blocks.get(id);
+                Int2ObjectMap<int[]> inRegion = inRegions == null ? null : inRegions.get(key);
+                if (inRegion == null) {
+                    continue;
+                }
+                inRegion.remove(chunk);
+                if (inRegion.isEmpty()) {
+                    inRegions.remove(key);
+                    if (inRegions.isEmpty()) {
+                        blocks.remove(id);
+                    }
+                }
+            }
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+        for (Int2ObjectMap.Entry<int[]> entry : positions.int2ObjectEntrySet()) {
+            Long2ObjectMap<Int2ObjectMap<int[]>> inRegions = blocks.get(entry.getIntKey());
+            if (inRegions == null) {
+                inRegions = new Long2ObjectOpenHashMap<>();
+                blocks.put(entry.getIntKey(), inRegions);
+            }
+            Int2ObjectMap<int[]> inRegion = inRegions.get(key);
+            if (inRegion == null) {
+                inRegion = new Int2ObjectOpenHashMap<>();
+                inRegions.put(key, inRegion);
+            }
+            inRegion.put(chunk, entry.getValue());
+        }
+        chunks.put(chunk, positions.keySet().toIntArray());
+    }
+
+    /**
+     * @param locations The special blocks of a chunk by name, see {@link CachedChunk#getRelativeBlocks()}
+     * @return Block id to the positions of that block within the chunk, with the positions of names that are the same
+     * block merged together
+     */
+    private static Int2ObjectMap<int[]> byId(Map<String, List<BlockPos>> locations) {
+        Int2ObjectMap<int[]> positions = new Int2ObjectOpenHashMap<>(locations.size());
+        for (Map.Entry<String, List<BlockPos>> entry : locations.entrySet()) {
+            Block block = BlockUtils.stringToBlockNullable(entry.getKey());
+            if (block == null) {
+                continue;
+            }
+            int id = Block.getIdFromBlock(block);
+            int[] existing = positions.get(id);
+            int offset = existing == null ? 0 : existing.length;
+            int[] merged = existing == null ? new int[entry.getValue().size()] : Arrays.copyOf(existing, offset + entry.getValue().size());
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                BlockPos pos = entry.getValue().get(i);
+                merged[offset + i] = pos.getY() << 8 | pos.getZ() << 4 | pos.getX();
+            }
+            positions.put(id, merged);
+        }
+        return positions;
+    }
+
+    private static BlockPos toBlockPos(int chunkX, int chunkZ, int pos) {
+        return new BlockPos(chunkX << 4 | pos & 15, pos >> 8, chunkZ << 4 | pos >> 4 & 15);
+    }
+
+    /**
+     * @return The horizontal distance squared from a point to the closest point of a square
+     */
+    private static long distanceSq(int x, int z, int minX, int minZ, int size) {
+        long dx = Math.max(0, Math.max(minX - x, x - (minX + size - 1)));
+        long dz = Math.max(0, Math.max(minZ - z, z - (minZ + size - 1)));
+        return dx * dx + dz * dz;
+    }
+
+    private static long key(int regionX, int regionZ) {
+        return (long) regionX & 0xFFFFFFFFL | ((long) regionZ & 0xFFFFFFFFL) << 32;
+    }
+}
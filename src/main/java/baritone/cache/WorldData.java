@@ -21,6 +21,7 @@ import baritone.Baritone;
 import baritone.api.cache.ICachedWorld;
 import baritone.api.cache.IWaypointCollection;
 import baritone.api.cache.IWorldData;
+import baritone.utils.WorldSnapshot;
 
 import java.nio.file.Path;
 
@@ -37,6 +38,11 @@ public class WorldData implements IWorldData {
     public final Path directory;
     public final int dimension;
 
+    /**
+     * Snapshots of the loaded chunks in this world, for path calculations
+     */
+    public final WorldSnapshot.Source snapshots = new WorldSnapshot.Source();
+
     WorldData(Path directory, int dimension) {
         this.directory = directory;
         this.cache = new CachedWorld(directory.resolve("cache"), dimension);
@@ -45,6 +51,7 @@ public class WorldData implements IWorldData {
     }
 
     public void onClose() {
+        snapshots.clear();
         Baritone.getExecutor().execute(() -> {
             System.out.println("Started saving the world in a new thread");
             cache.save();
@@ -56,6 +56,7 @@ public final class DefaultCommands {
                 new ExploreFilterCommand(baritone),
                 new ReloadAllCommand(baritone),
                 new SaveAllCommand(baritone),
+                new CacheStatsCommand(baritone),
                 new ExploreCommand(baritone),
                 new BlacklistCommand(baritone),
                 new FindCommand(baritone),
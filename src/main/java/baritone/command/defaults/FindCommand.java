@@ -55,11 +55,11 @@ public class FindCommand extends Command {
         BetterBlockPos origin = ctx.playerFeet();
         ITextComponent[] components = toFind.stream()
                 .flatMap(block ->
-                        ctx.worldData().getCachedWorld().getLocationsOf(
-                                Block.REGISTRY.getNameForObject(block).getPath(),
+                        ctx.worldData().getCachedWorld().getNearestLocationsOf(
+                                block,
                                 Integer.MAX_VALUE,
                                 origin.x,
-                                origin.y,
+                                origin.z,
                                 4
                         ).stream()
                 )
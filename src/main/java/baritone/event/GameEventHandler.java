@@ -28,6 +28,7 @@ import baritone.cache.CachedChunk;
 import baritone.cache.WorldProvider;
 import baritone.utils.BlockStateInterface;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
@@ -104,12 +105,24 @@ public final class GameEventHandler implements IEventBus, Helper {
             });
         }
 
+        if (event.isPostPopulate()) {
+            baritone.getWorldProvider().ifWorldLoaded(worldData -> worldData.snapshots.onChunkChange(event.getX(), event.getZ()));
+        } else if (state == EventState.POST && type == ChunkEvent.Type.UNLOAD) {
+            baritone.getWorldProvider().ifWorldLoaded(worldData -> worldData.snapshots.onChunkUnload(event.getX(), event.getZ()));
+        }
+
 
         listeners.forEach(l -> l.onChunkEvent(event));
     }
 
     @Override
     public void onBlockChange(BlockChangeEvent event) {
+        baritone.getWorldProvider().ifWorldLoaded(worldData -> {
+            for (Pair<BlockPos, IBlockState> change : event.getBlocks()) {
+                BlockPos pos = change.first();
+                worldData.snapshots.onBlockChange(pos.getX(), pos.getY(), pos.getZ());
+            }
+        });
         if (Baritone.settings().repackOnAnyBlockChange.value) {
             final boolean keepingTrackOf = event.getBlocks().stream()
                     .map(Pair::second).map(IBlockState::getBlock)
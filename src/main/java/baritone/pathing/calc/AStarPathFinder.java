@@ -24,12 +24,18 @@ import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.utils.BetterBlockPos;
 import baritone.pathing.calc.openset.BinaryHeapOpenSet;
 import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.MovementCostCache;
 import baritone.pathing.movement.Moves;
 import baritone.utils.pathing.BetterWorldBorder;
 import baritone.utils.pathing.Favoring;
 import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.ChunkPos;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * The actual A* pathfinding
@@ -41,26 +47,135 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
     private final Favoring favoring;
     private final CalculationContext calcContext;
 
+    /**
+     * How much the heuristic is weighted in the combined cost, above 1 is greedier. Only helpers of a parallel search
+     * use anything other than 1.
+     */
+    private final double heuristicWeight;
+
+    /**
+     * Whether this is one of the extra searches of a parallel calculation, whose only job is to find the goal
+     */
+    private final boolean helper;
+
+    /**
+     * Shared between all the searches of a parallel calculation, null otherwise
+     */
+    private SharedIncumbent incumbent;
+
+    /**
+     * The chunks that the search may go into, see {@link ChunkPos#asLong(int, int)}, or null for anywhere
+     */
+    private final LongSet corridor;
+
     public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
-        super(startX, startY, startZ, goal, context);
+        this(startX, startY, startZ, goal, favoring, context, null);
+    }
+
+    public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, SearchArena arena) {
+        this(startX, startY, startZ, goal, favoring, context, arena, null);
+    }
+
+    AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, SearchArena arena, LongSet corridor) {
+        super(startX, startY, startZ, goal, context, arena);
         this.favoring = favoring;
         this.calcContext = context;
+        this.heuristicWeight = 1;
+        this.helper = false;
+        this.corridor = corridor;
+    }
+
+    private AStarPathFinder(AStarPathFinder primary, CalculationContext context, SearchArena arena, double heuristicWeight, SharedIncumbent incumbent) {
+        super(primary.startX, primary.startY, primary.startZ, primary.goal, context, arena);
+        this.favoring = primary.favoring;
+        this.calcContext = context;
+        this.heuristicWeight = heuristicWeight;
+        this.helper = true;
+        this.incumbent = incumbent;
+        this.corridor = primary.corridor;
     }
 
     @Override
     protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        int threads = Baritone.settings().pathingThreads.value;
+        // a subclass of the context can't be copied for the helpers without losing what it overrides
+        if (threads > 1 && calcContext.safeForThreadedUse && calcContext.getClass() == CalculationContext.class) {
+            return calculateParallel(primaryTimeout, failureTimeout, threads);
+        }
+        return search(primaryTimeout, failureTimeout);
+    }
+
+    /**
+     * Runs this search alongside helpers that are increasingly greedy (weights 1.5, 2, 2.5 and so on), and returns the
+     * cheapest path to the goal that any of them found. If none of them got there, it's the same as a normal search.
+     * <p>
+     * If this search has an arena, each helper borrows its nodes from an arena of its own that's kept with it.
+     */
+    private Optional<IPath> calculateParallel(long primaryTimeout, long failureTimeout, int threads) {
+        incumbent = new SharedIncumbent();
+        SearchArena arena = getArena();
+        List<AStarPathFinder> helpers = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            SearchArena helperArena = arena == null ? null : arena.helper(i - 1);
+            AStarPathFinder helper = new AStarPathFinder(this, new CalculationContext(calcContext), helperArena, 1 + 0.5 * i, incumbent);
+            helpers.add(helper);
+            Baritone.getExecutor().execute(() -> {
+                try {
+                    helper.search(primaryTimeout, failureTimeout);
+                } catch (Exception e) {
+                    // the others carry on without it
+                    logDebug("Parallel pathing helper failed: " + e);
+                } finally {
+                    // any path it found was copied out of its nodes already
+                    helper.releaseArena();
+                    finished.countDown();
+                }
+            });
+        }
+        Optional<IPath> result;
+        try {
+            result = search(primaryTimeout, failureTimeout);
+        } finally {
+            helpers.forEach(AStarPathFinder::cancel);
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        Path best = incumbent.path();
+        if (best != null) {
+            logDebug("Parallel search found the goal with a cost of " + incumbent.cost());
+            return Optional.of(best);
+        }
+        return result;
+    }
+
+    private Optional<IPath> search(long primaryTimeout, long failureTimeout) {
+        INodeStore nodes = this.nodes;
+        BinaryHeapOpenSet openSet = this.openSet;
         startNode = getNodeAtPosition(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
-        startNode.cost = 0;
-        startNode.combinedCost = startNode.estimatedCostToGoal;
-        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+        nodes.setCost(startNode, 0);
+        nodes.setCombinedCost(startNode, heuristicWeight * nodes.getEstimatedCostToGoal(startNode));
         openSet.insert(startNode);
         double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
         for (int i = 0; i < bestHeuristicSoFar.length; i++) {
-            bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
+            bestHeuristicSoFar[i] = nodes.getEstimatedCostToGoal(startNode);
             bestSoFar[i] = startNode;
         }
         MutableMoveResult res = new MutableMoveResult();
-        BetterWorldBorder worldBorder = new BetterWorldBorder(calcContext.world.getWorldBorder());
+        BetterWorldBorder worldBorder = calcContext.worldBorder;
         long startTime = System.currentTimeMillis();
         boolean slowPath = Baritone.settings().slowPath.value;
         if (slowPath) {
@@ -76,11 +191,19 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
         int timeCheckInterval = 1 << 6;
         int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value; // grab all settings beforehand so that changing settings during pathing doesn't cause a crash or unpredictable behavior
         double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+        double heuristicWeight = this.heuristicWeight;
+        SharedIncumbent incumbent = this.incumbent;
+        LongSet corridor = this.corridor;
+        boolean symmetryPruning = Baritone.settings().pathingSymmetryPruning.value;
+        boolean moveCandidates = Baritone.settings().pathingMoveCandidates.value;
+        MovementCostCache costCache = Baritone.settings().movementCostCache.value && calcContext.getClass() == CalculationContext.class ? calcContext.costCache : null;
+        long costFingerprint = costCache == null ? 0 : MovementCostCache.fingerprint(calcContext);
         Moves[] allMoves = Moves.values();
         while (!openSet.isEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
             if ((numNodes & (timeCheckInterval - 1)) == 0) { // only call this once every 64 nodes (about half a millisecond)
                 long now = System.currentTimeMillis(); // since nanoTime is slow on windows (takes many microseconds)
-                if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
+                boolean haveGoal = incumbent != null && incumbent.cost() < ActionCosts.COST_INF;
+                if (now - failureTimeoutTime >= 0 || ((!failing || haveGoal) && now - primaryTimeoutTime >= 0)) {
                     break;
                 }
             }
@@ -89,17 +212,52 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                     Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
                 } catch (InterruptedException ignored) {}
             }
-            PathNode currentNode = openSet.removeLowest();
+            int currentNode = openSet.removeLowest();
             mostRecentConsidered = currentNode;
             numNodes++;
-            if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
+            int currentX = nodes.getX(currentNode);
+            int currentY = nodes.getY(currentNode);
+            int currentZ = nodes.getZ(currentNode);
+            double currentCost = nodes.getCost(currentNode);
+            if (goal.isInGoal(currentX, currentY, currentZ)) {
+                numNodesExpanded = numNodes;
                 logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
-                return Optional.of(new Path(startNode, currentNode, numNodes, goal, calcContext));
+                Path path = new Path(nodes, startNode, currentNode, numNodes, goal, calcContext);
+                if (incumbent != null) {
+                    incumbent.offer(path, currentCost);
+                }
+                return Optional.of(path);
             }
-            for (Moves moves : allMoves) {
-                int newX = currentNode.x + moves.xOffset;
-                int newZ = currentNode.z + moves.zOffset;
-                if ((newX >> 4 != currentNode.x >> 4 || newZ >> 4 != currentNode.z >> 4) && !calcContext.isLoaded(newX, newZ)) {
+            if (incumbent != null && currentCost + nodes.getEstimatedCostToGoal(currentNode) >= incumbent.cost()) {
+                if (heuristicWeight == 1) {
+                    // everything left in the open set is at least as expensive, nothing here can beat what was found
+                    break;
+                }
+                continue;
+            }
+            boolean pruning = false;
+            int directionX = 0;
+            int directionZ = 0;
+            if (symmetryPruning) {
+                int previous = nodes.getPrevious(currentNode);
+                if (previous != INodeStore.NONE && nodes.getY(previous) == currentY) {
+                    directionX = currentX - nodes.getX(previous);
+                    directionZ = currentZ - nodes.getZ(previous);
+                    pruning = Math.abs(directionX) <= 1 && Math.abs(directionZ) <= 1
+                            && SymmetryPruning.isOpen(calcContext, currentX, currentY, currentZ)
+                            && (!isFavoring || SymmetryPruning.isUnfavored(favoring, currentX, currentY, currentZ));
+                }
+            }
+            MovementCostCache.Chunk costs = costCache == null ? null : costCache.getChunk(costFingerprint, calcContext.costCacheGeneration, currentX >> 4, currentZ >> 4);
+            int candidates = moveCandidates ? MoveCandidates.of(calcContext, currentX, currentY, currentZ) : MoveCandidates.ALL;
+            for (; candidates != 0; candidates &= candidates - 1) {
+                Moves moves = allMoves[Integer.numberOfTrailingZeros(candidates)];
+                if (pruning && SymmetryPruning.isPrunable(moves) && !SymmetryPruning.isNatural(moves, directionX, directionZ)) {
+                    continue;
+                }
+                int newX = currentX + moves.xOffset;
+                int newZ = currentZ + moves.zOffset;
+                if ((newX >> 4 != currentX >> 4 || newZ >> 4 != currentZ >> 4) && !calcContext.isLoaded(newX, newZ)) {
                     // only need to check if the destination is a loaded chunk if it's in a different chunk than the start of the movement
                     if (!moves.dynamicXZ) { // only increment the counter if the movement would have gone out of bounds guaranteed
                         numEmptyChunk++;
@@ -109,11 +267,15 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                 if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
                     continue;
                 }
-                if (currentNode.y + moves.yOffset > 256 || currentNode.y + moves.yOffset < 0) {
+                if (currentY + moves.yOffset > 256 || currentY + moves.yOffset < 0) {
                     continue;
                 }
                 res.reset();
-                moves.apply(calcContext, currentNode.x, currentNode.y, currentNode.z, res);
+                if (costs == null) {
+                    moves.apply(calcContext, currentX, currentY, currentZ, res);
+                } else {
+                    costs.apply(moves, calcContext, currentX, currentY, currentZ, res);
+                }
                 numMovementsConsidered++;
                 double actionCost = res.cost;
                 if (actionCost >= ActionCosts.COST_INF) {
@@ -129,27 +291,34 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                 if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
                     throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
                 }
-                if (!moves.dynamicY && res.y != currentNode.y + moves.yOffset) {
-                    throw new IllegalStateException(moves + " " + res.y + " " + (currentNode.y + moves.yOffset));
+                if (!moves.dynamicY && res.y != currentY + moves.yOffset) {
+                    throw new IllegalStateException(moves + " " + res.y + " " + (currentY + moves.yOffset));
+                }
+                if (corridor != null && !corridor.contains(ChunkPos.asLong(res.x >> 4, res.z >> 4))) {
+                    continue;
                 }
                 long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
                 if (isFavoring) {
                     // see issue #18
                     actionCost *= favoring.calculate(hashCode);
                 }
-                PathNode neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
-                double tentativeCost = currentNode.cost + actionCost;
-                if (neighbor.cost - tentativeCost > minimumImprovement) {
-                    neighbor.previous = currentNode;
-                    neighbor.cost = tentativeCost;
-                    neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
-                    if (neighbor.isOpen()) {
+                int neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
+                double tentativeCost = currentCost + actionCost;
+                if (nodes.getCost(neighbor) - tentativeCost > minimumImprovement) {
+                    double estimatedCostToGoal = nodes.getEstimatedCostToGoal(neighbor);
+                    if (incumbent != null && tentativeCost + estimatedCostToGoal >= incumbent.cost()) {
+                        continue;
+                    }
+                    nodes.setPrevious(neighbor, currentNode);
+                    nodes.setCost(neighbor, tentativeCost);
+                    nodes.setCombinedCost(neighbor, tentativeCost + heuristicWeight * estimatedCostToGoal);
+                    if (nodes.isOpen(neighbor)) {
                         openSet.update(neighbor);
                     } else {
                         openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
                     }
                     for (int i = 0; i < COEFFICIENTS.length; i++) {
-                        double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
+                        double heuristic = estimatedCostToGoal + tentativeCost / COEFFICIENTS[i];
                         if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
                             bestHeuristicSoFar[i] = heuristic;
                             bestSoFar[i] = neighbor;
@@ -161,12 +330,13 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                 }
             }
         }
-        if (cancelRequested) {
+        numNodesExpanded = numNodes;
+        if (cancelRequested || helper) {
             return Optional.empty();
         }
         System.out.println(numMovementsConsidered + " movements considered");
         System.out.println("Open set size: " + openSet.size());
-        System.out.println("PathNode map size: " + mapSize());
+        System.out.println("Node store size: " + mapSize());
         System.out.println((int) (numNodes * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
         Optional<IPath> result = bestSoFar(true, numNodes);
         if (result.isPresent()) {
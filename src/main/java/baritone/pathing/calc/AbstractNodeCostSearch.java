@@ -24,10 +24,15 @@ import baritone.api.pathing.goals.Goal;
 import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
 import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
 import baritone.pathing.movement.CalculationContext;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Any pathfinding algorithm that keeps track of nodes recursively by their cost (e.g. A*, dijkstra)
@@ -47,18 +52,38 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
     /**
      * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
      */
-    private final Long2ObjectOpenHashMap<PathNode> map;
+    protected final INodeStore nodes;
 
-    protected PathNode startNode;
+    protected final BinaryHeapOpenSet openSet;
 
-    protected PathNode mostRecentConsidered;
+    /**
+     * The arena that {@link #nodes} and {@link #openSet} were borrowed from, or null if they were allocated just for
+     * this search
+     */
+    private final SearchArena arena;
+
+    protected int startNode = INodeStore.NONE;
+
+    protected int mostRecentConsidered = INodeStore.NONE;
 
-    protected final PathNode[] bestSoFar = new PathNode[COEFFICIENTS.length];
+    protected final int[] bestSoFar = new int[COEFFICIENTS.length];
 
     private volatile boolean isFinished;
 
+    /**
+     * Held for reading while another thread builds a path out of {@link #nodes}, and for writing while this search is
+     * marked finished, so that the nodes can't be handed back to {@link #arena} (and reset by the next search) while
+     * anything is still walking them
+     */
+    private final ReadWriteLock nodesLock = new ReentrantReadWriteLock();
+
     protected boolean cancelRequested;
 
+    /**
+     * How many nodes were taken off the open set, set once calculate0 returns
+     */
+    protected int numNodesExpanded;
+
     /**
      * This is really complicated and hard to explain. I wrote a comment in the old version of MineBot but it was so
      * long it was easier as a Google Doc (because I could insert charts).
@@ -81,13 +106,72 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
      */
     protected static final double MIN_IMPROVEMENT = 0.01;
 
-    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context) {
+    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context, SearchArena arena) {
         this.startX = startX;
         this.startY = startY;
         this.startZ = startZ;
         this.goal = goal;
         this.context = context;
-        this.map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+        if (arena != null && Baritone.settings().pathingSearchArena.value && arena.acquire(goal)) {
+            this.arena = arena;
+            this.nodes = arena.getNodes();
+            this.openSet = arena.getOpenSet();
+        } else {
+            this.arena = null;
+            this.nodes = createNodeStore(goal);
+            this.openSet = new BinaryHeapOpenSet(nodes);
+        }
+        Arrays.fill(bestSoFar, INodeStore.NONE);
+    }
+
+    /**
+     * For a search that brings its own node store and open set, and keeps them after it's finished
+     */
+    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context, INodeStore nodes, BinaryHeapOpenSet openSet) {
+        this.startX = startX;
+        this.startY = startY;
+        this.startZ = startZ;
+        this.goal = goal;
+        this.context = context;
+        this.arena = null;
+        this.nodes = nodes;
+        this.openSet = openSet;
+        Arrays.fill(bestSoFar, INodeStore.NONE);
+    }
+
+    /**
+     * For a search that doesn't expand any nodes itself, but hands the work to other searches. {@link #nodes} and
+     * {@link #openSet} are null, so it has to override everything that would read them.
+     */
+    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context) {
+        this(startX, startY, startZ, goal, context, (INodeStore) null, null);
+    }
+
+    /**
+     * @return The arena that the nodes were borrowed from, or null if they weren't
+     */
+    final SearchArena getArena() {
+        return arena;
+    }
+
+    /**
+     * Hands the nodes back to the arena they were borrowed from, for a search that's run without {@link #calculate},
+     * once nothing reads them anymore
+     */
+    final void releaseArena() {
+        if (arena != null) {
+            arena.release();
+        }
+    }
+
+    static INodeStore createNodeStore(Goal goal) {
+        int expectedSize = Baritone.settings().pathingMapDefaultSize.value;
+        float loadFactor = Baritone.settings().pathingMapLoadFactor.value;
+        if (Baritone.settings().primitiveNodeStore.value) {
+            return new PrimitiveNodeStore(goal, expectedSize, loadFactor);
+        } else {
+            return new PathNodeStore(goal, expectedSize, loadFactor);
+        }
     }
 
     public void cancel() {
@@ -100,6 +184,7 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
             throw new IllegalStateException("Path finder cannot be reused!");
         }
         cancelRequested = false;
+        long allocatedBefore = threadAllocatedBytes();
         try {
             IPath path = calculate0(primaryTimeout, failureTimeout).map(IPath::postProcess).orElse(null);
             if (cancelRequested) {
@@ -132,10 +217,35 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
             return new PathCalculationResult(PathCalculationResult.Type.EXCEPTION);
         } finally {
             // this is run regardless of what exception may or may not be raised by calculate0
-            isFinished = true;
+            nodesLock.writeLock().lock();
+            try {
+                isFinished = true;
+            } finally {
+                nodesLock.writeLock().unlock();
+            }
+            long allocated = threadAllocatedBytes() - allocatedBefore;
+            if (allocatedBefore != -1) {
+                int numNodes = Math.max(1, mapSize());
+                Helper.HELPER.logDebug("Pathing allocated " + (allocated >> 10) + " KiB, " + (allocated / numNodes) + " bytes per node" + (arena != null ? " (reusing search arena)" : ""));
+            }
+            if (arena != null) {
+                // nothing reads the nodes once we're finished, and anything that was reading them is done by now
+                arena.release();
+            }
         }
     }
 
+    /**
+     * @return The number of bytes allocated by the current thread so far, or -1 if the JVM can't tell us
+     */
+    private static long threadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
     protected abstract Optional<IPath> calculate0(long primaryTimeout, long failureTimeout);
 
     /**
@@ -143,58 +253,71 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
      * node. Intended for use in distance comparison, rather than anything that
      * considers the real distance value, hence the "sq".
      *
-     * @param n A node
+     * @param n A node handle
      * @return The distance, squared
      */
-    protected double getDistFromStartSq(PathNode n) {
-        int xDiff = n.x - startX;
-        int yDiff = n.y - startY;
-        int zDiff = n.z - startZ;
+    protected double getDistFromStartSq(int n) {
+        int xDiff = nodes.getX(n) - startX;
+        int yDiff = nodes.getY(n) - startY;
+        int zDiff = nodes.getZ(n) - startZ;
         return xDiff * xDiff + yDiff * yDiff + zDiff * zDiff;
     }
 
     /**
-     * Attempts to search the block position hashCode long to {@link PathNode} map
-     * for the node mapped to the specified pos. If no node is found,
-     * a new node is created.
+     * Attempts to search the node store for the node at the specified pos.
+     * If no node is found, a new node is created.
      *
      * @param x        The x position of the node
      * @param y        The y position of the node
      * @param z        The z position of the node
      * @param hashCode The hash code of the node, provided by {@link BetterBlockPos#longHash(int, int, int)}
-     * @return The associated node
+     * @return The handle of the associated node
      * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
      */
-
-    protected PathNode getNodeAtPosition(int x, int y, int z, long hashCode) {
-        PathNode node = map.get(hashCode);
-        if (node == null) {
-            node = new PathNode(x, y, z, goal);
-            map.put(hashCode, node);
-        }
-        return node;
+    protected int getNodeAtPosition(int x, int y, int z, long hashCode) {
+        return nodes.getOrCreate(x, y, z, hashCode);
     }
 
     @Override
     public Optional<IPath> pathToMostRecentNodeConsidered() {
-        return Optional.ofNullable(mostRecentConsidered).map(node -> new Path(startNode, node, 0, goal, context));
+        nodesLock.readLock().lock();
+        try {
+            int node = mostRecentConsidered;
+            if (node == INodeStore.NONE || isFinished) {
+                return Optional.empty();
+            }
+            // the path copies the positions out, so it stays valid after the nodes are reused
+            return Optional.of(new Path(nodes, startNode, node, 0, goal, context));
+        } finally {
+            nodesLock.readLock().unlock();
+        }
     }
 
     @Override
     public Optional<IPath> bestPathSoFar() {
-        return bestSoFar(false, 0);
+        nodesLock.readLock().lock();
+        try {
+            if (isFinished) {
+                // the nodes might already be in use by the next search if they came from an arena
+                return Optional.empty();
+            }
+            return bestSoFar(false, 0);
+        } finally {
+            nodesLock.readLock().unlock();
+        }
     }
 
     protected Optional<IPath> bestSoFar(boolean logInfo, int numNodes) {
-        if (startNode == null) {
+        if (startNode == INodeStore.NONE) {
             return Optional.empty();
         }
         double bestDist = 0;
         for (int i = 0; i < COEFFICIENTS.length; i++) {
-            if (bestSoFar[i] == null) {
+            int node = bestSoFar[i];
+            if (node == INodeStore.NONE) {
                 continue;
             }
-            double dist = getDistFromStartSq(bestSoFar[i]);
+            double dist = getDistFromStartSq(node);
             if (dist > bestDist) {
                 bestDist = dist;
             }
@@ -208,7 +331,7 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
                     System.out.println("Path goes for " + Math.sqrt(dist) + " blocks");
                     logDebug("A* cost coefficient " + COEFFICIENTS[i]);
                 }
-                return Optional.of(new Path(startNode, bestSoFar[i], numNodes, goal, context));
+                return Optional.of(new Path(nodes, startNode, node, numNodes, goal, context));
             }
         }
         // instead of returning bestSoFar[0], be less misleading
@@ -235,7 +358,11 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
         return new BetterBlockPos(startX, startY, startZ);
     }
 
+    public int getNumNodesExpanded() {
+        return numNodesExpanded;
+    }
+
     protected int mapSize() {
-        return map.size();
+        return nodes.size();
     }
 }
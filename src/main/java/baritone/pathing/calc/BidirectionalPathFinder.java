@@ -0,0 +1,348 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalTwoBlocks;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A* from both ends at once, for goals that are one exact position. The forwards search is the same as
+ * {@link AStarPathFinder}, the backwards one starts at the goal and goes through {@link Moves#source} candidates,
+ * applying each move forwards from there to check that it really ends up where it should. Whichever side has the
+ * smaller open set is expanded next.
+ * <p>
+ * The backwards search doesn't know every way of getting somewhere (e.g. long falls into water), and the heuristic
+ * can overestimate, so nothing it finds can end the search early. A meeting counts as the goal does for forwards A*,
+ * the search is over once nothing left in the forwards open set could beat the cheapest path where they met. So the
+ * path found is never worse than the one forwards A* would have found, the backwards search only makes it cheaper or
+ * lets the forwards one stop sooner.
+ * <p>
+ * If they never meet, the result is the best segment of the forwards search, same as A*.
+ */
+public final class BidirectionalPathFinder extends AbstractNodeCostSearch {
+
+    private final Favoring favoring;
+    private final CalculationContext calcContext;
+
+    /**
+     * Every position in the goal, where the backwards search starts
+     */
+    private final BetterBlockPos[] targets;
+
+    /**
+     * The backwards search. Costs are of getting from a node to the goal, and the previous node is the next one on the
+     * way there.
+     */
+    private final INodeStore backwardNodes;
+
+    private final BinaryHeapOpenSet backwardOpenSet;
+
+    /**
+     * The cost of the cheapest path found so far through a node that both searches reached
+     */
+    private double bestMeeting = ActionCosts.COST_INF;
+
+    private int meetingForward = INodeStore.NONE;
+
+    private int meetingBackward = INodeStore.NONE;
+
+    public BidirectionalPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
+        super(startX, startY, startZ, goal, context, (SearchArena) null);
+        this.favoring = favoring;
+        this.calcContext = context;
+        this.targets = targetsOf(goal);
+        if (targets == null) {
+            throw new IllegalArgumentException(goal + " isn't an exact position");
+        }
+        this.backwardNodes = createNodeStore(new GoalBlock(startX, startY, startZ));
+        this.backwardOpenSet = new BinaryHeapOpenSet(backwardNodes);
+    }
+
+    /**
+     * @return Whether the goal is an exact position. If not, this can't be used and it's forwards A* only. Moves that
+     * can't be searched backwards are just left out of the backwards search.
+     */
+    public static boolean canSearch(Goal goal) {
+        return targetsOf(goal) != null;
+    }
+
+    private static BetterBlockPos[] targetsOf(Goal goal) {
+        // exact classes only, a subclass could be in its goal anywhere
+        if (goal.getClass() == GoalBlock.class) {
+            GoalBlock block = (GoalBlock) goal;
+            return new BetterBlockPos[]{new BetterBlockPos(block.x, block.y, block.z)};
+        }
+        if (goal.getClass() == GoalTwoBlocks.class) {
+            BetterBlockPos pos = new BetterBlockPos(((GoalTwoBlocks) goal).getGoalPos());
+            return new BetterBlockPos[]{pos, pos.down()};
+        }
+        return null;
+    }
+
+    @Override
+    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        INodeStore nodes = this.nodes;
+        BinaryHeapOpenSet openSet = this.openSet;
+        INodeStore backwardNodes = this.backwardNodes;
+        BinaryHeapOpenSet backwardOpenSet = this.backwardOpenSet;
+        long startHash = BetterBlockPos.longHash(startX, startY, startZ);
+        startNode = getNodeAtPosition(startX, startY, startZ, startHash);
+        nodes.setCost(startNode, 0);
+        nodes.setCombinedCost(startNode, nodes.getEstimatedCostToGoal(startNode));
+        openSet.insert(startNode);
+        for (BetterBlockPos target : targets) {
+            int node = backwardNodes.getOrCreate(target.x, target.y, target.z, BetterBlockPos.longHash(target.x, target.y, target.z));
+            backwardNodes.setCost(node, 0);
+            backwardNodes.setCombinedCost(node, backwardNodes.getEstimatedCostToGoal(node));
+            backwardOpenSet.insert(node);
+        }
+        int startBackward = backwardNodes.get(startHash);
+        if (startBackward != INodeStore.NONE) {
+            meet(startNode, startBackward, 0);
+        }
+        double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];
+        for (int i = 0; i < bestHeuristicSoFar.length; i++) {
+            bestHeuristicSoFar[i] = nodes.getEstimatedCostToGoal(startNode);
+            bestSoFar[i] = startNode;
+        }
+        MutableMoveResult res = new MutableMoveResult();
+        MutableMoveResult src = new MutableMoveResult();
+        BetterWorldBorder worldBorder = calcContext.worldBorder;
+        long startTime = System.currentTimeMillis();
+        boolean slowPath = Baritone.settings().slowPath.value;
+        if (slowPath) {
+            logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
+        }
+        long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+        long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+        boolean failing = true;
+        int numNodes = 0;
+        int numMovementsConsidered = 0;
+        int numEmptyChunk = 0;
+        boolean isFavoring = !favoring.isEmpty();
+        int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value;
+        double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+        Moves[] allMoves = Moves.values();
+        int[] sourceCounts = new int[allMoves.length];
+        for (int i = 0; i < allMoves.length; i++) {
+            sourceCounts[i] = allMoves[i].sourceCount(calcContext);
+        }
+        while (!openSet.isEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
+            if ((numNodes & 63) == 0) {
+                long now = System.currentTimeMillis();
+                if (now - failureTimeoutTime >= 0 || ((!failing || meetingForward != INodeStore.NONE) && now - primaryTimeoutTime >= 0)) {
+                    break;
+                }
+            }
+            if (bestMeeting <= openSet.lowestCost()) {
+                // same as forwards A* popping the goal, the backwards side can't rule anything out since it doesn't
+                // generate every predecessor
+                break;
+            }
+            if (slowPath) {
+                try {
+                    Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
+                } catch (InterruptedException ignored) {}
+            }
+            numNodes++;
+            if (!backwardOpenSet.isEmpty() && backwardOpenSet.size() < openSet.size()) {
+                int currentNode = backwardOpenSet.removeLowest();
+                int currentX = backwardNodes.getX(currentNode);
+                int currentY = backwardNodes.getY(currentNode);
+                int currentZ = backwardNodes.getZ(currentNode);
+                double currentCost = backwardNodes.getCost(currentNode);
+                double favor = isFavoring ? favoring.calculate(BetterBlockPos.longHash(currentX, currentY, currentZ)) : 1;
+                for (int m = 0; m < allMoves.length; m++) {
+                    Moves moves = allMoves[m];
+                    for (int i = 0; i < sourceCounts[m]; i++) { // none for a move that can't be searched backwards
+                        moves.source(calcContext, currentX, currentY, currentZ, i, src);
+                        if (src.y > 256 || src.y < 0) {
+                            continue;
+                        }
+                        if ((src.x >> 4 != currentX >> 4 || src.z >> 4 != currentZ >> 4) && !calcContext.isLoaded(src.x, src.z)) {
+                            continue;
+                        }
+                        if (!worldBorder.entirelyContains(src.x, src.z)) {
+                            continue;
+                        }
+                        res.reset();
+                        moves.apply(calcContext, src.x, src.y, src.z, res);
+                        numMovementsConsidered++;
+                        if (res.cost >= ActionCosts.COST_INF || res.x != currentX || res.y != currentY || res.z != currentZ) {
+                            continue;
+                        }
+                        if (res.cost <= 0 || Double.isNaN(res.cost)) {
+                            throw new IllegalStateException(moves + " calculated implausible cost " + res.cost);
+                        }
+                        long hashCode = BetterBlockPos.longHash(src.x, src.y, src.z);
+                        int neighbor = backwardNodes.getOrCreate(src.x, src.y, src.z, hashCode);
+                        double tentativeCost = currentCost + res.cost * favor;
+                        if (backwardNodes.getCost(neighbor) - tentativeCost > minimumImprovement) {
+                            backwardNodes.setPrevious(neighbor, currentNode);
+                            backwardNodes.setCost(neighbor, tentativeCost);
+                            backwardNodes.setCombinedCost(neighbor, tentativeCost + backwardNodes.getEstimatedCostToGoal(neighbor));
+                            if (backwardNodes.isOpen(neighbor)) {
+                                backwardOpenSet.update(neighbor);
+                            } else {
+                                backwardOpenSet.insert(neighbor);
+                            }
+                            int forward = nodes.get(hashCode);
+                            if (forward != INodeStore.NONE) {
+                                meet(forward, neighbor, nodes.getCost(forward) + tentativeCost);
+                            }
+                        }
+                    }
+                }
+                continue;
+            }
+            int currentNode = openSet.removeLowest();
+            mostRecentConsidered = currentNode;
+            int currentX = nodes.getX(currentNode);
+            int currentY = nodes.getY(currentNode);
+            int currentZ = nodes.getZ(currentNode);
+            double currentCost = nodes.getCost(currentNode);
+            for (Moves moves : allMoves) {
+                int newX = currentX + moves.xOffset;
+                int newZ = currentZ + moves.zOffset;
+                if ((newX >> 4 != currentX >> 4 || newZ >> 4 != currentZ >> 4) && !calcContext.isLoaded(newX, newZ)) {
+                    if (!moves.dynamicXZ) {
+                        numEmptyChunk++;
+                    }
+                    continue;
+                }
+                if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+                    continue;
+                }
+                if (currentY + moves.yOffset > 256 || currentY + moves.yOffset < 0) {
+                    continue;
+                }
+                res.reset();
+                moves.apply(calcContext, currentX, currentY, currentZ, res);
+                numMovementsConsidered++;
+                double actionCost = res.cost;
+                if (actionCost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                }
+                if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) {
+                    continue;
+                }
+                long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
+                if (isFavoring) {
+                    actionCost *= favoring.calculate(hashCode);
+                }
+                int neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
+                double tentativeCost = currentCost + actionCost;
+                if (nodes.getCost(neighbor) - tentativeCost > minimumImprovement) {
+                    double estimatedCostToGoal = nodes.getEstimatedCostToGoal(neighbor);
+                    nodes.setPrevious(neighbor, currentNode);
+                    nodes.setCost(neighbor, tentativeCost);
+                    nodes.setCombinedCost(neighbor, tentativeCost + estimatedCostToGoal);
+                    if (nodes.isOpen(neighbor)) {
+                        openSet.update(neighbor);
+                    } else {
+                        openSet.insert(neighbor);
+                    }
+                    int backward = backwardNodes.get(hashCode);
+                    if (backward != INodeStore.NONE) {
+                        meet(neighbor, backward, tentativeCost + backwardNodes.getCost(backward));
+                    }
+                    for (int i = 0; i < COEFFICIENTS.length; i++) {
+                        double heuristic = estimatedCostToGoal + tentativeCost / COEFFICIENTS[i];
+                        if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+                            bestHeuristicSoFar[i] = heuristic;
+                            bestSoFar[i] = neighbor;
+                            if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                                failing = false;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        numNodesExpanded = numNodes;
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        if (meetingForward != INodeStore.NONE) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered, met at " + nodes.getX(meetingForward) + "," + nodes.getY(meetingForward) + "," + nodes.getZ(meetingForward));
+            return Optional.of(meetingPath(numNodes));
+        }
+        logDebug("The two searches didn't meet, " + numMovementsConsidered + " movements considered, open set sizes " + openSet.size() + " forwards and " + backwardOpenSet.size() + " backwards, node store size " + mapSize());
+        Optional<IPath> result = bestSoFar(true, numNodes);
+        if (result.isPresent()) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+        }
+        return result;
+    }
+
+    private void meet(int forward, int backward, double cost) {
+        if (cost < bestMeeting) {
+            bestMeeting = cost;
+            meetingForward = forward;
+            meetingBackward = backward;
+        }
+    }
+
+    /**
+     * @return The path from the start to where the searches met, and from there on to the goal
+     */
+    private Path meetingPath(int numNodes) {
+        List<BetterBlockPos> positions = new ArrayList<>();
+        List<Double> costs = new ArrayList<>();
+        for (int node = meetingForward; node != INodeStore.NONE; node = nodes.getPrevious(node)) {
+            positions.add(new BetterBlockPos(nodes.getX(node), nodes.getY(node), nodes.getZ(node)));
+            costs.add(nodes.getCost(node));
+        }
+        Collections.reverse(positions);
+        Collections.reverse(costs);
+        double total = nodes.getCost(meetingForward) + backwardNodes.getCost(meetingBackward);
+        for (int node = backwardNodes.getPrevious(meetingBackward); node != INodeStore.NONE; node = backwardNodes.getPrevious(node)) {
+            positions.add(new BetterBlockPos(backwardNodes.getX(node), backwardNodes.getY(node), backwardNodes.getZ(node)));
+            costs.add(total - backwardNodes.getCost(node));
+        }
+        double[] costArray = new double[costs.size()];
+        for (int i = 0; i < costArray.length; i++) {
+            costArray[i] = costs.get(i);
+        }
+        return new Path(positions, costArray, numNodes, goal, calcContext);
+    }
+
+    @Override
+    protected int mapSize() {
+        return nodes.size() + backwardNodes.size();
+    }
+}
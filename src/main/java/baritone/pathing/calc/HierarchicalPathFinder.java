@@ -0,0 +1,190 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.pathing.calc.hierarchy.CachedPortals;
+import baritone.pathing.calc.hierarchy.ChunkPortals.Portal;
+import baritone.pathing.calc.hierarchy.PortalGraph;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hierarchical pathing for far away goals. First plans a route over chunk border portals from the cache (see
+ * {@link PortalGraph}), then runs {@link AStarPathFinder} only as far as a portal a little way along that route,
+ * staying inside the chunks the route goes through.
+ * <p>
+ * The path found is always a segment, the next one is planned from its end the same way until the goal is close
+ * enough for regular pathing.
+ */
+public final class HierarchicalPathFinder extends AbstractNodeCostSearch {
+
+    /**
+     * How many portals the coarse search may expand
+     */
+    private static final int MAX_PORTALS = 100000;
+
+    private final int targetX;
+    private final int targetZ;
+    private final Favoring favoring;
+    private final CalculationContext calcContext;
+    private final CachedPortals portals;
+
+    private volatile AStarPathFinder refinement;
+
+    public HierarchicalPathFinder(int startX, int startY, int startZ, Goal goal, BlockPos target, Favoring favoring, CalculationContext context, CachedPortals portals) {
+        // the nodes are all in the refinement search
+        super(startX, startY, startZ, goal, context);
+        this.targetX = target.getX();
+        this.targetZ = target.getZ();
+        this.favoring = favoring;
+        this.calcContext = context;
+        this.portals = portals;
+    }
+
+    /**
+     * @return Where the goal is, if it's somewhere specific enough to plan a route to, otherwise null
+     */
+    public static BlockPos targetOf(Goal goal) {
+        if (goal instanceof IGoalRenderPos) {
+            return ((IGoalRenderPos) goal).getGoalPos();
+        }
+        if (goal instanceof GoalXZ) {
+            return new BlockPos(((GoalXZ) goal).getX(), 0, ((GoalXZ) goal).getZ());
+        }
+        return null;
+    }
+
+    @Override
+    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        long startTime = System.currentTimeMillis();
+        portals.setWorld(calcContext.worldData.cache);
+        List<Portal> route = new PortalGraph(portals).search(startX, startY, startZ, targetX, targetZ, MAX_PORTALS, startTime + primaryTimeout / 2);
+        Goal waypoint = null;
+        AStarPathFinder refinement;
+        if (route == null || route.isEmpty()) {
+            logDebug(route == null ? "Nothing is cached around the start, not planning a route" : "Already in the chunk of the goal");
+            refinement = new AStarPathFinder(startX, startY, startZ, goal, favoring, calcContext);
+        } else {
+            int end = waypointIndex(route, Baritone.settings().hierarchicalPathingSegmentLength.value);
+            Portal portal = route.get(end);
+            waypoint = new GoalBlock(portal.x, portal.y, portal.z);
+            logDebug("Planned a route through " + route.size() + " chunk portals in " + (System.currentTimeMillis() - startTime) + "ms, pathing to " + portal);
+            refinement = new AStarPathFinder(startX, startY, startZ, waypoint, favoring, calcContext, null, corridor(route, end));
+        }
+        this.refinement = refinement;
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        Optional<IPath> result = refinement.calculate0(primaryTimeout - elapsed, failureTimeout - elapsed);
+        numNodesExpanded = refinement.getNumNodesExpanded();
+        elapsed = System.currentTimeMillis() - startTime;
+        if (!result.isPresent() && waypoint != null && !cancelRequested && elapsed < failureTimeout) {
+            // the cache was wrong about the route, or it's out of date
+            logDebug("Couldn't get anywhere inside the planned route, pathing without it");
+            waypoint = null;
+            refinement = new AStarPathFinder(startX, startY, startZ, goal, favoring, calcContext);
+            this.refinement = refinement;
+            result = refinement.calculate0(failureTimeout - elapsed, failureTimeout - elapsed);
+            numNodesExpanded += refinement.getNumNodesExpanded();
+        }
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        if (waypoint != null) {
+            // the path was searched towards the waypoint, but it's on the way to the real goal
+            return result.map(path -> new Path((Path) path, goal));
+        }
+        return result;
+    }
+
+    /**
+     * @return The index of the first portal at least the specified distance away from the start, or the last one
+     */
+    private int waypointIndex(List<Portal> route, int segmentLength) {
+        for (int i = 0; i < route.size(); i++) {
+            Portal portal = route.get(i);
+            int dx = portal.x - startX;
+            int dz = portal.z - startZ;
+            if (dx * dx + dz * dz >= segmentLength * segmentLength) {
+                return i;
+            }
+        }
+        return route.size() - 1;
+    }
+
+    /**
+     * @return Every chunk that the route goes through up to the waypoint, and the ones around them
+     */
+    private LongOpenHashSet corridor(List<Portal> route, int end) {
+        LongOpenHashSet corridor = new LongOpenHashSet();
+        addWithNeighbors(corridor, startX >> 4, startZ >> 4);
+        for (int i = 0; i <= end; i++) {
+            Portal portal = route.get(i);
+            addWithNeighbors(corridor, portal.chunk.chunkX, portal.chunk.chunkZ);
+        }
+        return corridor;
+    }
+
+    private static void addWithNeighbors(LongOpenHashSet corridor, int chunkX, int chunkZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                corridor.add(ChunkPos.asLong(chunkX + dx, chunkZ + dz));
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        AStarPathFinder refinement = this.refinement;
+        if (refinement != null) {
+            refinement.cancel();
+        }
+    }
+
+    @Override
+    public Optional<IPath> bestPathSoFar() {
+        AStarPathFinder refinement = this.refinement;
+        return refinement == null || isFinished() ? Optional.empty() : refinement.bestPathSoFar();
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        AStarPathFinder refinement = this.refinement;
+        return refinement == null || isFinished() ? Optional.empty() : refinement.pathToMostRecentNodeConsidered();
+    }
+
+    @Override
+    protected int mapSize() {
+        AStarPathFinder refinement = this.refinement;
+        return refinement == null ? 0 : refinement.mapSize();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+
+/**
+ * Storage for the nodes of a graph search. Nodes are referred to by int handles rather than by object, so that an
+ * implementation is free to keep them in primitive arrays instead of allocating one object per visited position.
+ * <p>
+ * Handles are dense, starting at 0, and stay valid until the store is reset or trimmed.
+ */
+public interface INodeStore {
+
+    /**
+     * The handle used for "no node", e.g. the previous node of the start node
+     */
+    int NONE = -1;
+
+    /**
+     * Returns the node at the specified position, creating it if it doesn't exist yet. A newly created node has a
+     * cost of {@link baritone.api.pathing.movement.ActionCosts#COST_INF}, no previous node and is not in the open set.
+     *
+     * @param x        The x position of the node
+     * @param y        The y position of the node
+     * @param z        The z position of the node
+     * @param hashCode The hash code of the node, provided by {@link BetterBlockPos#longHash(int, int, int)}
+     * @return The handle of the associated node
+     */
+    int getOrCreate(int x, int y, int z, long hashCode);
+
+    /**
+     * Returns the node at the specified position if there is one, without creating it.
+     *
+     * @param hashCode The hash code of the node, provided by {@link BetterBlockPos#longHash(int, int, int)}
+     * @return The handle of the associated node, or {@link #NONE}
+     */
+    int get(long hashCode);
+
+    /**
+     * @return The number of nodes in this store
+     */
+    int size();
+
+    /**
+     * Removes every node, so that the store can be reused for another search
+     *
+     * @param goal The goal whose heuristic is cached in nodes created from now on
+     */
+    void reset(Goal goal);
+
+    /**
+     * Removes every node, and releases whatever memory was held for more than the specified number of nodes
+     *
+     * @param capacity The number of nodes worth of memory to keep around
+     */
+    void trim(int capacity);
+
+    int getX(int node);
+
+    int getY(int node);
+
+    int getZ(int node);
+
+    /**
+     * Cached, should always be equal to goal.heuristic(pos)
+     */
+    double getEstimatedCostToGoal(int node);
+
+    /**
+     * Total cost of getting from start to here
+     */
+    double getCost(int node);
+
+    void setCost(int node, double cost);
+
+    /**
+     * Should always be equal to estimatedCostToGoal + cost
+     */
+    double getCombinedCost(int node);
+
+    void setCombinedCost(int node, double combinedCost);
+
+    /**
+     * In the graph search, what previous node contributed to the cost, or {@link #NONE}
+     */
+    int getPrevious(int node);
+
+    void setPrevious(int node, int previous);
+
+    /**
+     * Where is this node in the array flattenization of the binary heap? Needed for decrease-key operations.
+     */
+    int getHeapPosition(int node);
+
+    void setHeapPosition(int node, int heapPosition);
+
+    default boolean isOpen(int node) {
+        return getHeapPosition(node) != -1;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+
+import java.util.Optional;
+
+/**
+ * Lifelong Planning A*, which repairs the search graph left behind by the previous calculation towards the same goal
+ * instead of starting from nothing. See {@link IncrementalSearchGraph} for what is kept between calculations.
+ * <p>
+ * On a fresh graph this is just A* with some extra bookkeeping, it only pays off once there's something to reuse.
+ */
+public final class IncrementalPathFinder extends AbstractNodeCostSearch {
+
+    private final IncrementalSearchGraph graph;
+    private final Favoring favoring;
+    private final CalculationContext calcContext;
+
+    /**
+     * @param graph The graph to repair, which the caller must have {@link IncrementalSearchGraph#acquire() acquired}.
+     *              It's released once this is calculated.
+     */
+    public IncrementalPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, IncrementalSearchGraph graph) {
+        super(startX, startY, startZ, goal, context, graph, graph.getOpenSet());
+        this.graph = graph;
+        this.favoring = favoring;
+        this.calcContext = context;
+    }
+
+    @Override
+    public synchronized PathCalculationResult calculate(long primaryTimeout, long failureTimeout) {
+        try {
+            return super.calculate(primaryTimeout, failureTimeout);
+        } finally {
+            graph.release();
+        }
+    }
+
+    @Override
+    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        IncrementalSearchGraph graph = this.graph;
+        BinaryHeapOpenSet openSet = this.openSet;
+        MutableMoveResult res = new MutableMoveResult();
+        long startTime = System.currentTimeMillis();
+        boolean reused = graph.prepare(startX, startY, startZ, goal, favoring, calcContext, Baritone.settings().incrementalPathingMaxNodes.value, res);
+        startNode = graph.getStartNode();
+        if (reused) {
+            logDebug("Repairing the previous search graph of " + graph.size() + " nodes, " + graph.getRecalculated() + " of them changed, took " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];
+        for (int i = 0; i < bestHeuristicSoFar.length; i++) {
+            bestHeuristicSoFar[i] = graph.getEstimatedCostToGoal(startNode);
+            bestSoFar[i] = startNode;
+        }
+        boolean slowPath = Baritone.settings().slowPath.value;
+        if (slowPath) {
+            logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
+        }
+        long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+        long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+        boolean failing = true;
+        int numNodes = 0;
+        int numEmptyChunk = 0;
+        int timeCheckInterval = 1 << 6;
+        int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value;
+        double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+        int bestGoal = reused ? graph.bestSettledGoal() : INodeStore.NONE;
+        while (numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
+            if ((numNodes & (timeCheckInterval - 1)) == 0) {
+                long now = System.currentTimeMillis();
+                if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
+                    break;
+                }
+            }
+            if (bestGoal != INodeStore.NONE && !graph.isSettled(bestGoal)) {
+                // the path to it got worse, some other goal node might be better now
+                bestGoal = graph.bestSettledGoal();
+            }
+            if (openSet.isEmpty() || (bestGoal != INodeStore.NONE && graph.key(bestGoal) <= openSet.lowestCost())) {
+                // nothing left in the open set could make for a cheaper path to the goal
+                break;
+            }
+            if (slowPath) {
+                try {
+                    Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
+                } catch (InterruptedException ignored) {}
+            }
+            int currentNode = openSet.removeLowest();
+            mostRecentConsidered = currentNode;
+            numNodes++;
+            if (graph.getCost(currentNode) < graph.getRhs(currentNode)) {
+                // underconsistent, something it depended on got more expensive
+                graph.raise(currentNode);
+                continue;
+            }
+            int currentX = graph.getX(currentNode);
+            int currentY = graph.getY(currentNode);
+            int currentZ = graph.getZ(currentNode);
+            boolean inGoal = goal.isInGoal(currentX, currentY, currentZ);
+            if (!inGoal && !graph.isExpanded(currentNode)) {
+                numEmptyChunk += graph.expand(currentNode, calcContext, res);
+            }
+            graph.settle(currentNode);
+            if (inGoal) {
+                bestGoal = currentNode;
+                break;
+            }
+            double currentCost = graph.getCost(currentNode);
+            double estimatedCostToGoal = graph.getEstimatedCostToGoal(currentNode);
+            for (int i = 0; i < COEFFICIENTS.length; i++) {
+                double heuristic = estimatedCostToGoal + currentCost / COEFFICIENTS[i];
+                if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+                    bestHeuristicSoFar[i] = heuristic;
+                    bestSoFar[i] = currentNode;
+                    if (failing && getDistFromStartSq(currentNode) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                        failing = false;
+                    }
+                }
+            }
+        }
+        numNodesExpanded = numNodes;
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        if (bestGoal != INodeStore.NONE && graph.isSettled(bestGoal)
+                && (openSet.isEmpty() || graph.key(bestGoal) <= openSet.lowestCost())
+                && graph.reachesStart(bestGoal)) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + graph.getMovementsConsidered() + " movements considered");
+            return Optional.of(new Path(graph, startNode, bestGoal, numNodes, goal, calcContext));
+        }
+        logDebug("Didn't settle the goal, " + graph.getMovementsConsidered() + " movements considered, open set size " + openSet.size() + ", node store size " + mapSize());
+        for (int i = 0; i < bestSoFar.length; i++) {
+            if (!graph.reachesStart(bestSoFar[i])) {
+                bestSoFar[i] = INodeStore.NONE;
+            }
+        }
+        Optional<IPath> result = bestSoFar(true, numNodes);
+        if (result.isPresent()) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + graph.getMovementsConsidered() + " movements considered");
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<IPath> bestPathSoFar() {
+        // the graph is only safe to read from the thread repairing it, and previous nodes are in flux during a repair
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,793 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The search graph of an incremental search (Lifelong Planning A*), kept from one path calculation to the next as long
+ * as the goal stays the same, so that a replan only has to repair the part of the graph that actually changed.
+ * <p>
+ * Every expanded node remembers the movements out of it and what they cost. When blocks change, only the movements
+ * that start near them are calculated again, everything else is taken from the graph without touching the world.
+ * Costs are then propagated from wherever the search starts this time, which only needs the cached movements.
+ * <p>
+ * The cost of a node is its g value, the best known cost from the start. Each node also has an rhs value, the cost
+ * through its best predecessor, and is in the open set while the two disagree. The combined cost is the LPA* key,
+ * min(g, rhs) + heuristic.
+ * <p>
+ * Only the thread that {@link #acquire() acquired} the graph may touch it, changes from other threads go through
+ * {@link #onBlockChange(int, int, int)}, {@link #onChunkLoad(int, int)} and {@link #clear()}.
+ */
+public final class IncrementalSearchGraph implements INodeStore {
+
+    /**
+     * How far a movement can reach horizontally from where it starts, parkour being the longest, plus the blocks
+     * around its destination that it checks
+     */
+    private static final int MAX_REACH = 5;
+
+    /**
+     * How far above where a movement starts it can check blocks, e.g. for falling blocks over the head when ascending
+     */
+    private static final int MAX_HEADROOM = 3;
+
+    /**
+     * How many changed regions to remember between calculations before giving up and starting over
+     */
+    private static final int MAX_PENDING_CHANGES = 4096;
+
+    private static final Moves[] ALL_MOVES = Moves.values();
+
+    /**
+     * States of a node while working out whether the new start is one of its ancestors, see {@link #rebase(int)}
+     */
+    private static final byte UNKNOWN = 0;
+    private static final byte VISITING = 1;
+    private static final byte IN_SUBTREE = 2;
+    private static final byte OUT_OF_SUBTREE = 3;
+
+    private Goal goal;
+
+    private int size;
+
+    private int[] x;
+    private int[] y;
+    private int[] z;
+    private double[] estimatedCostToGoal;
+    private double[] cost;
+    private double[] rhs;
+    private double[] combinedCost;
+    private int[] previous;
+    private int[] heapPosition;
+
+    /**
+     * The favoring multiplier of moving into each node, see {@link Favoring}
+     */
+    private double[] favor;
+
+    /**
+     * The destination of each movement out of a node, or null if the node hasn't been expanded
+     */
+    private int[][] successors;
+
+    /**
+     * The cost of each movement in {@link #successors}, before favoring
+     */
+    private double[][] successorCosts;
+
+    private int[][] predecessors;
+    private int[] predecessorCounts;
+
+    /**
+     * Whether some movement out of a node was skipped because its destination wasn't loaded
+     */
+    private boolean[] incomplete;
+
+    private final Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+
+    private final BinaryHeapOpenSet openSet = new BinaryHeapOpenSet(this);
+
+    private int startNode = NONE;
+
+    /**
+     * The context that the cached movement costs were calculated with
+     */
+    private CalculationContext context;
+
+    private Favoring favoring;
+
+    private final Queue<Region> changes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+
+    private volatile boolean invalidated;
+
+    private final AtomicBoolean inUse = new AtomicBoolean();
+
+    private int movementsConsidered;
+
+    private int recalculated;
+
+    public IncrementalSearchGraph() {
+        map.defaultReturnValue(NONE);
+        allocate(1024);
+    }
+
+    /**
+     * Takes exclusive ownership of this graph, like {@link SearchArena#acquire(Goal)}. A search that was cancelled
+     * keeps running until it notices, and holds on to the graph until then.
+     *
+     * @return Whether the graph was free. If it was, {@link #release()} must be called once done with it.
+     */
+    public boolean acquire() {
+        return inUse.compareAndSet(false, true);
+    }
+
+    /**
+     * Gives up ownership of this graph
+     */
+    public void release() {
+        inUse.set(false);
+    }
+
+    private void allocate(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        z = new int[capacity];
+        estimatedCostToGoal = new double[capacity];
+        cost = new double[capacity];
+        rhs = new double[capacity];
+        combinedCost = new double[capacity];
+        previous = new int[capacity];
+        heapPosition = new int[capacity];
+        favor = new double[capacity];
+        successors = new int[capacity][];
+        successorCosts = new double[capacity][];
+        predecessors = new int[capacity][];
+        predecessorCounts = new int[capacity];
+        incomplete = new boolean[capacity];
+    }
+
+    private void grow() {
+        int capacity = x.length << 1;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        estimatedCostToGoal = Arrays.copyOf(estimatedCostToGoal, capacity);
+        cost = Arrays.copyOf(cost, capacity);
+        rhs = Arrays.copyOf(rhs, capacity);
+        combinedCost = Arrays.copyOf(combinedCost, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        heapPosition = Arrays.copyOf(heapPosition, capacity);
+        favor = Arrays.copyOf(favor, capacity);
+        successors = Arrays.copyOf(successors, capacity);
+        successorCosts = Arrays.copyOf(successorCosts, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        predecessorCounts = Arrays.copyOf(predecessorCounts, capacity);
+        incomplete = Arrays.copyOf(incomplete, capacity);
+    }
+
+    /**
+     * Records that a block changed, so that the movements around it are calculated again before the next search.
+     * Safe to call from any thread.
+     */
+    public void onBlockChange(int x, int y, int z) {
+        queue(new Region(x, y, z, x, z));
+    }
+
+    /**
+     * Records that a chunk was loaded, since the movements in it might have been calculated from the cache. Safe to
+     * call from any thread.
+     */
+    public void onChunkLoad(int chunkX, int chunkZ) {
+        queue(new Region(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15));
+    }
+
+    /**
+     * Throws away the whole graph before the next search. Safe to call from any thread.
+     */
+    public void clear() {
+        invalidated = true;
+    }
+
+    private void queue(Region region) {
+        if (invalidated) {
+            return;
+        }
+        if (pendingChanges.incrementAndGet() > MAX_PENDING_CHANGES) {
+            // so much changed that repairing isn't worth it
+            invalidated = true;
+            return;
+        }
+        changes.add(region);
+    }
+
+    /**
+     * Gets the graph ready for a search from the specified start. If the previous search was towards the same goal with
+     * the same rules and reached the start, the graph is repaired and reused, otherwise it's thrown away.
+     *
+     * @return Whether the previous graph was reused
+     */
+    boolean prepare(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, int maxNodes, MutableMoveResult res) {
+        movementsConsidered = 0;
+        recalculated = 0;
+        this.favoring = favoring;
+        long startHash = BetterBlockPos.longHash(startX, startY, startZ);
+        int start = map.get(startHash);
+        boolean reuse = !invalidated
+                && size <= maxNodes
+                && goal.equals(this.goal)
+                && sameRules(this.context, context)
+                && start != NONE
+                && cost[start] < ActionCosts.COST_INF;
+        this.context = context;
+        if (!reuse) {
+            reset(goal);
+            startNode = getOrCreate(startX, startY, startZ, startHash);
+            rhs[startNode] = 0;
+            combinedCost[startNode] = estimatedCostToGoal[startNode];
+            openSet.insert(startNode);
+            return false;
+        }
+        applyChanges(res);
+        rebase(start);
+        return true;
+    }
+
+    /**
+     * Calculates the movements out of every node near a change again
+     */
+    private void applyChanges(MutableMoveResult res) {
+        List<Region> regions = new ArrayList<>();
+        Region region;
+        while ((region = changes.poll()) != null) {
+            regions.add(region);
+            pendingChanges.decrementAndGet();
+        }
+        int minX = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (Region r : regions) {
+            minX = Math.min(minX, r.minX - MAX_REACH);
+            minZ = Math.min(minZ, r.minZ - MAX_REACH);
+            maxX = Math.max(maxX, r.maxX + MAX_REACH);
+            maxZ = Math.max(maxZ, r.maxZ + MAX_REACH);
+        }
+        for (int node = 0; node < size; node++) {
+            if (successors[node] == null) {
+                continue;
+            }
+            boolean dirty = incomplete[node];
+            int nodeX = x[node];
+            int nodeZ = z[node];
+            if (!dirty && nodeX >= minX && nodeX <= maxX && nodeZ >= minZ && nodeZ <= maxZ) {
+                for (Region r : regions) {
+                    if (r.affects(nodeX, y[node], nodeZ)) {
+                        dirty = true;
+                        break;
+                    }
+                }
+            }
+            if (dirty) {
+                unexpand(node);
+                expand(node, context, res);
+                recalculated++;
+            }
+        }
+    }
+
+    /**
+     * Moves the start of the search, keeping what's known about everything reached through the new start and forgetting
+     * everything else, then puts every node whose rhs no longer matches its cost back in the open set
+     */
+    private void rebase(int newStart) {
+        double offset = cost[newStart];
+        byte[] subtree = new byte[size];
+        subtree[newStart] = IN_SUBTREE;
+        IntArrayList chain = new IntArrayList();
+        for (int node = 0; node < size; node++) {
+            int current = node;
+            while (current != NONE && subtree[current] == UNKNOWN) {
+                subtree[current] = VISITING;
+                chain.add(current);
+                current = previous[current];
+            }
+            // a cycle can only come from a node whose rhs was out of date anyway
+            byte result = current != NONE && subtree[current] == IN_SUBTREE ? IN_SUBTREE : OUT_OF_SUBTREE;
+            for (int i = 0; i < chain.size(); i++) {
+                subtree[chain.getInt(i)] = result;
+            }
+            chain.clear();
+        }
+        boolean isFavoring = !favoring.isEmpty();
+        for (int node = 0; node < size; node++) {
+            if (subtree[node] == IN_SUBTREE && cost[node] < ActionCosts.COST_INF) {
+                // the rest of a shortest path is still a shortest path from wherever it's picked up
+                cost[node] -= offset;
+            } else {
+                cost[node] = ActionCosts.COST_INF;
+            }
+            favor[node] = isFavoring ? favoring.calculate(BetterBlockPos.longHash(x[node], y[node], z[node])) : 1;
+            heapPosition[node] = -1;
+        }
+        openSet.clear();
+        startNode = newStart;
+        previous[newStart] = NONE;
+        rhs[newStart] = 0;
+        for (int node = 0; node < size; node++) {
+            updateVertex(node);
+        }
+    }
+
+    /**
+     * Calculates every movement out of a node, the same way {@link AStarPathFinder} does
+     *
+     * @return How many movements were skipped because they would have gone into an unloaded chunk
+     */
+    int expand(int node, CalculationContext context, MutableMoveResult res) {
+        int currentX = x[node];
+        int currentY = y[node];
+        int currentZ = z[node];
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int[] targets = new int[ALL_MOVES.length];
+        double[] costs = new double[ALL_MOVES.length];
+        int count = 0;
+        int numEmptyChunk = 0;
+        boolean skipped = false;
+        for (Moves moves : ALL_MOVES) {
+            int newX = currentX + moves.xOffset;
+            int newZ = currentZ + moves.zOffset;
+            if ((newX >> 4 != currentX >> 4 || newZ >> 4 != currentZ >> 4) && !context.isLoaded(newX, newZ)) {
+                if (!moves.dynamicXZ) {
+                    numEmptyChunk++;
+                }
+                skipped = true;
+                continue;
+            }
+            if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+                continue;
+            }
+            if (currentY + moves.yOffset > 256 || currentY + moves.yOffset < 0) {
+                continue;
+            }
+            res.reset();
+            moves.apply(context, currentX, currentY, currentZ, res);
+            movementsConsidered++;
+            double actionCost = res.cost;
+            if (actionCost >= ActionCosts.COST_INF) {
+                continue;
+            }
+            if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+            }
+            if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) {
+                continue;
+            }
+            if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
+                throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
+            }
+            if (!moves.dynamicY && res.y != currentY + moves.yOffset) {
+                throw new IllegalStateException(moves + " " + res.y + " " + (currentY + moves.yOffset));
+            }
+            int target = getOrCreate(res.x, res.y, res.z, BetterBlockPos.longHash(res.x, res.y, res.z));
+            int existing = indexOf(targets, count, target);
+            if (existing == -1) {
+                targets[count] = target;
+                costs[count] = actionCost;
+                count++;
+            } else if (actionCost < costs[existing]) {
+                // only the cheapest way to get there matters
+                costs[existing] = actionCost;
+            }
+        }
+        successors[node] = Arrays.copyOf(targets, count);
+        successorCosts[node] = Arrays.copyOf(costs, count);
+        for (int i = 0; i < count; i++) {
+            addPredecessor(targets[i], node);
+        }
+        incomplete[node] = skipped;
+        return numEmptyChunk;
+    }
+
+    private void unexpand(int node) {
+        int[] targets = successors[node];
+        for (int target : targets) {
+            removePredecessor(target, node);
+        }
+        successors[node] = null;
+        successorCosts[node] = null;
+        incomplete[node] = false;
+    }
+
+    private static int indexOf(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addPredecessor(int node, int predecessor) {
+        int[] preds = predecessors[node];
+        int count = predecessorCounts[node];
+        if (preds == null) {
+            preds = predecessors[node] = new int[4];
+        } else if (count == preds.length) {
+            preds = predecessors[node] = Arrays.copyOf(preds, count << 1);
+        }
+        preds[count] = predecessor;
+        predecessorCounts[node] = count + 1;
+    }
+
+    private void removePredecessor(int node, int predecessor) {
+        int[] preds = predecessors[node];
+        int count = predecessorCounts[node];
+        int i = indexOf(preds, count, predecessor);
+        if (i != -1) {
+            preds[i] = preds[count - 1];
+            predecessorCounts[node] = count - 1;
+        }
+    }
+
+    /**
+     * Recalculates the rhs of a node from its predecessors, and puts it in the open set if and only if it's now
+     * inconsistent
+     */
+    void updateVertex(int node) {
+        if (node != startNode) {
+            double best = ActionCosts.COST_INF;
+            int parent = NONE;
+            int[] preds = predecessors[node];
+            for (int i = predecessorCounts[node] - 1; i >= 0; i--) {
+                int pred = preds[i];
+                double predCost = cost[pred];
+                if (predCost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                double through = predCost + movementCost(pred, node) * favor[node];
+                if (through < best) {
+                    best = through;
+                    parent = pred;
+                }
+            }
+            rhs[node] = best;
+            previous[node] = parent;
+        }
+        if (heapPosition[node] != -1) {
+            openSet.remove(node);
+        }
+        if (!isConsistent(node)) {
+            combinedCost[node] = key(node);
+            openSet.insert(node);
+        }
+    }
+
+    private double movementCost(int from, int to) {
+        return successorCosts[from][indexOf(successors[from], successors[from].length, to)];
+    }
+
+    void updateSuccessors(int node) {
+        int[] targets = successors[node];
+        if (targets == null) {
+            return;
+        }
+        for (int target : targets) {
+            updateVertex(target);
+        }
+    }
+
+    /**
+     * Makes an overconsistent node consistent, its cost drops to its rhs
+     */
+    void settle(int node) {
+        cost[node] = rhs[node];
+        updateSuccessors(node);
+    }
+
+    /**
+     * Makes an underconsistent node overconsistent or consistent, by forgetting its cost
+     */
+    void raise(int node) {
+        cost[node] = ActionCosts.COST_INF;
+        updateVertex(node);
+        updateSuccessors(node);
+    }
+
+    boolean isExpanded(int node) {
+        return successors[node] != null;
+    }
+
+    boolean isSettled(int node) {
+        return isConsistent(node) && cost[node] < ActionCosts.COST_INF;
+    }
+
+    /**
+     * Whether a node's cost matches its rhs. Not exactly, since {@link #rebase(int)} subtracts from the costs, which
+     * rounds differently than adding the movement costs up again from the new start does.
+     */
+    private boolean isConsistent(int node) {
+        return Math.abs(cost[node] - rhs[node]) <= AbstractNodeCostSearch.MIN_IMPROVEMENT;
+    }
+
+    double key(int node) {
+        return Math.min(cost[node], rhs[node]) + estimatedCostToGoal[node];
+    }
+
+    double getRhs(int node) {
+        return rhs[node];
+    }
+
+    /**
+     * @return The settled node in the goal with the lowest key, or {@link #NONE}
+     */
+    int bestSettledGoal() {
+        int best = NONE;
+        double bestKey = ActionCosts.COST_INF;
+        for (int node = 0; node < size; node++) {
+            if (isSettled(node) && goal.isInGoal(x[node], y[node], z[node]) && key(node) < bestKey) {
+                best = node;
+                bestKey = key(node);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Whether following the previous nodes from here reaches the start, with every node on the way settled
+     */
+    boolean reachesStart(int node) {
+        for (int steps = 0; node != NONE && steps <= size; steps++) {
+            if (!isSettled(node)) {
+                return false;
+            }
+            if (node == startNode) {
+                return true;
+            }
+            node = previous[node];
+        }
+        return false;
+    }
+
+    int getStartNode() {
+        return startNode;
+    }
+
+    BinaryHeapOpenSet getOpenSet() {
+        return openSet;
+    }
+
+    int getMovementsConsidered() {
+        return movementsConsidered;
+    }
+
+    /**
+     * @return How many nodes had their movements calculated again because of changes, in the last prepare
+     */
+    int getRecalculated() {
+        return recalculated;
+    }
+
+    /**
+     * @return Whether both contexts would calculate the same cost for every movement, given the same blocks
+     */
+    private static boolean sameRules(CalculationContext a, CalculationContext b) {
+        return a != null
+                && a.world == b.world
+                && a.worldData == b.worldData
+                && a.getClass() == b.getClass()
+                && a.hasWaterBucket == b.hasWaterBucket
+                && a.hasThrowaway == b.hasThrowaway
+                && a.canSprint == b.canSprint
+                && a.allowBreak == b.allowBreak
+                && a.allowBreakAnyway.equals(b.allowBreakAnyway)
+                && a.allowParkour == b.allowParkour
+                && a.allowParkourPlace == b.allowParkourPlace
+                && a.allowJumpAt256 == b.allowJumpAt256
+                && a.allowParkourAscend == b.allowParkourAscend
+                && a.assumeWalkOnWater == b.assumeWalkOnWater
+                && a.allowFallIntoLava == b.allowFallIntoLava
+                && a.frostWalker == b.frostWalker
+                && a.allowDiagonalDescend == b.allowDiagonalDescend
+                && a.allowDiagonalAscend == b.allowDiagonalAscend
+                && a.allowDownward == b.allowDownward
+                && a.minFallHeight == b.minFallHeight
+                && a.maxFallHeightNoWater == b.maxFallHeightNoWater
+                && a.maxFallHeightBucket == b.maxFallHeightBucket
+                && a.waterWalkSpeed == b.waterWalkSpeed
+                && a.breakBlockAdditionalCost == b.breakBlockAdditionalCost
+                && a.jumpPenalty == b.jumpPenalty
+                && a.walkOnWaterOnePenalty == b.walkOnWaterOnePenalty;
+    }
+
+    @Override
+    public int get(long hashCode) {
+        return map.get(hashCode);
+    }
+
+    @Override
+    public int getOrCreate(int x, int y, int z, long hashCode) {
+        int node = map.get(hashCode);
+        if (node != NONE) {
+            return node;
+        }
+        double heuristic = goal.heuristic(x, y, z);
+        if (Double.isNaN(heuristic)) {
+            throw new IllegalStateException(goal + " calculated implausible heuristic");
+        }
+        node = size;
+        if (node == this.x.length) {
+            grow();
+        }
+        this.x[node] = x;
+        this.y[node] = y;
+        this.z[node] = z;
+        estimatedCostToGoal[node] = heuristic;
+        cost[node] = ActionCosts.COST_INF;
+        rhs[node] = ActionCosts.COST_INF;
+        previous[node] = NONE;
+        heapPosition[node] = -1;
+        favor[node] = favoring == null || favoring.isEmpty() ? 1 : favoring.calculate(hashCode);
+        successors[node] = null;
+        successorCosts[node] = null;
+        predecessors[node] = null;
+        predecessorCounts[node] = 0;
+        incomplete[node] = false;
+        map.put(hashCode, node);
+        size++;
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void reset(Goal goal) {
+        this.goal = goal;
+        // drop the references so that the old edges can be collected
+        Arrays.fill(successors, 0, size, null);
+        Arrays.fill(successorCosts, 0, size, null);
+        Arrays.fill(predecessors, 0, size, null);
+        map.clear();
+        openSet.clear();
+        size = 0;
+        startNode = NONE;
+        changes.clear();
+        pendingChanges.set(0);
+        invalidated = false;
+    }
+
+    @Override
+    public void trim(int capacity) {
+        reset(goal);
+        if (capacity < x.length >> 1) {
+            allocate(Math.max(1024, Integer.highestOneBit(capacity) << 1));
+            map.trim();
+            openSet.trim(capacity);
+        }
+    }
+
+    @Override
+    public int getX(int node) {
+        return x[node];
+    }
+
+    @Override
+    public int getY(int node) {
+        return y[node];
+    }
+
+    @Override
+    public int getZ(int node) {
+        return z[node];
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(int node) {
+        return estimatedCostToGoal[node];
+    }
+
+    @Override
+    public double getCost(int node) {
+        return cost[node];
+    }
+
+    @Override
+    public void setCost(int node, double cost) {
+        this.cost[node] = cost;
+    }
+
+    @Override
+    public double getCombinedCost(int node) {
+        return combinedCost[node];
+    }
+
+    @Override
+    public void setCombinedCost(int node, double combinedCost) {
+        this.combinedCost[node] = combinedCost;
+    }
+
+    @Override
+    public int getPrevious(int node) {
+        return previous[node];
+    }
+
+    @Override
+    public void setPrevious(int node, int previous) {
+        this.previous[node] = previous;
+    }
+
+    @Override
+    public int getHeapPosition(int node) {
+        return heapPosition[node];
+    }
+
+    @Override
+    public void setHeapPosition(int node, int heapPosition) {
+        this.heapPosition[node] = heapPosition;
+    }
+
+    /**
+     * An area where blocks changed. Movements are affected if they start close enough horizontally to reach into it,
+     * and no more than {@link #MAX_HEADROOM} below it, since they can fall any distance onto it.
+     */
+    private static final class Region {
+
+        final int minX;
+        final int minY;
+        final int minZ;
+        final int maxX;
+        final int maxZ;
+
+        Region(int minX, int minY, int minZ, int maxX, int maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
+        }
+
+        boolean affects(int x, int y, int z) {
+            return x >= minX - MAX_REACH && x <= maxX + MAX_REACH
+                    && z >= minZ - MAX_REACH && z <= maxZ + MAX_REACH
+                    && y >= minY - MAX_HEADROOM;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.pathing.precompute.PrecomputedData;
+import baritone.utils.BlockStateInterface;
+
+/**
+ * Which moves out of a node could possibly have a cost, as a bitmask of {@link Moves#ordinal()}, worked out from the
+ * blocks right around it before dispatching to any of them. The checks here are the same ones the moves start with,
+ * so a move only gets left out when it would have returned {@link baritone.api.pathing.movement.ActionCosts#COST_INF}
+ * straight away, and the search ends up exactly the same.
+ * <p>
+ * Only the cheap, common ways of failing are covered: diagonals into a wall, parkour where the next block over is
+ * solid or could just be walked onto, and going down onto nothing. Everything else is always a candidate.
+ */
+final class MoveCandidates {
+
+    /**
+     * Every move
+     */
+    static final int ALL = (1 << Moves.values().length) - 1;
+
+    private static final int DOWNWARD = 1 << Moves.DOWNWARD.ordinal();
+
+    private static final Moves[] DIAGONALS = {Moves.DIAGONAL_NORTHEAST, Moves.DIAGONAL_NORTHWEST, Moves.DIAGONAL_SOUTHEAST, Moves.DIAGONAL_SOUTHWEST};
+
+    private static final Moves[] PARKOURS = {Moves.PARKOUR_NORTH, Moves.PARKOUR_SOUTH, Moves.PARKOUR_EAST, Moves.PARKOUR_WEST};
+
+    private static final int ALL_PARKOUR = bits(PARKOURS);
+
+    private MoveCandidates() {}
+
+    private static int bits(Moves[] moves) {
+        int bits = 0;
+        for (Moves move : moves) {
+            bits |= 1 << move.ordinal();
+        }
+        return bits;
+    }
+
+    /**
+     * @return The moves out of this position that could have a cost, one bit per {@link Moves#ordinal()}
+     */
+    static int of(CalculationContext context, int x, int y, int z) {
+        PrecomputedData data = context.precomputedData;
+        BlockStateInterface bsi = context.bsi;
+        int candidates = ALL;
+        // MovementDownward
+        if (!context.allowDownward || !data.canWalkOn(bsi, x, y - 2, z)) {
+            candidates &= ~DOWNWARD;
+        }
+        // MovementDiagonal, whatever else it does, needs head room at the destination
+        for (Moves diagonal : DIAGONALS) {
+            int destX = x + diagonal.xOffset;
+            int destZ = z + diagonal.zOffset;
+            if (destX >> 4 != x >> 4 || destZ >> 4 != z >> 4) {
+                // the search counts it towards pathingMaxChunkBorderFetch if that chunk isn't loaded, leave it to that
+                continue;
+            }
+            if (!data.canWalkThrough(bsi, destX, y + 1, destZ)) {
+                candidates &= ~(1 << diagonal.ordinal());
+            }
+        }
+        // MovementParkour
+        if (!context.allowParkour || (y == 256 && !context.allowJumpAt256)) {
+            return candidates & ~ALL_PARKOUR;
+        }
+        for (Moves parkour : PARKOURS) {
+            int adjX = x + Integer.signum(parkour.xOffset);
+            int adjZ = z + Integer.signum(parkour.zOffset);
+            if (!data.fullyPassable(bsi, adjX, y, adjZ) || data.canWalkOn(bsi, adjX, y - 1, adjZ)) {
+                candidates &= ~(1 << parkour.ordinal());
+            }
+        }
+        return candidates;
+    }
+}
@@ -58,7 +58,10 @@ class Path extends PathBase {
 
     private final List<Movement> movements;
 
-    private final List<PathNode> nodes;
+    /**
+     * The cost of getting from start to each position in {@link #path}, as of when this path was created
+     */
+    private final double[] costs;
 
     private final Goal goal;
 
@@ -68,28 +71,69 @@ class Path extends PathBase {
 
     private volatile boolean verified;
 
-    Path(PathNode start, PathNode end, int numNodes, Goal goal, CalculationContext context) {
-        this.start = new BetterBlockPos(start.x, start.y, start.z);
-        this.end = new BetterBlockPos(end.x, end.y, end.z);
+    Path(INodeStore nodes, int start, int end, int numNodes, Goal goal, CalculationContext context) {
+        this.start = new BetterBlockPos(nodes.getX(start), nodes.getY(start), nodes.getZ(start));
+        this.end = new BetterBlockPos(nodes.getX(end), nodes.getY(end), nodes.getZ(end));
         this.numNodes = numNodes;
         this.movements = new ArrayList<>();
         this.goal = goal;
         this.context = context;
-        PathNode current = end;
+        int current = end;
         LinkedList<BetterBlockPos> tempPath = new LinkedList<>();
-        LinkedList<PathNode> tempNodes = new LinkedList<>();
+        LinkedList<Double> tempCosts = new LinkedList<>();
         // Repeatedly inserting to the beginning of an arraylist is O(n^2)
         // Instead, do it into a linked list, then convert at the end
-        while (current != null) {
-            tempNodes.addFirst(current);
-            tempPath.addFirst(new BetterBlockPos(current.x, current.y, current.z));
-            current = current.previous;
+        while (current != INodeStore.NONE) {
+            tempCosts.addFirst(nodes.getCost(current));
+            tempPath.addFirst(new BetterBlockPos(nodes.getX(current), nodes.getY(current), nodes.getZ(current)));
+            current = nodes.getPrevious(current);
         }
-        // Can't directly convert from the PathNode pseudo linked list to an array because we don't know how long it is
+        // Can't directly convert from the node store's pseudo linked list to an array because we don't know how long it is
         // inserting into a LinkedList<E> keeps track of length, then when we addall (which calls .toArray) it's able
         // to performantly do that conversion since it knows the length.
         this.path = new ArrayList<>(tempPath);
-        this.nodes = new ArrayList<>(tempNodes);
+        this.costs = new double[tempCosts.size()];
+        int i = 0;
+        for (double cost : tempCosts) {
+            costs[i++] = cost;
+        }
+    }
+
+    /**
+     * A path through the specified positions, for when they don't all come from one node store
+     *
+     * @param costs The cost of getting from the start to each position
+     */
+    Path(List<BetterBlockPos> path, double[] costs, int numNodes, Goal goal, CalculationContext context) {
+        if (path.isEmpty() || path.size() != costs.length) {
+            throw new IllegalArgumentException();
+        }
+        this.start = path.get(0);
+        this.end = path.get(path.size() - 1);
+        this.numNodes = numNodes;
+        this.movements = new ArrayList<>();
+        this.goal = goal;
+        this.context = context;
+        this.path = new ArrayList<>(path);
+        this.costs = costs;
+    }
+
+    /**
+     * A copy of a path that hasn't been post processed yet, towards a different goal. For when the search was towards
+     * an intermediate goal on the way to the real one.
+     */
+    Path(Path other, Goal goal) {
+        if (other.verified) {
+            throw new IllegalStateException();
+        }
+        this.start = other.start;
+        this.end = other.end;
+        this.numNodes = other.numNodes;
+        this.movements = new ArrayList<>();
+        this.goal = goal;
+        this.context = other.context;
+        this.path = other.path;
+        this.costs = other.costs;
     }
 
     @Override
@@ -102,7 +146,7 @@ class Path extends PathBase {
             throw new IllegalStateException();
         }
         for (int i = 0; i < path.size() - 1; i++) {
-            double cost = nodes.get(i + 1).cost - nodes.get(i).cost;
+            double cost = costs[i + 1] - costs[i];
             Movement move = runBackwards(path.get(i), path.get(i + 1), cost);
             if (move == null) {
                 return true;
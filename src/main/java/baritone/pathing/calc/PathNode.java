@@ -63,7 +63,12 @@ public final class PathNode {
      */
     public int heapPosition;
 
-    public PathNode(int x, int y, int z, Goal goal) {
+    /**
+     * The handle of this node in the {@link PathNodeStore} that created it
+     */
+    public final int index;
+
+    public PathNode(int x, int y, int z, Goal goal, int index) {
         this.previous = null;
         this.cost = ActionCosts.COST_INF;
         this.estimatedCostToGoal = goal.heuristic(x, y, z);
@@ -71,6 +76,7 @@ public final class PathNode {
             throw new IllegalStateException(goal + " calculated implausible heuristic");
         }
         this.heapPosition = -1;
+        this.index = index;
         this.x = x;
         this.y = y;
         this.z = z;
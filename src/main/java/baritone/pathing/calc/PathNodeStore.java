@@ -0,0 +1,182 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * The original node storage: one {@link PathNode} object per visited position, keyed by position hash in a
+ * {@link Long2ObjectOpenHashMap}.
+ * <p>
+ * Handles index into a fixed table of pages rather than one growable array, so that a handle read by another thread
+ * (e.g. {@link AbstractNodeCostSearch#bestPathSoFar()} from the render thread) never points past a stale array.
+ *
+ * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
+ */
+public final class PathNodeStore implements INodeStore {
+
+    private static final int PAGE_BITS = 13;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = 1 << 12;
+
+    private Goal goal;
+
+    private final Long2ObjectOpenHashMap<PathNode> map;
+
+    private final int expectedSize;
+
+    private final PathNode[][] pages = new PathNode[MAX_PAGES][];
+
+    private int size;
+
+    public PathNodeStore(Goal goal, int expectedSize, float loadFactor) {
+        this.goal = goal;
+        this.map = new Long2ObjectOpenHashMap<>(expectedSize, loadFactor);
+        this.expectedSize = expectedSize;
+    }
+
+    @Override
+    public int getOrCreate(int x, int y, int z, long hashCode) {
+        PathNode node = map.get(hashCode);
+        if (node == null) {
+            int page = size >>> PAGE_BITS;
+            if (page >= MAX_PAGES) {
+                throw new IllegalStateException("Node store is full");
+            }
+            if (pages[page] == null) {
+                pages[page] = new PathNode[PAGE_SIZE];
+            }
+            node = new PathNode(x, y, z, goal, size);
+            pages[page][size & PAGE_MASK] = node;
+            size++;
+            map.put(hashCode, node);
+        }
+        return node.index;
+    }
+
+    @Override
+    public int get(long hashCode) {
+        PathNode node = map.get(hashCode);
+        return node == null ? NONE : node.index;
+    }
+
+    public PathNode get(int node) {
+        return pages[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void reset(Goal goal) {
+        this.goal = goal;
+        clear();
+    }
+
+    @Override
+    public void trim(int capacity) {
+        clear();
+        for (int page = pagesFor(capacity); page < MAX_PAGES && pages[page] != null; page++) {
+            pages[page] = null;
+        }
+        map.trim(Math.max(capacity, expectedSize));
+    }
+
+    private void clear() {
+        if (size == 0) {
+            return;
+        }
+        // drop the references so that the old nodes can be collected
+        for (int page = 0; page < pagesFor(size); page++) {
+            Arrays.fill(pages[page], null);
+        }
+        map.clear();
+        size = 0;
+    }
+
+    private static int pagesFor(int nodes) {
+        return Math.max(1, (nodes + PAGE_MASK) >>> PAGE_BITS);
+    }
+
+    @Override
+    public int getX(int node) {
+        return get(node).x;
+    }
+
+    @Override
+    public int getY(int node) {
+        return get(node).y;
+    }
+
+    @Override
+    public int getZ(int node) {
+        return get(node).z;
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(int node) {
+        return get(node).estimatedCostToGoal;
+    }
+
+    @Override
+    public double getCost(int node) {
+        return get(node).cost;
+    }
+
+    @Override
+    public void setCost(int node, double cost) {
+        get(node).cost = cost;
+    }
+
+    @Override
+    public double getCombinedCost(int node) {
+        return get(node).combinedCost;
+    }
+
+    @Override
+    public void setCombinedCost(int node, double combinedCost) {
+        get(node).combinedCost = combinedCost;
+    }
+
+    @Override
+    public int getPrevious(int node) {
+        PathNode previous = get(node).previous;
+        return previous == null ? NONE : previous.index;
+    }
+
+    @Override
+    public void setPrevious(int node, int previous) {
+        get(node).previous = previous == NONE ? null : get(previous);
+    }
+
+    @Override
+    public int getHeapPosition(int node) {
+        return get(node).heapPosition;
+    }
+
+    @Override
+    public void setHeapPosition(int node, int heapPosition) {
+        get(node).heapPosition = heapPosition;
+    }
+}
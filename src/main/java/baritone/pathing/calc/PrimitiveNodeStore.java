@@ -0,0 +1,277 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+/**
+ * Node storage without any per-node objects. Every field of what used to be a {@link PathNode} lives in its own
+ * primitive array, and positions are mapped to handles by an open addressing long to int hash table.
+ * <p>
+ * The arrays are split into fixed size pages that are never moved once allocated, so a handle read by another thread
+ * (e.g. {@link AbstractNodeCostSearch#bestPathSoFar()} from the render thread) never points past a stale array.
+ */
+public final class PrimitiveNodeStore implements INodeStore {
+
+    private static final int PAGE_BITS = 13;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = 1 << 12;
+
+    private Goal goal;
+
+    private final int[][] x = new int[MAX_PAGES][];
+    private final int[][] y = new int[MAX_PAGES][];
+    private final int[][] z = new int[MAX_PAGES][];
+    private final double[][] estimatedCostToGoal = new double[MAX_PAGES][];
+    private final double[][] cost = new double[MAX_PAGES][];
+    private final double[][] combinedCost = new double[MAX_PAGES][];
+    private final int[][] previous = new int[MAX_PAGES][];
+    private final int[][] heapPosition = new int[MAX_PAGES][];
+
+    private int size;
+
+    private final float loadFactor;
+
+    private final int expectedSize;
+
+    /**
+     * Position hashes, see {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}
+     */
+    private long[] keys;
+
+    /**
+     * The handle for each key plus one, so that 0 can mean an empty slot
+     */
+    private int[] values;
+
+    private int mask;
+
+    private int maxFill;
+
+    public PrimitiveNodeStore(Goal goal, int expectedSize, float loadFactor) {
+        this.goal = goal;
+        this.loadFactor = loadFactor;
+        this.expectedSize = expectedSize;
+        allocateTable(HashCommon.arraySize(expectedSize, loadFactor));
+    }
+
+    private void allocateTable(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.maxFill = HashCommon.maxFill(capacity, loadFactor);
+    }
+
+    @Override
+    public int getOrCreate(int x, int y, int z, long hashCode) {
+        long[] keys = this.keys;
+        int[] values = this.values;
+        int pos = (int) HashCommon.mix(hashCode) & mask;
+        int value;
+        while ((value = values[pos]) != 0) {
+            if (keys[pos] == hashCode) {
+                return value - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        int node = create(x, y, z);
+        keys[pos] = hashCode;
+        values[pos] = node + 1;
+        if (size >= maxFill) {
+            rehash(keys.length << 1);
+        }
+        return node;
+    }
+
+    @Override
+    public int get(long hashCode) {
+        long[] keys = this.keys;
+        int[] values = this.values;
+        int pos = (int) HashCommon.mix(hashCode) & mask;
+        int value;
+        while ((value = values[pos]) != 0) {
+            if (keys[pos] == hashCode) {
+                return value - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private int create(int x, int y, int z) {
+        double heuristic = goal.heuristic(x, y, z);
+        if (Double.isNaN(heuristic)) {
+            throw new IllegalStateException(goal + " calculated implausible heuristic");
+        }
+        int node = size;
+        int page = node >>> PAGE_BITS;
+        if (page >= MAX_PAGES) {
+            throw new IllegalStateException("Node store is full");
+        }
+        if (this.x[page] == null) {
+            allocatePage(page);
+        }
+        int i = node & PAGE_MASK;
+        this.x[page][i] = x;
+        this.y[page][i] = y;
+        this.z[page][i] = z;
+        this.estimatedCostToGoal[page][i] = heuristic;
+        this.cost[page][i] = ActionCosts.COST_INF;
+        this.previous[page][i] = NONE;
+        this.heapPosition[page][i] = -1;
+        size++;
+        return node;
+    }
+
+    private void allocatePage(int page) {
+        // allocate x last, since that's what create checks to see if the page exists
+        y[page] = new int[PAGE_SIZE];
+        z[page] = new int[PAGE_SIZE];
+        estimatedCostToGoal[page] = new double[PAGE_SIZE];
+        cost[page] = new double[PAGE_SIZE];
+        combinedCost[page] = new double[PAGE_SIZE];
+        previous[page] = new int[PAGE_SIZE];
+        heapPosition[page] = new int[PAGE_SIZE];
+        x[page] = new int[PAGE_SIZE];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocateTable(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == 0) {
+                continue;
+            }
+            int pos = (int) HashCommon.mix(oldKeys[i]) & mask;
+            while (values[pos] != 0) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = oldKeys[i];
+            values[pos] = oldValues[i];
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void reset(Goal goal) {
+        this.goal = goal;
+        clear();
+    }
+
+    @Override
+    public void trim(int capacity) {
+        clear();
+        for (int page = pagesFor(capacity); page < MAX_PAGES && x[page] != null; page++) {
+            x[page] = null;
+            y[page] = null;
+            z[page] = null;
+            estimatedCostToGoal[page] = null;
+            cost[page] = null;
+            combinedCost[page] = null;
+            previous[page] = null;
+            heapPosition[page] = null;
+        }
+        int tableSize = HashCommon.arraySize(Math.max(capacity, expectedSize), loadFactor);
+        if (tableSize < keys.length) {
+            allocateTable(tableSize);
+        }
+    }
+
+    private void clear() {
+        if (size == 0) {
+            return;
+        }
+        // the pages don't need clearing, create overwrites every field that is read before it's set
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private static int pagesFor(int nodes) {
+        return Math.max(1, (nodes + PAGE_MASK) >>> PAGE_BITS);
+    }
+
+    @Override
+    public int getX(int node) {
+        return x[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public int getY(int node) {
+        return y[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public int getZ(int node) {
+        return z[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public double getEstimatedCostToGoal(int node) {
+        return estimatedCostToGoal[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public double getCost(int node) {
+        return cost[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public void setCost(int node, double cost) {
+        this.cost[node >>> PAGE_BITS][node & PAGE_MASK] = cost;
+    }
+
+    @Override
+    public double getCombinedCost(int node) {
+        return combinedCost[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public void setCombinedCost(int node, double combinedCost) {
+        this.combinedCost[node >>> PAGE_BITS][node & PAGE_MASK] = combinedCost;
+    }
+
+    @Override
+    public int getPrevious(int node) {
+        return previous[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public void setPrevious(int node, int previous) {
+        this.previous[node >>> PAGE_BITS][node & PAGE_MASK] = previous;
+    }
+
+    @Override
+    public int getHeapPosition(int node) {
+        return heapPosition[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    @Override
+    public void setHeapPosition(int node, int heapPosition) {
+        this.heapPosition[node >>> PAGE_BITS][node & PAGE_MASK] = heapPosition;
+    }
+}
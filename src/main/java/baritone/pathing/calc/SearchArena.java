@@ -0,0 +1,113 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A node store and open set that are kept around between path calculations instead of being thrown away after each
+ * one. Only one search can use the arena at a time, a search that finds it busy just allocates its own.
+ * <p>
+ * After each search, the arena shrinks down to the largest of the last {@link #HISTORY} searches, so that one huge
+ * search doesn't keep its memory pinned forever.
+ */
+public final class SearchArena {
+
+    /**
+     * How many searches the high water mark is taken over
+     */
+    private static final int HISTORY = 8;
+
+    private final AtomicBoolean inUse = new AtomicBoolean();
+
+    private final int[] recentSizes = new int[HISTORY];
+
+    private int searches;
+
+    private INodeStore nodes;
+
+    private BinaryHeapOpenSet openSet;
+
+    /**
+     * The arenas of the helpers of a parallel search that uses this arena, one for each helper, see {@link #helper(int)}
+     */
+    private final List<SearchArena> helpers = new ArrayList<>();
+
+    /**
+     * Takes exclusive ownership of this arena, and prepares it for a search towards the specified goal.
+     *
+     * @param goal The goal of the search
+     * @return Whether the arena was free. If it was, {@link #release()} must be called once the search is done.
+     */
+    boolean acquire(Goal goal) {
+        if (!inUse.compareAndSet(false, true)) {
+            return false;
+        }
+        boolean primitive = Baritone.settings().primitiveNodeStore.value;
+        if (nodes == null || (nodes instanceof PrimitiveNodeStore) != primitive) {
+            nodes = AbstractNodeCostSearch.createNodeStore(goal);
+            openSet = new BinaryHeapOpenSet(nodes);
+        } else {
+            nodes.reset(goal);
+            openSet.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Gives up ownership of this arena, shrinking it to the high water mark of recent searches.
+     */
+    void release() {
+        recentSizes[searches++ % HISTORY] = nodes.size();
+        int highWaterMark = 0;
+        for (int size : recentSizes) {
+            highWaterMark = Math.max(highWaterMark, size);
+        }
+        nodes.trim(highWaterMark);
+        openSet.trim(highWaterMark);
+        inUse.set(false);
+    }
+
+    /**
+     * Only to be called by the search that has acquired this arena, which makes it the only user of its helper arenas
+     * as well
+     *
+     * @param index Which helper of the parallel search
+     * @return The arena for that helper to use, the same one every time
+     */
+    SearchArena helper(int index) {
+        while (helpers.size() <= index) {
+            helpers.add(new SearchArena());
+        }
+        return helpers.get(index);
+    }
+
+    INodeStore getNodes() {
+        return nodes;
+    }
+
+    BinaryHeapOpenSet getOpenSet() {
+        return openSet;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.movement.ActionCosts;
+
+/**
+ * The cheapest path to the goal found so far by any of the searches of one parallel calculation. Its cost is an upper
+ * bound that every search can prune against.
+ */
+final class SharedIncumbent {
+
+    private volatile double cost = ActionCosts.COST_INF;
+
+    private Path path;
+
+    /**
+     * @param path The path, which must end in the goal
+     * @param cost The cost of the path
+     */
+    synchronized void offer(Path path, double cost) {
+        if (cost < this.cost) {
+            this.path = path;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * @return The cost of the cheapest path to the goal so far, or {@link ActionCosts#COST_INF} if there isn't one yet
+     */
+    double cost() {
+        return cost;
+    }
+
+    synchronized Path path() {
+        return path;
+    }
+}
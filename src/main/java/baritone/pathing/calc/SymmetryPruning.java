@@ -0,0 +1,90 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.pathing.precompute.PrecomputedData;
+import baritone.utils.pathing.Favoring;
+
+/**
+ * Neighbor pruning in the style of Jump Point Search, for open flat ground. There, every traverse costs the same and
+ * so does every diagonal, so most ways of getting somewhere are equally good permutations of the same moves. Once the
+ * search gets to a node from an adjacent one on the same level, the only traverses and diagonals worth considering are
+ * the ones that keep going the same way, since everything else around is reached at least as cheaply without going
+ * through this node.
+ * <p>
+ * Moves that change height, parkour, and anything on ground that isn't completely plain are never pruned.
+ */
+final class SymmetryPruning {
+
+    private SymmetryPruning() {}
+
+    /**
+     * @return Whether the move is a traverse or a diagonal, the only moves that get pruned
+     */
+    static boolean isPrunable(Moves moves) {
+        return !moves.dynamicXZ && moves.yOffset == 0 && (moves.xOffset != 0 || moves.zOffset != 0);
+    }
+
+    /**
+     * @param directionX Which way the search was going when it got here, -1, 0 or 1
+     * @param directionZ Which way the search was going when it got here, -1, 0 or 1
+     * @return Whether the move keeps going that way. Coming in diagonally, both halves of the diagonal count.
+     */
+    static boolean isNatural(Moves moves, int directionX, int directionZ) {
+        if (directionX != 0 && directionZ != 0) {
+            return (moves.xOffset == 0 || moves.xOffset == directionX) && (moves.zOffset == 0 || moves.zOffset == directionZ);
+        }
+        return moves.xOffset == directionX && moves.zOffset == directionZ;
+    }
+
+    /**
+     * @return Whether this position and all 8 around it are plain floor with plain air above, so that moving between
+     * any of them costs exactly the same
+     */
+    static boolean isOpen(CalculationContext context, int x, int y, int z) {
+        PrecomputedData data = context.precomputedData;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (!data.isPlainAir(context.bsi, x + dx, y, z + dz)
+                        || !data.isPlainAir(context.bsi, x + dx, y + 1, z + dz)
+                        || !data.isPlainFloor(context.bsi, x + dx, y - 1, z + dz)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether none of this position and the 8 around it are favored or avoided, which would make their costs
+     * different after all
+     */
+    static boolean isUnfavored(Favoring favoring, int x, int y, int z) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (favoring.calculate(BetterBlockPos.longHash(x + dx, y, z + dz)) != 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
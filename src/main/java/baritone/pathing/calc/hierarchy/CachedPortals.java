@@ -0,0 +1,93 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.hierarchy;
+
+import baritone.cache.CachedChunk;
+import baritone.cache.CachedRegion;
+import baritone.cache.CachedWorld;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Chunk summaries built from a {@link CachedWorld}, kept until the chunk is cached again
+ */
+public final class CachedPortals implements PortalGraph.ChunkSource {
+
+    /**
+     * How many summaries to keep before starting over, each is a few KiB
+     */
+    private static final int MAX_CHUNKS = 16384;
+
+    private final Long2ObjectOpenHashMap<Entry> chunks = new Long2ObjectOpenHashMap<>();
+
+    private CachedWorld world;
+
+    /**
+     * Switches to another world, forgetting every summary of the previous one
+     */
+    public synchronized void setWorld(CachedWorld world) {
+        if (world != this.world) {
+            this.world = world;
+            chunks.clear();
+        }
+    }
+
+    @Override
+    public synchronized ChunkPortals get(int chunkX, int chunkZ) {
+        if (world == null) {
+            return null;
+        }
+        CachedRegion region = world.getRegion(chunkX >> 5, chunkZ >> 5);
+        if (region == null) {
+            world.tryLoadFromDisk(chunkX >> 5, chunkZ >> 5);
+            region = world.getRegion(chunkX >> 5, chunkZ >> 5);
+            if (region == null) {
+                return null;
+            }
+        }
+        CachedChunk chunk = region.getChunk(chunkX & 31, chunkZ & 31);
+        if (chunk == null) {
+            return null;
+        }
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        Entry entry = chunks.get(key);
+        if (entry == null || entry.source != chunk) {
+            if (chunks.size() >= MAX_CHUNKS) {
+                chunks.clear();
+            }
+            entry = new Entry(chunk, ChunkPortals.build(chunkX, chunkZ, chunk::getPathingType));
+            chunks.put(key, entry);
+        }
+        return entry.portals;
+    }
+
+    private static final class Entry {
+
+        /**
+         * The cached chunk that the summary was built from, once the chunk is cached again this is stale
+         */
+        final CachedChunk source;
+
+        final ChunkPortals portals;
+
+        Entry(CachedChunk source, ChunkPortals portals) {
+            this.source = source;
+            this.portals = portals;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.hierarchy;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.utils.pathing.PathingBlockType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A summary of one cached chunk for hierarchical pathing: where it's possible to stand, which of those places are on the
+ * border with a neighboring chunk (portals), and how far apart the portals are when walking inside the chunk.
+ * <p>
+ * Standing is approximated from the {@link PathingBlockType}s alone: two passable blocks above a solid one, or the
+ * surface of water. Walking is one block at a time to a neighboring column, up at most one block or down at most
+ * {@link #MAX_DROP}. Nothing is broken or placed, so this only ever underestimates where the block level search can go.
+ */
+public final class ChunkPortals {
+
+    public static final int EAST = 0;
+    public static final int WEST = 1;
+    public static final int SOUTH = 2;
+    public static final int NORTH = 3;
+
+    /**
+     * How far down a step between neighboring columns may go
+     */
+    static final int MAX_DROP = 3;
+
+    private static final int[] SIDE_DX = {1, -1, 0, 0};
+    private static final int[] SIDE_DZ = {0, 0, 1, -1};
+
+    @FunctionalInterface
+    public interface TypeSource {
+
+        /**
+         * @param x The x position within the chunk, 0 to 15
+         * @param y The y position
+         * @param z The z position within the chunk, 0 to 15
+         * @return The pathing type of the block
+         */
+        PathingBlockType getType(int x, int y, int z);
+    }
+
+    public final int chunkX;
+    public final int chunkZ;
+
+    /**
+     * Where the standing positions of each column start in {@link #standingY}, indexed by z << 4 | x, with one extra
+     * entry at the end
+     */
+    private final int[] columnStart = new int[257];
+
+    private final int[] standingY;
+
+    private final boolean[] swimming;
+
+    private final Portal[] portals;
+
+    /**
+     * The cost of walking from one portal to another within this chunk, {@link ActionCosts#COST_INF} if it can't be done
+     */
+    private final double[][] distances;
+
+    private ChunkPortals(int chunkX, int chunkZ, TypeSource source) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        int[] ys = new int[1024];
+        boolean[] water = new boolean[1024];
+        int count = 0;
+        for (int column = 0; column < 256; column++) {
+            columnStart[column] = count;
+            int x = column & 15;
+            int z = column >> 4;
+            PathingBlockType below = source.getType(x, 0, z);
+            PathingBlockType feet = source.getType(x, 1, z);
+            for (int y = 1; y < 255; y++) {
+                PathingBlockType head = source.getType(x, y + 1, z);
+                boolean swim = feet == PathingBlockType.WATER && head == PathingBlockType.AIR;
+                if (passable(feet) && passable(head) && (below == PathingBlockType.SOLID || swim)) {
+                    if (count == ys.length) {
+                        ys = Arrays.copyOf(ys, count << 1);
+                        water = Arrays.copyOf(water, count << 1);
+                    }
+                    ys[count] = y;
+                    water[count] = feet == PathingBlockType.WATER;
+                    count++;
+                }
+                below = feet;
+                feet = head;
+            }
+        }
+        columnStart[256] = count;
+        this.standingY = Arrays.copyOf(ys, count);
+        this.swimming = Arrays.copyOf(water, count);
+        this.portals = findPortals();
+        this.distances = new double[portals.length][];
+        for (int i = 0; i < portals.length; i++) {
+            double[] fromPortal = walk(portals[i].node);
+            distances[i] = new double[portals.length];
+            for (int j = 0; j < portals.length; j++) {
+                distances[i][j] = fromPortal[portals[j].node];
+            }
+        }
+    }
+
+    public static ChunkPortals build(int chunkX, int chunkZ, TypeSource source) {
+        return new ChunkPortals(chunkX, chunkZ, source);
+    }
+
+    private static boolean passable(PathingBlockType type) {
+        return type == PathingBlockType.AIR || type == PathingBlockType.WATER;
+    }
+
+    /**
+     * Groups the standing positions along each side into runs that can be walked along, and makes the middle of each
+     * run a portal
+     */
+    private Portal[] findPortals() {
+        List<Portal> result = new ArrayList<>();
+        for (int side = 0; side < 4; side++) {
+            List<Run> open = new ArrayList<>();
+            for (int along = 0; along < 16; along++) {
+                int column = borderColumn(side, along);
+                List<Run> next = new ArrayList<>();
+                for (int node = columnStart[column]; node < columnStart[column + 1]; node++) {
+                    int y = standingY[node];
+                    Run run = null;
+                    for (Run candidate : open) {
+                        if (!candidate.continued && Math.abs(candidate.lastY - y) <= 1) {
+                            run = candidate;
+                            break;
+                        }
+                    }
+                    if (run == null) {
+                        run = new Run();
+                    }
+                    run.continued = true;
+                    run.nodes.add(node);
+                    run.lastY = y;
+                    next.add(run);
+                }
+                for (Run run : open) {
+                    if (!run.continued) {
+                        result.add(new Portal(this, result.size(), side, run.nodes));
+                    }
+                }
+                for (Run run : next) {
+                    run.continued = false;
+                }
+                open = next;
+            }
+            for (Run run : open) {
+                result.add(new Portal(this, result.size(), side, run.nodes));
+            }
+        }
+        return result.toArray(new Portal[0]);
+    }
+
+    private static final class Run {
+
+        final List<Integer> nodes = new ArrayList<>();
+        int lastY;
+        boolean continued;
+    }
+
+    /**
+     * @return The column index of the specified position along a side, counting up in x or z
+     */
+    private static int borderColumn(int side, int along) {
+        switch (side) {
+            case EAST:
+                return along << 4 | 15;
+            case WEST:
+                return along << 4;
+            case SOUTH:
+                return 15 << 4 | along;
+            default:
+                return along;
+        }
+    }
+
+    /**
+     * Dijkstra over the standing positions of this chunk
+     *
+     * @param from The standing position to start from
+     * @return The cost of getting to every standing position
+     */
+    double[] walk(int from) {
+        double[] cost = new double[standingY.length];
+        Arrays.fill(cost, ActionCosts.COST_INF);
+        cost[from] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, from});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int node = (int) entry[1];
+            if (entry[0] > cost[node]) {
+                continue;
+            }
+            int column = columnOf(node);
+            int x = column & 15;
+            int z = column >> 4;
+            int y = standingY[node];
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + SIDE_DX[dir];
+                int nz = z + SIDE_DZ[dir];
+                if (nx < 0 || nx > 15 || nz < 0 || nz > 15) {
+                    continue;
+                }
+                int neighborColumn = nz << 4 | nx;
+                for (int neighbor = columnStart[neighborColumn]; neighbor < columnStart[neighborColumn + 1]; neighbor++) {
+                    int ny = standingY[neighbor];
+                    if (ny > y + 1 || ny < y - MAX_DROP) {
+                        continue;
+                    }
+                    double next = entry[0] + stepCost(y, ny, swimming[node] || swimming[neighbor]);
+                    if (next < cost[neighbor]) {
+                        cost[neighbor] = next;
+                        queue.add(new double[]{next, neighbor});
+                    }
+                }
+            }
+        }
+        return cost;
+    }
+
+    static double stepCost(int fromY, int toY, boolean swimming) {
+        double cost = swimming ? ActionCosts.WALK_ONE_IN_WATER_COST : ActionCosts.WALK_ONE_BLOCK_COST;
+        if (toY > fromY) {
+            cost += ActionCosts.JUMP_ONE_BLOCK_COST;
+        } else if (toY < fromY) {
+            cost += ActionCosts.FALL_N_BLOCKS_COST[fromY - toY];
+        }
+        return cost;
+    }
+
+    private int columnOf(int node) {
+        // binary search for the last column that starts at or before this node
+        int low = 0;
+        int high = 255;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (columnStart[mid] <= node) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The standing position closest to the specified position within this chunk, or -1 if there isn't one
+     */
+    int closestStanding(int x, int y, int z) {
+        int best = -1;
+        int bestDist = Integer.MAX_VALUE;
+        for (int node = 0; node < standingY.length; node++) {
+            int column = columnOf(node);
+            int dx = (column & 15) - x;
+            int dy = standingY[node] - y;
+            int dz = (column >> 4) - z;
+            int dist = dx * dx + dy * dy * 4 + dz * dz; // being on the wrong floor is worse than being a bit to the side
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    public Portal[] getPortals() {
+        return portals;
+    }
+
+    public double distance(Portal from, Portal to) {
+        return distances[from.index][to.index];
+    }
+
+    public int getStandingCount() {
+        return standingY.length;
+    }
+
+    /**
+     * A place on the border of a chunk where it might be possible to walk into the neighboring chunk. Stands for a
+     * whole run of standing positions along that side, so that one long flat border doesn't become 16 portals.
+     */
+    public static final class Portal {
+
+        public final ChunkPortals chunk;
+
+        final int index;
+
+        public final int side;
+
+        /**
+         * The standing position in the middle of the run, in block coordinates
+         */
+        public final int x;
+        public final int y;
+        public final int z;
+
+        /**
+         * The standing position in the middle of the run, within the chunk
+         */
+        final int node;
+
+        /**
+         * Every standing position of the run, as the position along the side and the height
+         */
+        private final int[] runAlong;
+        private final int[] runY;
+
+        private Portal(ChunkPortals chunk, int index, int side, List<Integer> run) {
+            this.chunk = chunk;
+            this.index = index;
+            this.side = side;
+            this.node = run.get(run.size() / 2);
+            int column = chunk.columnOf(node);
+            this.x = (chunk.chunkX << 4) + (column & 15);
+            this.y = chunk.standingY[node];
+            this.z = (chunk.chunkZ << 4) + (column >> 4);
+            this.runAlong = new int[run.size()];
+            this.runY = new int[run.size()];
+            for (int i = 0; i < run.size(); i++) {
+                int member = run.get(i);
+                int memberColumn = chunk.columnOf(member);
+                runAlong[i] = side == EAST || side == WEST ? memberColumn >> 4 : memberColumn & 15;
+                runY[i] = chunk.standingY[member];
+            }
+        }
+
+        /**
+         * @param other A portal on the opposite side of the neighboring chunk
+         * @return The cost of stepping from this run into the other one, or {@link ActionCosts#COST_INF} if they never
+         * line up
+         */
+        public double crossingCost(Portal other) {
+            double best = ActionCosts.COST_INF;
+            for (int i = 0; i < runAlong.length; i++) {
+                for (int j = 0; j < other.runAlong.length; j++) {
+                    if (runAlong[i] != other.runAlong[j] || other.runY[j] > runY[i] + 1 || other.runY[j] < runY[i] - MAX_DROP) {
+                        continue;
+                    }
+                    // walking along the border to where they line up, then across
+                    int along = side == EAST || side == WEST ? z & 15 : x & 15;
+                    int otherAlong = other.side == EAST || other.side == WEST ? other.z & 15 : other.x & 15;
+                    double cost = (Math.abs(along - runAlong[i]) + Math.abs(otherAlong - runAlong[i])) * ActionCosts.WALK_ONE_BLOCK_COST
+                            + stepCost(runY[i], other.runY[j], false);
+                    best = Math.min(best, cost);
+                }
+            }
+            return best;
+        }
+
+        public int neighborChunkX() {
+            return chunk.chunkX + SIDE_DX[side];
+        }
+
+        public int neighborChunkZ() {
+            return chunk.chunkZ + SIDE_DZ[side];
+        }
+
+        /**
+         * @return The side of the neighboring chunk that faces this one
+         */
+        public int oppositeSide() {
+            return side ^ 1;
+        }
+
+        @Override
+        public String toString() {
+            return "Portal{" + x + "," + y + "," + z + " side " + side + "}";
+        }
+    }
+}
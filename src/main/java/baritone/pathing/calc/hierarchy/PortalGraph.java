@@ -0,0 +1,189 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.hierarchy;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.pathing.calc.hierarchy.ChunkPortals.Portal;
+
+import java.util.*;
+
+/**
+ * The coarse level of hierarchical pathing (HPA*): an A* over chunk border portals instead of blocks. Every step either
+ * crosses into the neighboring chunk, or walks to another portal of the same chunk, using the distances that
+ * {@link ChunkPortals} worked out ahead of time.
+ * <p>
+ * Ties are broken by position, so the same cache always gives the same route.
+ */
+public final class PortalGraph {
+
+    /**
+     * Where the chunk summaries come from
+     */
+    @FunctionalInterface
+    public interface ChunkSource {
+
+        /**
+         * @return The summary of the chunk, or null if nothing is known about it
+         */
+        ChunkPortals get(int chunkX, int chunkZ);
+    }
+
+    private final ChunkSource source;
+
+    public PortalGraph(ChunkSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Finds a route of portals from a position towards the chunk containing a target column.
+     *
+     * @param maxPortals How many portals to expand at most
+     * @param deadline   The {@link System#currentTimeMillis()} to give up at
+     * @return The portals to go through in order, ending in the target chunk if it could be reached, or otherwise at
+     * the portal closest to it. Empty if the start is already in the target chunk, and null if nothing is known about
+     * the start chunk.
+     */
+    public List<Portal> search(int startX, int startY, int startZ, int targetX, int targetZ, int maxPortals, long deadline) {
+        int targetChunkX = targetX >> 4;
+        int targetChunkZ = targetZ >> 4;
+        if (startX >> 4 == targetChunkX && startZ >> 4 == targetChunkZ) {
+            return Collections.emptyList();
+        }
+        ChunkPortals startChunk = source.get(startX >> 4, startZ >> 4);
+        if (startChunk == null) {
+            return null;
+        }
+        int startNode = startChunk.closestStanding(startX & 15, startY, startZ & 15);
+        if (startNode == -1) {
+            return null;
+        }
+        Map<Portal, Node> nodes = new HashMap<>();
+        PriorityQueue<Node> open = new PriorityQueue<>(PortalGraph::compare);
+        double[] fromStart = startChunk.walk(startNode);
+        for (Portal portal : startChunk.getPortals()) {
+            double cost = fromStart[portal.node];
+            if (cost < ActionCosts.COST_INF) {
+                Node node = new Node(portal, cost, heuristic(portal, targetX, targetZ), null);
+                nodes.put(portal, node);
+                open.add(node);
+            }
+        }
+        Node closest = null;
+        int expanded = 0;
+        while (!open.isEmpty() && expanded < maxPortals) {
+            if ((expanded & 63) == 0 && System.currentTimeMillis() - deadline >= 0) {
+                break;
+            }
+            Node current = open.poll();
+            if (current.closed) {
+                continue;
+            }
+            current.closed = true;
+            expanded++;
+            Portal portal = current.portal;
+            if (portal.chunk.chunkX == targetChunkX && portal.chunk.chunkZ == targetChunkZ) {
+                return route(current);
+            }
+            if (closest == null || current.heuristic < closest.heuristic) {
+                closest = current;
+            }
+            // across the border
+            ChunkPortals neighbor = source.get(portal.neighborChunkX(), portal.neighborChunkZ());
+            if (neighbor != null) {
+                for (Portal other : neighbor.getPortals()) {
+                    if (other.side == portal.oppositeSide()) {
+                        relax(nodes, open, current, other, portal.crossingCost(other), targetX, targetZ);
+                    }
+                }
+            }
+            // within the chunk
+            for (Portal other : portal.chunk.getPortals()) {
+                if (other != portal) {
+                    relax(nodes, open, current, other, portal.chunk.distance(portal, other), targetX, targetZ);
+                }
+            }
+        }
+        return closest == null ? null : route(closest);
+    }
+
+    private static void relax(Map<Portal, Node> nodes, PriorityQueue<Node> open, Node from, Portal to, double cost, int targetX, int targetZ) {
+        if (cost >= ActionCosts.COST_INF) {
+            return;
+        }
+        double tentative = from.cost + cost;
+        Node node = nodes.get(to);
+        if (node == null) {
+            node = new Node(to, tentative, heuristic(to, targetX, targetZ), from);
+            nodes.put(to, node);
+            open.add(node);
+        } else if (!node.closed && tentative < node.cost) {
+            // no decrease key in PriorityQueue, the stale entry is skipped once it's polled
+            node.closed = true;
+            Node replacement = new Node(to, tentative, node.heuristic, from);
+            nodes.put(to, replacement);
+            open.add(replacement);
+        }
+    }
+
+    private static double heuristic(Portal portal, int targetX, int targetZ) {
+        int dx = targetX - portal.x;
+        int dz = targetZ - portal.z;
+        return Math.sqrt(dx * dx + dz * dz) * ActionCosts.WALK_ONE_BLOCK_COST;
+    }
+
+    private static int compare(Node a, Node b) {
+        int result = Double.compare(a.cost + a.heuristic, b.cost + b.heuristic);
+        if (result == 0) {
+            result = Integer.compare(a.portal.x, b.portal.x);
+        }
+        if (result == 0) {
+            result = Integer.compare(a.portal.z, b.portal.z);
+        }
+        if (result == 0) {
+            result = Integer.compare(a.portal.y, b.portal.y);
+        }
+        if (result == 0) {
+            result = Integer.compare(a.portal.side, b.portal.side);
+        }
+        return result;
+    }
+
+    private static List<Portal> route(Node end) {
+        LinkedList<Portal> route = new LinkedList<>();
+        for (Node node = end; node != null; node = node.previous) {
+            route.addFirst(node.portal);
+        }
+        return new ArrayList<>(route);
+    }
+
+    private static final class Node {
+
+        final Portal portal;
+        final double cost;
+        final double heuristic;
+        final Node previous;
+        boolean closed;
+
+        Node(Portal portal, double cost, double heuristic, Node previous) {
+            this.portal = portal;
+            this.cost = cost;
+            this.heuristic = heuristic;
+            this.previous = previous;
+        }
+    }
+}
@@ -17,7 +17,7 @@
 
 package baritone.pathing.calc.openset;
 
-import baritone.pathing.calc.PathNode;
+import baritone.pathing.calc.INodeStore;
 
 import java.util.Arrays;
 
@@ -33,55 +33,90 @@ public final class BinaryHeapOpenSet implements IOpenSet {
      */
     private static final int INITIAL_CAPACITY = 1024;
 
+    /**
+     * The store that the node handles refer to, and where heap positions are written back to
+     */
+    private final INodeStore store;
+
     /**
      * The array backing the heap
      */
-    private PathNode[] array;
+    private int[] array;
+
+    /**
+     * The combined cost of each node in the heap, kept alongside so that sifting doesn't have to go through the store
+     */
+    private double[] costs;
 
     /**
      * The size of the heap
      */
     private int size;
 
-    public BinaryHeapOpenSet() {
-        this(INITIAL_CAPACITY);
+    public BinaryHeapOpenSet(INodeStore store) {
+        this(store, INITIAL_CAPACITY);
     }
 
-    public BinaryHeapOpenSet(int size) {
+    public BinaryHeapOpenSet(INodeStore store, int size) {
+        this.store = store;
         this.size = 0;
-        this.array = new PathNode[size];
+        this.array = new int[size];
+        this.costs = new double[size];
     }
 
     public int size() {
         return size;
     }
 
+    /**
+     * Removes every node, keeping the backing arrays for reuse. Heap positions in the store are not touched.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes every node, and shrinks the backing arrays if they are larger than needed for the specified size
+     *
+     * @param capacity The number of nodes worth of memory to keep around
+     */
+    public void trim(int capacity) {
+        clear();
+        int length = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(capacity) << 1);
+        if (length < array.length) {
+            array = new int[length];
+            costs = new double[length];
+        }
+    }
+
     @Override
-    public final void insert(PathNode value) {
+    public final void insert(int value) {
         if (size >= array.length - 1) {
             array = Arrays.copyOf(array, array.length << 1);
+            costs = Arrays.copyOf(costs, costs.length << 1);
         }
         size++;
-        value.heapPosition = size;
+        store.setHeapPosition(value, size);
         array[size] = value;
         update(value);
     }
 
     @Override
-    public final void update(PathNode val) {
-        int index = val.heapPosition;
+    public final void update(int val) {
+        int index = store.getHeapPosition(val);
         int parentInd = index >>> 1;
-        double cost = val.combinedCost;
-        PathNode parentNode = array[parentInd];
-        while (index > 1 && parentNode.combinedCost > cost) {
+        double cost = store.getCombinedCost(val);
+        while (index > 1 && costs[parentInd] > cost) {
+            int parentNode = array[parentInd];
             array[index] = parentNode;
-            array[parentInd] = val;
-            val.heapPosition = parentInd;
-            parentNode.heapPosition = index;
+            costs[index] = costs[parentInd];
+            store.setHeapPosition(parentNode, index);
             index = parentInd;
             parentInd = index >>> 1;
-            parentNode = array[parentInd];
         }
+        array[index] = val;
+        costs[index] = cost;
+        store.setHeapPosition(val, index);
     }
 
     @Override
@@ -90,44 +125,81 @@ public final class BinaryHeapOpenSet implements IOpenSet {
     }
 
     @Override
-    public final PathNode removeLowest() {
+    public final int removeLowest() {
         if (size == 0) {
             throw new IllegalStateException();
         }
-        PathNode result = array[1];
-        PathNode val = array[size];
-        array[1] = val;
-        val.heapPosition = 1;
-        array[size] = null;
+        int result = array[1];
+        int val = array[size];
+        double cost = costs[size];
         size--;
-        result.heapPosition = -1;
-        if (size < 2) {
+        store.setHeapPosition(result, -1);
+        if (size == 0) {
             return result;
         }
-        int index = 1;
-        int smallerChild = 2;
-        double cost = val.combinedCost;
-        do {
-            PathNode smallerChildNode = array[smallerChild];
-            double smallerChildCost = smallerChildNode.combinedCost;
+        siftDown(1, val, cost);
+        return result;
+    }
+
+    /**
+     * @return The combined cost of the node that {@link #removeLowest()} would return
+     */
+    public final double lowestCost() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        return costs[1];
+    }
+
+    /**
+     * Removes a node from anywhere in the heap. Unlike {@link #update(int)}, this allows the combined cost of a node to
+     * go up: remove it, change the cost, then insert it again.
+     *
+     * @param val The node, which must be in the heap
+     */
+    public final void remove(int val) {
+        int index = store.getHeapPosition(val);
+        store.setHeapPosition(val, -1);
+        int last = array[size];
+        double lastCost = costs[size];
+        size--;
+        if (index > size) {
+            // it was the last one
+            return;
+        }
+        array[index] = last;
+        costs[index] = lastCost;
+        store.setHeapPosition(last, index);
+        if (index > 1 && costs[index >>> 1] > lastCost) {
+            update(last);
+        } else {
+            siftDown(index, last, lastCost);
+        }
+    }
+
+    private void siftDown(int index, int val, double cost) {
+        int smallerChild = index << 1;
+        while (smallerChild <= size) {
+            double smallerChildCost = costs[smallerChild];
             if (smallerChild < size) {
-                PathNode rightChildNode = array[smallerChild + 1];
-                double rightChildCost = rightChildNode.combinedCost;
+                double rightChildCost = costs[smallerChild + 1];
                 if (smallerChildCost > rightChildCost) {
                     smallerChild++;
                     smallerChildCost = rightChildCost;
-                    smallerChildNode = rightChildNode;
                 }
             }
             if (cost <= smallerChildCost) {
                 break;
             }
+            int smallerChildNode = array[smallerChild];
             array[index] = smallerChildNode;
-            array[smallerChild] = val;
-            val.heapPosition = smallerChild;
-            smallerChildNode.heapPosition = index;
+            costs[index] = smallerChildCost;
+            store.setHeapPosition(smallerChildNode, index);
             index = smallerChild;
-        } while ((smallerChild <<= 1) <= size);
-        return result;
+            smallerChild <<= 1;
+        }
+        array[index] = val;
+        costs[index] = cost;
+        store.setHeapPosition(val, index);
     }
 }
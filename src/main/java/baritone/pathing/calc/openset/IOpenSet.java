@@ -17,10 +17,9 @@
 
 package baritone.pathing.calc.openset;
 
-import baritone.pathing.calc.PathNode;
-
 /**
- * An open set for A* or similar graph search algorithm
+ * An open set for A* or similar graph search algorithm. Nodes are handles into an
+ * {@link baritone.pathing.calc.INodeStore}, which is where their costs are read from.
  *
  * @author leijurv
  */
@@ -29,9 +28,9 @@ public interface IOpenSet {
     /**
      * Inserts the specified node into the heap
      *
-     * @param node The node
+     * @param node The node handle
      */
-    void insert(PathNode node);
+    void insert(int node);
 
     /**
      * @return {@code true} if the heap has no elements; {@code false} otherwise.
@@ -41,14 +40,14 @@ public interface IOpenSet {
     /**
      * Removes and returns the minimum element in the heap.
      *
-     * @return The minimum element in the heap
+     * @return The handle of the minimum element in the heap
      */
-    PathNode removeLowest();
+    int removeLowest();
 
     /**
      * A faster path has been found to this node, decreasing its cost. Perform a decrease-key operation.
      *
-     * @param node The node
+     * @param node The node handle
      */
-    void update(PathNode node);
+    void update(int node);
 }
@@ -17,7 +17,7 @@
 
 package baritone.pathing.calc.openset;
 
-import baritone.pathing.calc.PathNode;
+import baritone.pathing.calc.INodeStore;
 
 /**
  * A linked list implementation of an open set. This is the original implementation from MineBot.
@@ -28,15 +28,21 @@ import baritone.pathing.calc.PathNode;
  */
 class LinkedListOpenSet implements IOpenSet {
 
+    private final INodeStore store;
+
     private Node first = null;
 
+    LinkedListOpenSet(INodeStore store) {
+        this.store = store;
+    }
+
     @Override
     public boolean isEmpty() {
         return first == null;
     }
 
     @Override
-    public void insert(PathNode pathNode) {
+    public void insert(int pathNode) {
         Node node = new Node();
         node.val = pathNode;
         node.nextOpen = first;
@@ -44,14 +50,14 @@ class LinkedListOpenSet implements IOpenSet {
     }
 
     @Override
-    public void update(PathNode node) {
+    public void update(int node) {
 
     }
 
     @Override
-    public PathNode removeLowest() {
+    public int removeLowest() {
         if (first == null) {
-            return null;
+            return INodeStore.NONE;
         }
         Node current = first.nextOpen;
         if (current == null) {
@@ -60,11 +66,11 @@ class LinkedListOpenSet implements IOpenSet {
             return n.val;
         }
         Node previous = first;
-        double bestValue = first.val.combinedCost;
+        double bestValue = store.getCombinedCost(first.val);
         Node bestNode = first;
         Node beforeBest = null;
         while (current != null) {
-            double comp = current.val.combinedCost;
+            double comp = store.getCombinedCost(current.val);
             if (comp < bestValue) {
                 bestValue = comp;
                 bestNode = current;
@@ -86,6 +92,6 @@ class LinkedListOpenSet implements IOpenSet {
     public static class Node { //wrapper with next
 
         private Node nextOpen;
-        private PathNode val;
+        private int val;
     }
 }
@@ -83,22 +83,79 @@ public class CalculationContext {
 
     public final PrecomputedData precomputedData;
 
+    /**
+     * Where movement costs from previous searches are kept, null if they aren't
+     */
+    public final MovementCostCache costCache;
+
+    /**
+     * The {@link MovementCostCache#generation()} when the blocks this context sees were taken
+     */
+    public final long costCacheGeneration;
+
     public CalculationContext(IBaritone baritone) {
         this(baritone, false);
     }
 
     public CalculationContext(IBaritone baritone, boolean forUseOnAnotherThread) {
-        this.precomputedData = new PrecomputedData();
-        this.safeForThreadedUse = forUseOnAnotherThread;
+        this(baritone, forUseOnAnotherThread, baritone.getPlayerContext().player(), baritone.getPlayerContext().world());
+    }
+
+    private CalculationContext(IBaritone baritone, boolean forUseOnAnotherThread, EntityPlayerSP player, World world) {
+        this(
+                baritone,
+                forUseOnAnotherThread,
+                world,
+                (WorldData) baritone.getPlayerContext().worldData(),
+                new BlockStateInterface(baritone.getPlayerContext(), forUseOnAnotherThread),
+                new ToolSet(player),
+                ((Baritone) baritone).getInventoryBehavior().hasGenericThrowaway(),
+                InventoryPlayer.isHotbar(player.inventory.getSlotFor(STACK_BUCKET_WATER)) && !world.provider.isNether(),
+                player.getFoodStats().getFoodLevel() > 6,
+                EnchantmentHelper.getMaxEnchantmentLevel(Enchantments.FROST_WALKER, player),
+                EnchantmentHelper.getDepthStriderModifier(player),
+                new BetterWorldBorder(world.getWorldBorder()),
+                ((Baritone) baritone).getPathingBehavior().getMovementCostCache()
+        );
+    }
+
+    /**
+     * Creates a context from explicit parameters rather than from the player, e.g. to path through a synthetic world
+     * without a running client. Everything that isn't passed in is read from settings, same as the other constructors.
+     *
+     * @param baritone            The baritone instance, only needed to create movements after calculation, may be null
+     * @param safeForThreadedUse  Whether the block state interface can be read from another thread
+     * @param world               The world, may be null if nothing reads it
+     * @param worldData           The world data, may be null if nothing reads it
+     * @param bsi                 Where block states are read from
+     * @param toolSet             The tools used to calculate break costs
+     * @param hasThrowaway        Whether there are throwaway blocks to place
+     * @param hasWaterBucket      Whether there is a water bucket on the hotbar
+     * @param canSprint           Whether the player is able to sprint (e.g. is not too hungry)
+     * @param frostWalker         The level of frost walker on the boots
+     * @param depthStrider        The level of depth strider on the boots
+     * @param worldBorder         The world border
+     */
+    public CalculationContext(IBaritone baritone, boolean safeForThreadedUse, World world, WorldData worldData, BlockStateInterface bsi, ToolSet toolSet,
+                              boolean hasThrowaway, boolean hasWaterBucket, boolean canSprint, int frostWalker, int depthStrider, BetterWorldBorder worldBorder) {
+        this(baritone, safeForThreadedUse, world, worldData, bsi, toolSet, hasThrowaway, hasWaterBucket, canSprint, frostWalker, depthStrider, worldBorder, null);
+    }
+
+    private CalculationContext(IBaritone baritone, boolean safeForThreadedUse, World world, WorldData worldData, BlockStateInterface bsi, ToolSet toolSet,
+                               boolean hasThrowaway, boolean hasWaterBucket, boolean canSprint, int frostWalker, int depthStrider, BetterWorldBorder worldBorder,
+                               MovementCostCache costCache) {
+        this.precomputedData = PrecomputedData.get();
+        this.costCache = costCache;
+        this.costCacheGeneration = costCache == null ? 0 : costCache.generation();
+        this.safeForThreadedUse = safeForThreadedUse;
         this.baritone = baritone;
-        EntityPlayerSP player = baritone.getPlayerContext().player();
-        this.world = baritone.getPlayerContext().world();
-        this.worldData = (WorldData) baritone.getPlayerContext().worldData();
-        this.bsi = new BlockStateInterface(baritone.getPlayerContext(), forUseOnAnotherThread);
-        this.toolSet = new ToolSet(player);
-        this.hasThrowaway = Baritone.settings().allowPlace.value && ((Baritone) baritone).getInventoryBehavior().hasGenericThrowaway();
-        this.hasWaterBucket = Baritone.settings().allowWaterBucketFall.value && InventoryPlayer.isHotbar(player.inventory.getSlotFor(STACK_BUCKET_WATER)) && !world.provider.isNether();
-        this.canSprint = Baritone.settings().allowSprint.value && player.getFoodStats().getFoodLevel() > 6;
+        this.world = world;
+        this.worldData = worldData;
+        this.bsi = bsi;
+        this.toolSet = toolSet;
+        this.hasThrowaway = Baritone.settings().allowPlace.value && hasThrowaway;
+        this.hasWaterBucket = Baritone.settings().allowWaterBucketFall.value && hasWaterBucket;
+        this.canSprint = Baritone.settings().allowSprint.value && canSprint;
         this.placeBlockCost = Baritone.settings().blockPlacementPenalty.value;
         this.allowBreak = Baritone.settings().allowBreak.value;
         this.allowBreakAnyway = new ArrayList<>(Baritone.settings().allowBreakAnyway.value);
@@ -108,14 +165,14 @@ public class CalculationContext {
         this.allowParkourAscend = Baritone.settings().allowParkourAscend.value;
         this.assumeWalkOnWater = Baritone.settings().assumeWalkOnWater.value;
         this.allowFallIntoLava = false; // Super secret internal setting for ElytraBehavior
-        this.frostWalker = EnchantmentHelper.getMaxEnchantmentLevel(Enchantments.FROST_WALKER, baritone.getPlayerContext().player());
+        this.frostWalker = frostWalker;
         this.allowDiagonalDescend = Baritone.settings().allowDiagonalDescend.value;
         this.allowDiagonalAscend = Baritone.settings().allowDiagonalAscend.value;
         this.allowDownward = Baritone.settings().allowDownward.value;
         this.minFallHeight = 3; // Minimum fall height used by MovementFall
         this.maxFallHeightNoWater = Baritone.settings().maxFallHeightNoWater.value;
         this.maxFallHeightBucket = Baritone.settings().maxFallHeightBucket.value;
-        int depth = EnchantmentHelper.getDepthStriderModifier(player);
+        int depth = depthStrider;
         if (depth > 3) {
             depth = 3;
         }
@@ -128,7 +185,54 @@ public class CalculationContext {
         // why cache these things here, why not let the movements just get directly from settings?
         // because if some movements are calculated one way and others are calculated another way,
         // then you get a wildly inconsistent path that isn't optimal for either scenario.
-        this.worldBorder = new BetterWorldBorder(world.getWorldBorder());
+        this.worldBorder = worldBorder;
+    }
+
+    /**
+     * A copy of the specified context with its own block state interface and tool set, so that the two can be used on
+     * different threads at the same time, e.g. by a parallel search. Subclasses aren't copied, this is always a plain
+     * context.
+     *
+     * @param other The context to copy, which must be safe for threaded use
+     */
+    public CalculationContext(CalculationContext other) {
+        if (!other.safeForThreadedUse) {
+            throw new IllegalArgumentException("Only a context made for use on another thread can be copied");
+        }
+        this.precomputedData = other.precomputedData;
+        this.costCache = other.costCache;
+        this.costCacheGeneration = other.costCacheGeneration;
+        this.safeForThreadedUse = true;
+        this.baritone = other.baritone;
+        this.world = other.world;
+        this.worldData = other.worldData;
+        this.bsi = other.bsi.copy();
+        this.toolSet = new ToolSet(other.toolSet);
+        this.hasWaterBucket = other.hasWaterBucket;
+        this.hasThrowaway = other.hasThrowaway;
+        this.canSprint = other.canSprint;
+        this.placeBlockCost = other.placeBlockCost;
+        this.allowBreak = other.allowBreak;
+        this.allowBreakAnyway = other.allowBreakAnyway;
+        this.allowParkour = other.allowParkour;
+        this.allowParkourPlace = other.allowParkourPlace;
+        this.allowJumpAt256 = other.allowJumpAt256;
+        this.allowParkourAscend = other.allowParkourAscend;
+        this.assumeWalkOnWater = other.assumeWalkOnWater;
+        this.allowFallIntoLava = other.allowFallIntoLava;
+        this.frostWalker = other.frostWalker;
+        this.allowDiagonalDescend = other.allowDiagonalDescend;
+        this.allowDiagonalAscend = other.allowDiagonalAscend;
+        this.allowDownward = other.allowDownward;
+        this.minFallHeight = other.minFallHeight;
+        this.maxFallHeightNoWater = other.maxFallHeightNoWater;
+        this.maxFallHeightBucket = other.maxFallHeightBucket;
+        this.waterWalkSpeed = other.waterWalkSpeed;
+        this.breakBlockAdditionalCost = other.breakBlockAdditionalCost;
+        this.backtrackCostFavoringCoefficient = other.backtrackCostFavoringCoefficient;
+        this.jumpPenalty = other.jumpPenalty;
+        this.walkOnWaterOnePenalty = other.walkOnWaterOnePenalty;
+        this.worldBorder = other.worldBorder;
     }
 
     public final IBaritone getBaritone() {
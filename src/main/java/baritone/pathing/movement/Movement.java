@@ -68,7 +68,7 @@ public abstract class Movement implements IMovement, MovementHelper {
 
     protected Movement(IBaritone baritone, BetterBlockPos src, BetterBlockPos dest, BetterBlockPos[] toBreak, BetterBlockPos toPlace) {
         this.baritone = baritone;
-        this.ctx = baritone.getPlayerContext();
+        this.ctx = baritone == null ? null : baritone.getPlayerContext(); // null when pathing headless, such a movement can be costed but not executed
         this.src = src;
         this.dest = dest;
         this.positionsToBreak = toBreak;
@@ -0,0 +1,266 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.pathing.movement;
+
+import baritone.Baritone;
+import baritone.api.Settings;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Movement costs calculated by previous searches, per chunk of the movement's source, so that searching through the
+ * same area again doesn't calculate every movement from scratch
+ * <p>
+ * A movement reads blocks up to a few blocks away from its source, so a block change or a chunk (un)loading throws
+ * away the chunk it's in as well as the chunks around it. Everything is thrown away when the rules change, see
+ * {@link #fingerprint(CalculationContext)}.
+ * <p>
+ * A search that's still looking at the blocks from before a chunk was thrown away must neither read nor add to the
+ * costs cached for it since, see {@link #generation()}.
+ */
+public final class MovementCostCache {
+
+    /**
+     * Start over once this many movements are cached, so that wandering around doesn't fill up memory
+     */
+    private static final int MAX_ENTRIES = 1 << 20;
+
+    /**
+     * Forget when chunks were thrown away once this many are remembered, see {@link #oldestGeneration}
+     */
+    private static final int MAX_GENERATIONS = 4096;
+
+    private final Long2ObjectOpenHashMap<Chunk> chunks = new Long2ObjectOpenHashMap<>();
+
+    private long fingerprint;
+
+    private int entries;
+
+    /**
+     * Counts up every time chunks are thrown away
+     */
+    private long generation;
+
+    /**
+     * The generation each chunk was last thrown away in, if it's been since {@link #oldestGeneration}
+     */
+    private final Long2LongOpenHashMap generations = new Long2LongOpenHashMap();
+
+    /**
+     * Any chunk might have been thrown away since before this generation
+     */
+    private long oldestGeneration;
+
+    /**
+     * A hash of everything movement costs depend on other than blocks. Two contexts with the same fingerprint calculate
+     * the same cost for every movement, given the same blocks.
+     * <p>
+     * Contexts with different rules for where blocks may be placed or broken (subclasses) aren't covered, don't cache
+     * their costs.
+     *
+     * @param ctx The context
+     * @return The fingerprint
+     */
+    public static long fingerprint(CalculationContext ctx) {
+        long hash = System.identityHashCode(ctx.world);
+        hash = hash * 31 + System.identityHashCode(ctx.worldData);
+        hash = hash * 31 + ctx.toolSet.fingerprint();
+        hash = hash * 31 + Boolean.hashCode(ctx.hasWaterBucket);
+        hash = hash * 31 + Boolean.hashCode(ctx.hasThrowaway);
+        hash = hash * 31 + Boolean.hashCode(ctx.canSprint);
+        hash = hash * 31 + Double.hashCode(ctx.placeBlockCost);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowBreak);
+        hash = hash * 31 + ctx.allowBreakAnyway.hashCode();
+        hash = hash * 31 + Boolean.hashCode(ctx.allowParkour);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowParkourPlace);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowJumpAt256);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowParkourAscend);
+        hash = hash * 31 + Boolean.hashCode(ctx.assumeWalkOnWater);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowFallIntoLava);
+        hash = hash * 31 + ctx.frostWalker;
+        hash = hash * 31 + Boolean.hashCode(ctx.allowDiagonalDescend);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowDiagonalAscend);
+        hash = hash * 31 + Boolean.hashCode(ctx.allowDownward);
+        hash = hash * 31 + ctx.minFallHeight;
+        hash = hash * 31 + ctx.maxFallHeightNoWater;
+        hash = hash * 31 + ctx.maxFallHeightBucket;
+        hash = hash * 31 + Double.hashCode(ctx.waterWalkSpeed);
+        hash = hash * 31 + Double.hashCode(ctx.breakBlockAdditionalCost);
+        hash = hash * 31 + Double.hashCode(ctx.jumpPenalty);
+        hash = hash * 31 + Double.hashCode(ctx.walkOnWaterOnePenalty);
+        hash = hash * 31 + ctx.worldBorder.hashCode();
+        // some movements read settings directly rather than from the context
+        for (Settings.Setting<?> setting : Baritone.settings().allSettings) {
+            hash = hash * 31 + Objects.hashCode(setting.value);
+        }
+        return hash;
+    }
+
+    /**
+     * To be taken along with the blocks a search will see. Once a chunk is thrown away, searches from before then get
+     * nothing from {@link #getChunk(long, long, int, int)} for it, since their costs would be from the old blocks.
+     *
+     * @return The current generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Gets the cached costs of movements starting in the specified chunk. If the fingerprint doesn't match the one the
+     * cached costs were calculated with, everything is thrown away first.
+     *
+     * @param fingerprint The fingerprint of the context that will be used, see {@link #fingerprint(CalculationContext)}
+     * @param generation  The {@link #generation()} when the blocks the context sees were taken
+     * @param chunkX      The chunk x
+     * @param chunkZ      The chunk z
+     * @return The cached costs, or null if the chunk was thrown away after that generation
+     */
+    public synchronized Chunk getChunk(long fingerprint, long generation, int chunkX, int chunkZ) {
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        if (generation < oldestGeneration || generations.get(key) > generation) {
+            return null;
+        }
+        if (fingerprint != this.fingerprint || entries > MAX_ENTRIES) {
+            clear();
+            this.fingerprint = fingerprint;
+        }
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Throws away the cached costs of every movement that could have read blocks in the specified chunk
+     *
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     */
+    public synchronized void invalidate(int chunkX, int chunkZ) {
+        generation++;
+        if (generations.size() > MAX_GENERATIONS) {
+            generations.clear();
+            oldestGeneration = generation;
+        }
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                long key = ChunkPos.asLong(chunkX + dx, chunkZ + dz);
+                generations.put(key, generation);
+                Chunk chunk = chunks.remove(key);
+                if (chunk != null) {
+                    entries -= chunk.invalidate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Throws away everything
+     */
+    public synchronized void clear() {
+        for (Chunk chunk : chunks.values()) {
+            chunk.invalidate();
+        }
+        chunks.clear();
+        entries = 0;
+    }
+
+    private synchronized void added() {
+        entries++;
+    }
+
+    /**
+     * The cached costs of the movements starting in one chunk
+     */
+    public final class Chunk {
+
+        private final Int2IntOpenHashMap slots = new Int2IntOpenHashMap();
+
+        private double[] costs = new double[64];
+
+        /**
+         * Destination relative to the source, 4 bits of x, 4 bits of z, 9 bits of y
+         */
+        private int[] dests = new int[64];
+
+        /**
+         * Set once the chunk is thrown away, so that a cost calculated from blocks that changed in the meantime isn't
+         * added afterwards
+         */
+        private boolean invalid;
+
+        private Chunk() {
+            slots.defaultReturnValue(-1);
+        }
+
+        /**
+         * Same as {@link Moves#apply(CalculationContext, int, int, int, MutableMoveResult)}, only calculating the cost
+         * if it isn't cached yet. The source must be in this chunk.
+         */
+        public void apply(Moves moves, CalculationContext context, int x, int y, int z, MutableMoveResult result) {
+            int key = (x & 15) | (z & 15) << 4 | y << 8 | moves.ordinal() << 17;
+            synchronized (this) {
+                int slot = slots.get(key);
+                if (slot != -1) {
+                    int dest = dests[slot];
+                    result.x = x + (dest & 15) - 8;
+                    result.z = z + (dest >> 4 & 15) - 8;
+                    result.y = y + (dest >> 8) - 256;
+                    result.cost = costs[slot];
+                    return;
+                }
+            }
+            moves.apply(context, x, y, z, result);
+            synchronized (this) {
+                if (invalid) {
+                    return;
+                }
+                int slot = slots.size();
+                if (slot == costs.length) {
+                    costs = Arrays.copyOf(costs, slot * 2);
+                    dests = Arrays.copyOf(dests, slot * 2);
+                }
+                // impossible movements don't necessarily have a sensible destination, it isn't read anyway
+                boolean possible = result.cost < ActionCosts.COST_INF;
+                int dx = possible ? result.x - x + 8 : 8;
+                int dz = possible ? result.z - z + 8 : 8;
+                int dy = possible ? result.y - y + 256 : 256;
+                costs[slot] = result.cost;
+                dests[slot] = dx | dz << 4 | dy << 8;
+                slots.put(key, slot);
+            }
+            added();
+        }
+
+        private synchronized int invalidate() {
+            invalid = true;
+            return slots.size();
+        }
+    }
+}
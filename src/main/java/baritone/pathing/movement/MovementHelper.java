@@ -106,7 +106,7 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static boolean canWalkThrough(CalculationContext context, int x, int y, int z) {
-        return context.precomputedData.canWalkThrough(context.bsi, x, y, z, context.get(x, y, z));
+        return context.precomputedData.canWalkThrough(context.bsi, x, y, z);
     }
 
     static boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
@@ -250,7 +250,7 @@ public interface MovementHelper extends ActionCosts, Helper {
      * not including water, and not including ladders or vines or cobwebs (they slow us down)
      */
     static boolean fullyPassable(CalculationContext context, int x, int y, int z) {
-        return fullyPassable(context, x, y, z, context.get(x, y, z));
+        return context.precomputedData.fullyPassable(context.bsi, x, y, z);
     }
 
     static boolean fullyPassable(CalculationContext context, int x, int y, int z, IBlockState state) {
@@ -459,7 +459,7 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static boolean canWalkOn(CalculationContext context, int x, int y, int z) {
-        return canWalkOn(context, x, y, z, context.get(x, y, z));
+        return context.precomputedData.canWalkOn(context.bsi, x, y, z);
     }
 
     static boolean canWalkOn(IPlayerContext ctx, BetterBlockPos pos, IBlockState state) {
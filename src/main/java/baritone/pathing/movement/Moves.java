@@ -164,6 +164,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDescend.cost(context, x, y, z, x + 1, z, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDescend.maxFallHeight(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDescend.source(destX - 1, destY, destZ, index, result);
+        }
     },
 
     DESCEND_WEST(-1, -1, 0, false, true) {
@@ -182,6 +192,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDescend.cost(context, x, y, z, x - 1, z, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDescend.maxFallHeight(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDescend.source(destX + 1, destY, destZ, index, result);
+        }
     },
 
     DESCEND_NORTH(0, -1, -1, false, true) {
@@ -200,6 +220,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDescend.cost(context, x, y, z, x, z - 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDescend.maxFallHeight(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDescend.source(destX, destY, destZ + 1, index, result);
+        }
     },
 
     DESCEND_SOUTH(0, -1, +1, false, true) {
@@ -218,6 +248,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDescend.cost(context, x, y, z, x, z + 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDescend.maxFallHeight(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDescend.source(destX, destY, destZ - 1, index, result);
+        }
     },
 
     DIAGONAL_NORTHEAST(+1, 0, -1, false, true) {
@@ -232,6 +272,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDiagonal.cost(context, x, y, z, x + 1, z - 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDiagonal.SOURCE_COUNT;
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDiagonal.source(destX - 1, destY, destZ + 1, index, result);
+        }
     },
 
     DIAGONAL_NORTHWEST(-1, 0, -1, false, true) {
@@ -246,6 +296,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDiagonal.cost(context, x, y, z, x - 1, z - 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDiagonal.SOURCE_COUNT;
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDiagonal.source(destX + 1, destY, destZ + 1, index, result);
+        }
     },
 
     DIAGONAL_SOUTHEAST(+1, 0, +1, false, true) {
@@ -260,6 +320,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDiagonal.cost(context, x, y, z, x + 1, z + 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDiagonal.SOURCE_COUNT;
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDiagonal.source(destX - 1, destY, destZ - 1, index, result);
+        }
     },
 
     DIAGONAL_SOUTHWEST(-1, 0, +1, false, true) {
@@ -274,6 +344,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementDiagonal.cost(context, x, y, z, x - 1, z + 1, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementDiagonal.SOURCE_COUNT;
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementDiagonal.source(destX + 1, destY, destZ - 1, index, result);
+        }
     },
 
     PARKOUR_NORTH(0, 0, -4, true, true) {
@@ -286,6 +366,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkour.cost(context, x, y, z, EnumFacing.NORTH, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementParkour.sourceCount(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementParkour.source(destX, destY, destZ, EnumFacing.NORTH, index, result);
+        }
     },
 
     PARKOUR_SOUTH(0, 0, +4, true, true) {
@@ -298,6 +388,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkour.cost(context, x, y, z, EnumFacing.SOUTH, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementParkour.sourceCount(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementParkour.source(destX, destY, destZ, EnumFacing.SOUTH, index, result);
+        }
     },
 
     PARKOUR_EAST(+4, 0, 0, true, true) {
@@ -310,6 +410,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkour.cost(context, x, y, z, EnumFacing.EAST, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementParkour.sourceCount(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementParkour.source(destX, destY, destZ, EnumFacing.EAST, index, result);
+        }
     },
 
     PARKOUR_WEST(-4, 0, 0, true, true) {
@@ -322,6 +432,16 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkour.cost(context, x, y, z, EnumFacing.WEST, result);
         }
+
+        @Override
+        public int sourceCount(CalculationContext context) {
+            return MovementParkour.sourceCount(context);
+        }
+
+        @Override
+        public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+            MovementParkour.source(destX, destY, destZ, EnumFacing.WEST, index, result);
+        }
     };
 
     public final boolean dynamicXZ;
@@ -358,4 +478,33 @@ public enum Moves {
     public double cost(CalculationContext context, int x, int y, int z) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * For searching backwards: how many positions {@link #source} can list that this move might start from to end up
+     * at a given position.
+     *
+     * @return The number of candidates, or -1 if this move can't be searched backwards
+     */
+    public int sourceCount(CalculationContext context) {
+        if (dynamicXZ || dynamicY) {
+            return -1;
+        }
+        return 1;
+    }
+
+    /**
+     * Sets the position of result to one of the positions this move might start from to end up at the specified
+     * destination. It's only a candidate, {@link #apply} from there tells whether it actually ends up there, and at what
+     * cost.
+     *
+     * @param index Which candidate, less than {@link #sourceCount}
+     */
+    public void source(CalculationContext context, int destX, int destY, int destZ, int index, MutableMoveResult result) {
+        if (dynamicXZ || dynamicY) {
+            throw new UnsupportedOperationException();
+        }
+        result.x = destX - xOffset;
+        result.y = destY - yOffset;
+        result.z = destZ - zOffset;
+    }
 }
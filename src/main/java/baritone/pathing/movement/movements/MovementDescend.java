@@ -135,6 +135,23 @@ public class MovementDescend extends Movement {
         res.cost = totalCost;
     }
 
+    /**
+     * How far above its destination a descend or fall can start. Falls into water or down ladders can start higher
+     * than this, so a backwards search doesn't find those.
+     */
+    public static int maxFallHeight(CalculationContext context) {
+        return Math.max(context.maxFallHeightNoWater, context.hasWaterBucket ? context.maxFallHeightBucket : 0);
+    }
+
+    /**
+     * The index-th place that a descend or fall from the specified column might have started, to end up at destY
+     */
+    public static void source(int x, int destY, int z, int index, MutableMoveResult res) {
+        res.x = x;
+        res.y = destY + 1 + index;
+        res.z = z;
+    }
+
     public static boolean dynamicFallCost(CalculationContext context, int x, int y, int z, int destX, int destZ, double frontBreak, IBlockState below, MutableMoveResult res) {
         if (frontBreak != 0 && context.get(destX, y + 2, destZ).getBlock() instanceof BlockFalling) {
             // if frontBreak is 0 we can actually get through this without updating the falling block and making it actually fall
@@ -148,6 +165,8 @@ public class MovementDescend extends Movement {
         double costSoFar = 0;
         int effectiveStartHeight = y;
         for (int fallHeight = 3; true; fallHeight++) {
+            // anything that's plain air would just be fallen through, so skip straight past it
+            fallHeight = y - context.bsi.getNextNonPlainAirBelow(destX, y - fallHeight + 1, destZ, context.precomputedData);
             int newY = y - fallHeight;
             if (newY < 0) {
                 // when pathing in the end, where you could plausibly fall into the void
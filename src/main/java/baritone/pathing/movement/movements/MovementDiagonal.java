@@ -44,6 +44,13 @@ public class MovementDiagonal extends Movement {
 
     private static final double SQRT_2 = Math.sqrt(2);
 
+    /**
+     * A diagonal can end up level, one block up, or one block down
+     */
+    public static final int SOURCE_COUNT = 3;
+
+    private static final int[] SOURCE_DY = {0, -1, 1};
+
     public MovementDiagonal(IBaritone baritone, BetterBlockPos start, EnumFacing dir1, EnumFacing dir2, int dy) {
         this(baritone, start, start.offset(dir1), start.offset(dir2), dir2, dy);
         // super(start, start.offset(dir1).offset(dir2), new BlockPos[]{start.offset(dir1), start.offset(dir1).up(), start.offset(dir2), start.offset(dir2).up(), start.offset(dir1).offset(dir2), start.offset(dir1).offset(dir2).up()}, new BlockPos[]{start.offset(dir1).offset(dir2).down()});
@@ -109,6 +116,15 @@ public class MovementDiagonal extends Movement {
         return ImmutableSet.of(src, dest, diagA, diagB);
     }
 
+    /**
+     * The index-th place in the specified column that a diagonal might have started, to end up at destY
+     */
+    public static void source(int x, int destY, int z, int index, MutableMoveResult res) {
+        res.x = x;
+        res.y = destY + SOURCE_DY[index];
+        res.z = z;
+    }
+
     public static void cost(CalculationContext context, int x, int y, int z, int destX, int destZ, MutableMoveResult res) {
         if (!MovementHelper.canWalkThrough(context, destX, y + 1, destZ)) {
             return;
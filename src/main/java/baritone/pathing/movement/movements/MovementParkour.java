@@ -60,6 +60,24 @@ public class MovementParkour extends Movement {
         return new MovementParkour(context.getBaritone(), src, dist, direction, res.y > src.y);
     }
 
+    /**
+     * A parkour jump lands level 2 to 4 blocks away, or one block up 2 to 3 blocks away
+     */
+    public static int sourceCount(CalculationContext context) {
+        return context.allowParkour ? 5 : 0;
+    }
+
+    /**
+     * The index-th place that a parkour jump in the specified direction might have started, to end up at dest
+     */
+    public static void source(int destX, int destY, int destZ, EnumFacing dir, int index, MutableMoveResult res) {
+        boolean ascend = index >= 3;
+        int dist = ascend ? index - 1 : index + 2;
+        res.x = destX - dir.getXOffset() * dist;
+        res.y = ascend ? destY - 1 : destY;
+        res.z = destZ - dir.getZOffset() * dist;
+    }
+
     public static void cost(CalculationContext context, int x, int y, int z, EnumFacing dir, MutableMoveResult res) {
         if (!context.allowParkour) {
             return;
@@ -200,6 +200,7 @@ public class PathExecutor implements IPathExecutor, Helper {
             for (int i = 1; i < Baritone.settings().costVerificationLookahead.value && pathPosition + i < path.length() - 1; i++) {
                 if (((Movement) path.movements().get(pathPosition + i)).calculateCost(behavior.secretInternalGetCalculationContext()) >= ActionCosts.COST_INF && canCancel) {
                     logDebug("Something has changed in the world and a future movement has become impossible. Cancelling.");
+                    behavior.secretInternalMovementCostChanged(path.movements().get(pathPosition + i));
                     cancel();
                     return true;
                 }
@@ -208,6 +209,7 @@ public class PathExecutor implements IPathExecutor, Helper {
         double currentCost = movement.recalculateCost(behavior.secretInternalGetCalculationContext());
         if (currentCost >= ActionCosts.COST_INF && canCancel) {
             logDebug("Something has changed in the world and this movement has become impossible. Cancelling.");
+            behavior.secretInternalMovementCostChanged(movement);
             cancel();
             return true;
         }
@@ -215,6 +217,7 @@ public class PathExecutor implements IPathExecutor, Helper {
             // don't do this if the movement was calculated while loaded
             // that means that this isn't a cache error, it's just part of the path interfering with a later part
             logDebug("Original cost " + currentMovementOriginalCostEstimate + " current cost " + currentCost + ". Cancelling.");
+            behavior.secretInternalMovementCostChanged(movement);
             cancel();
             return true;
         }
@@ -17,15 +17,49 @@
 
 package baritone.pathing.precompute;
 
+import baritone.Baritone;
+import baritone.api.Settings;
 import baritone.pathing.movement.MovementHelper;
 import baritone.utils.BlockStateInterface;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static baritone.pathing.precompute.Ternary.MAYBE;
 import static baritone.pathing.precompute.Ternary.YES;
 
-public class PrecomputedData {
+/**
+ * What the search needs to know about each block state, looked up by its id. There is one per combination of the
+ * settings these depend on, shared by every context and every bot in the process, see {@link #get()}.
+ * <p>
+ * The flags are filled in as block states are first asked about, without locking. Each one is an int that only ever
+ * goes from zero to its final value, and that value only depends on the block state and the settings this was made
+ * for, so a thread that reads zero just works it out again and writes the same thing.
+ */
+public final class PrecomputedData {
+
+    /**
+     * Beyond this many distinct combinations of settings, the old ones are forgotten
+     */
+    private static final int MAX_INSTANCES = 16;
+
+    private static final ConcurrentMap<List<Object>, PrecomputedData> INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * The one most recently asked for, since the settings hardly ever change
+     */
+    private static volatile PrecomputedData latest;
+
+    /**
+     * The values of the settings that the flags depend on, when this was made
+     */
+    private final List<Object> settings;
 
     private final int[] data = new int[Block.BLOCK_STATE_IDS.size()];
 
@@ -36,6 +70,51 @@ public class PrecomputedData {
     private static final int CAN_WALK_THROUGH_SPECIAL_MASK = 1 << 4;
     private static final int FULLY_PASSABLE_MASK = 1 << 5;
     private static final int FULLY_PASSABLE_SPECIAL_MASK = 1 << 6;
+    private static final int PLAIN_FLOOR_MASK = 1 << 7;
+    private static final int PLAIN_AIR_MASK = 1 << 8;
+
+    private PrecomputedData(List<Object> settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return The data for the current settings, the same instance for as long as the settings it depends on stay the
+     * same
+     */
+    public static PrecomputedData get() {
+        List<Object> settings = currentSettings();
+        PrecomputedData data = latest;
+        if (data != null && data.settings.equals(settings)) {
+            return data;
+        }
+        data = INSTANCES.get(settings);
+        if (data == null) {
+            if (INSTANCES.size() >= MAX_INSTANCES) {
+                INSTANCES.clear();
+            }
+            PrecomputedData created = new PrecomputedData(settings);
+            data = INSTANCES.putIfAbsent(settings, created);
+            if (data == null) {
+                data = created;
+            }
+        }
+        latest = data;
+        return data;
+    }
+
+    /**
+     * Everything {@link MovementHelper#canWalkOnBlockState}, {@link MovementHelper#canWalkThroughBlockState} and
+     * {@link MovementHelper#fullyPassableBlockState} read from settings
+     */
+    private static List<Object> currentSettings() {
+        Settings settings = Baritone.settings();
+        return Arrays.asList(
+                settings.allowVines.value,
+                settings.assumeWalkOnLava.value,
+                settings.allowWalkOnBottomSlab.value,
+                new ArrayList<>(settings.blocksToAvoid.value)
+        );
+    }
 
     private int fillData(int id, IBlockState state) {
         int blockData = 0;
@@ -64,12 +143,60 @@ public class PrecomputedData {
             blockData |= FULLY_PASSABLE_SPECIAL_MASK;
         }
 
+        Block block = state.getBlock();
+        // soul sand slows down traverses and diagonals over it, so it doesn't cost the same as walking on stone
+        if (canWalkOnState == YES && state.isBlockNormalCube() && block != Blocks.MAGMA && block != Blocks.SOUL_SAND) {
+            blockData |= PLAIN_FLOOR_MASK;
+        }
+        if (canWalkThroughState == YES && fullyPassableState == YES) {
+            blockData |= PLAIN_AIR_MASK;
+        }
+
         blockData |= COMPLETED_MASK;
 
-        data[id] = blockData; // in theory, this is thread "safe" because every thread should compute the exact same int to write?
+        if (settings.equals(currentSettings())) {
+            // if they changed while this was being worked out, it might not be what this instance is for
+            data[id] = blockData;
+        }
         return blockData;
     }
 
+    /**
+     * The same as {@link #canWalkOn(BlockStateInterface, int, int, int, IBlockState)}, but only looks up the block
+     * state if the block is one of the special cases
+     */
+    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = getData(bsi, x, y, z);
+        if ((blockData & CAN_WALK_ON_SPECIAL_MASK) != 0) {
+            return MovementHelper.canWalkOnPosition(bsi, x, y, z, bsi.get0(x, y, z));
+        }
+        return (blockData & CAN_WALK_ON_MASK) != 0;
+    }
+
+    public boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = getData(bsi, x, y, z);
+        if ((blockData & CAN_WALK_THROUGH_SPECIAL_MASK) != 0) {
+            return MovementHelper.canWalkThroughPosition(bsi, x, y, z, bsi.get0(x, y, z));
+        }
+        return (blockData & CAN_WALK_THROUGH_MASK) != 0;
+    }
+
+    public boolean fullyPassable(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = getData(bsi, x, y, z);
+        if ((blockData & FULLY_PASSABLE_SPECIAL_MASK) != 0) {
+            return MovementHelper.fullyPassablePosition(bsi, x, y, z, bsi.get0(x, y, z));
+        }
+        return (blockData & FULLY_PASSABLE_MASK) != 0;
+    }
+
+    public boolean isPlainFloor(BlockStateInterface bsi, int x, int y, int z) {
+        return (getData(bsi, x, y, z) & PLAIN_FLOOR_MASK) != 0;
+    }
+
+    public boolean isPlainAir(BlockStateInterface bsi, int x, int y, int z) {
+        return (getData(bsi, x, y, z) & PLAIN_AIR_MASK) != 0;
+    }
+
     public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
         int id = Block.BLOCK_STATE_IDS.get(state);
         int blockData = data[id];
@@ -114,4 +241,52 @@ public class PrecomputedData {
             return (blockData & FULLY_PASSABLE_MASK) != 0;
         }
     }
+
+    /**
+     * Whether walking on this block costs the same as walking on any other plain floor, i.e. it's a full block with
+     * nothing that slows you down or that you'd want to avoid
+     */
+    public boolean isPlainFloor(IBlockState state) {
+        return (getData(state) & PLAIN_FLOOR_MASK) != 0;
+    }
+
+    /**
+     * Whether walking through this block costs the same as walking through air
+     */
+    public boolean isPlainAir(IBlockState state) {
+        return (getData(state) & PLAIN_AIR_MASK) != 0;
+    }
+
+    /**
+     * The flags of a block state without {@link #COMPLETED_MASK}, so that they fit in a byte. For chunk sections to
+     * keep the flags of each of their blocks in a dense array, see {@link BlockStateInterface#getDenseData}.
+     */
+    public byte getDenseData(IBlockState state) {
+        return (byte) (getData(state) >>> 1);
+    }
+
+    /**
+     * @param dense Flags from {@link #getDenseData(IBlockState)}
+     */
+    public static boolean isPlainAir(byte dense) {
+        return ((dense & 0xff) << 1 & PLAIN_AIR_MASK) != 0;
+    }
+
+    private int getData(BlockStateInterface bsi, int x, int y, int z) {
+        int dense = bsi.getDenseData(x, y, z, this);
+        if (dense < 0) {
+            return getData(bsi.get0(x, y, z));
+        }
+        return dense << 1 | COMPLETED_MASK;
+    }
+
+    private int getData(IBlockState state) {
+        int id = Block.BLOCK_STATE_IDS.get(state);
+        int blockData = data[id];
+
+        if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
+            blockData = fillData(id, state);
+        }
+        return blockData;
+    }
 }
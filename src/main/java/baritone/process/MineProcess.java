@@ -367,8 +367,8 @@ public final class MineProcess extends BaritoneProcessHelper implements IMinePro
                 BetterBlockPos pf = ctx.baritone.getPlayerContext().playerFeet();
 
                 // maxRegionDistanceSq 2 means adjacent directly or adjacent diagonally; nothing further than that
-                locs.addAll(ctx.worldData.getCachedWorld().getLocationsOf(
-                        BlockUtils.blockToString(block),
+                locs.addAll(ctx.worldData.getCachedWorld().getNearestLocationsOf(
+                        block,
                         Baritone.settings().maxCachedWorldScanCount.value,
                         pf.x,
                         pf.z,
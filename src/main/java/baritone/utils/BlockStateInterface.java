@@ -21,6 +21,7 @@ import baritone.Baritone;
 import baritone.api.utils.IPlayerContext;
 import baritone.cache.CachedRegion;
 import baritone.cache.WorldData;
+import baritone.pathing.precompute.PrecomputedData;
 import baritone.utils.accessor.IChunkProviderClient;
 import baritone.utils.pathing.BetterWorldBorder;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
@@ -41,13 +42,22 @@ import net.minecraft.world.chunk.Chunk;
  */
 public class BlockStateInterface {
 
+    /**
+     * The live loaded chunks, if this is only used on the game thread
+     */
     private final Long2ObjectMap<Chunk> loadedChunks;
+
+    /**
+     * The loaded chunks as they were when this was created, if this is used on another thread
+     */
+    private final WorldSnapshot snapshot;
     private final WorldData worldData;
     public final BlockPos.MutableBlockPos isPassableBlockPos;
     public final IBlockAccess access;
     public final BetterWorldBorder worldBorder;
 
     private Chunk prev = null;
+    private WorldSnapshot.Column prevColumn = null;
     private CachedRegion prevCached = null;
 
     private final boolean useTheRealWorld;
@@ -64,9 +74,12 @@ public class BlockStateInterface {
         this.worldData = (WorldData) ctx.worldData();
         Long2ObjectMap<Chunk> worldLoaded = ((IChunkProviderClient) world.getChunkProvider()).loadedChunks();
         if (copyLoadedChunks) {
-            this.loadedChunks = new Long2ObjectOpenHashMap<>(worldLoaded); // make a copy that we can safely access from another thread
+            // the chunks themselves keep changing on the main thread, so another thread can only safely read a copy of them
+            this.loadedChunks = null;
+            this.snapshot = worldData == null ? WorldSnapshot.of(worldLoaded) : worldData.snapshots.take(worldLoaded);
         } else {
             this.loadedChunks = worldLoaded; // this will only be used on the main thread
+            this.snapshot = null;
         }
         this.useTheRealWorld = !Baritone.settings().pathThroughCachedOnly.value;
         if (!ctx.minecraft().isCallingFromMinecraftThread()) {
@@ -76,7 +89,49 @@ public class BlockStateInterface {
         this.access = new BlockStateInterfaceAccessWrapper(this, world);
     }
 
+    /**
+     * For subclasses that don't read from the client world at all, e.g. a synthetic world in benchmarks. Such a
+     * subclass overrides {@link #get0(int, int, int)}, {@link #isLoaded(int, int)} and
+     * {@link #worldContainsLoadedChunk(int, int)}, since the implementations here will only ever see an empty world.
+     *
+     * @param worldBorder The world border
+     * @param world       The world, only used for the world type, may be null
+     */
+    protected BlockStateInterface(BetterWorldBorder worldBorder, IBlockAccess world) {
+        this.worldBorder = worldBorder;
+        this.worldData = null;
+        this.loadedChunks = new Long2ObjectOpenHashMap<>();
+        this.snapshot = null;
+        this.useTheRealWorld = false;
+        this.isPassableBlockPos = new BlockPos.MutableBlockPos();
+        this.access = new BlockStateInterfaceAccessWrapper(this, world);
+    }
+
+    private BlockStateInterface(BlockStateInterface other) {
+        this.worldBorder = other.worldBorder;
+        this.worldData = other.worldData;
+        this.loadedChunks = other.loadedChunks;
+        this.snapshot = other.snapshot;
+        this.useTheRealWorld = other.useTheRealWorld;
+        this.isPassableBlockPos = new BlockPos.MutableBlockPos();
+        this.access = new BlockStateInterfaceAccessWrapper(this, ((BlockStateInterfaceAccessWrapper) other.access).world);
+    }
+
+    /**
+     * Creates a block state interface that reads the same chunks and cache as this one, but can be used on another
+     * thread at the same time as this one. Only valid if this one was created to be used off thread in the first place,
+     * since the snapshot of the loaded chunks is shared rather than taken again.
+     *
+     * @return The copy
+     */
+    public BlockStateInterface copy() {
+        return new BlockStateInterface(this);
+    }
+
     public boolean worldContainsLoadedChunk(int blockX, int blockZ) {
+        if (snapshot != null) {
+            return snapshot.contains(blockX >> 4, blockZ >> 4);
+        }
         return loadedChunks.containsKey(ChunkPos.asLong(blockX >> 4, blockZ >> 4));
     }
 
@@ -101,7 +156,16 @@ public class BlockStateInterface {
             return AIR;
         }
 
-        if (useTheRealWorld) {
+        if (useTheRealWorld && snapshot != null) {
+            WorldSnapshot.Column column = prevColumn;
+            if (column == null || column.x != x >> 4 || column.z != z >> 4) {
+                column = snapshot.getColumn(x >> 4, z >> 4);
+            }
+            if (column != null) {
+                prevColumn = column;
+                return column.get(x, y, z);
+            }
+        } else if (useTheRealWorld) {
             Chunk cached = prev;
             // there's great cache locality in block state lookups
             // generally it's within each movement
@@ -140,7 +204,87 @@ public class BlockStateInterface {
         return type;
     }
 
+    /**
+     * The precomputed flags of the block at a position, straight from the dense flags of its chunk section
+     *
+     * @return The flags, see {@link PrecomputedData#getDenseData(IBlockState)}, or -1 if there aren't any dense flags
+     * for this position and they have to be looked up from the block state instead
+     */
+    public int getDenseData(int x, int y, int z, PrecomputedData data) {
+        if (snapshot == null || !useTheRealWorld || y < 0 || y >= 256) {
+            return -1;
+        }
+        WorldSnapshot.Column column = prevColumn;
+        if (column == null || column.x != x >> 4 || column.z != z >> 4) {
+            column = snapshot.getColumn(x >> 4, z >> 4);
+            if (column == null) {
+                return -1;
+            }
+            prevColumn = column;
+        }
+        return column.getDenseData(x, y, z, data);
+    }
+
+    /**
+     * Finds where a fall down this column would stop falling straight through plain air, see
+     * {@link PrecomputedData#isPlainAir(IBlockState)}. Everything above that can be skipped rather than looked at one
+     * block at a time.
+     *
+     * @return The highest y below the specified one where the block might not be plain air, or -1 if it's plain air
+     * all the way down
+     */
+    public int getNextNonPlainAirBelow(int x, int y, int z, PrecomputedData data) {
+        if (y <= 0) {
+            return -1;
+        }
+        if (useTheRealWorld) {
+            if (snapshot != null) {
+                WorldSnapshot.Column column = prevColumn;
+                if (column == null || column.x != x >> 4 || column.z != z >> 4) {
+                    column = snapshot.getColumn(x >> 4, z >> 4);
+                }
+                if (column != null) {
+                    prevColumn = column;
+                    return column.getNextNonPlainAirBelow(x, y, z, data);
+                }
+            } else {
+                Chunk chunk = loadedChunks.get(ChunkPos.asLong(x >> 4, z >> 4));
+                if (chunk != null && chunk.isLoaded()) {
+                    return y - 1; // no summary of live chunks, look at each block
+                }
+            }
+        }
+        if (worldData == null || !data.isPlainAir(AIR)) {
+            // a subclass that reads something else entirely, or a cached air block isn't plain air
+            return y - 1;
+        }
+        if (y > 256) {
+            y = 256;
+        }
+        CachedRegion region = prevCached;
+        if (region == null || region.getX() != x >> 9 || region.getZ() != z >> 9) {
+            region = worldData.cache.getRegion(x >> 9, z >> 9);
+            if (region == null) {
+                return -1; // all air
+            }
+            prevCached = region;
+        }
+        return region.getNextNonAirBelow(x & 511, y, z & 511);
+    }
+
     public boolean isLoaded(int x, int z) {
+        if (snapshot != null) {
+            WorldSnapshot.Column column = prevColumn;
+            if (column != null && column.x == x >> 4 && column.z == z >> 4) {
+                return true;
+            }
+            column = snapshot.getColumn(x >> 4, z >> 4);
+            if (column != null) {
+                prevColumn = column;
+                return true;
+            }
+            return isCached(x, z);
+        }
         Chunk prevChunk = prev;
         if (prevChunk != null && prevChunk.x == x >> 4 && prevChunk.z == z >> 4) {
             return true;
@@ -150,6 +294,10 @@ public class BlockStateInterface {
             prev = prevChunk;
             return true;
         }
+        return isCached(x, z);
+    }
+
+    private boolean isCached(int x, int z) {
         CachedRegion prevRegion = prevCached;
         if (prevRegion != null && prevRegion.getX() == x >> 9 && prevRegion.getZ() == z >> 9) {
             return prevRegion.isCached(x & 511, z & 511);
@@ -37,7 +37,7 @@ import javax.annotation.Nullable;
 public final class BlockStateInterfaceAccessWrapper implements IBlockAccess {
 
     private final BlockStateInterface bsi;
-    private final IBlockAccess world;
+    final IBlockAccess world;
 
     BlockStateInterfaceAccessWrapper(BlockStateInterface bsi, IBlockAccess world) {
         this.bsi = bsi;
@@ -78,6 +78,6 @@ public final class BlockStateInterfaceAccessWrapper implements IBlockAccess {
 
     @Override
     public WorldType getWorldType() {
-        return this.world.getWorldType();
+        return this.world == null ? WorldType.DEFAULT : this.world.getWorldType();
     }
 }
@@ -25,12 +25,14 @@ import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.init.Enchantments;
 import net.minecraft.init.MobEffects;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.ItemSword;
 import net.minecraft.item.ItemTool;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -53,17 +55,60 @@ public class ToolSet {
 
     private final EntityPlayerSP player;
 
+    private final long fingerprint;
+
+    /**
+     * @param player The player whose hotbar to use, or null to mine everything by hand with no potion effects, e.g. when
+     *               pathing without a client
+     */
     public ToolSet(EntityPlayerSP player) {
         breakStrengthCache = new HashMap<>();
         this.player = player;
 
-        if (Baritone.settings().considerPotionEffects.value) {
-            double amplifier = potionAmplifier();
-            Function<Double, Double> amplify = x -> amplifier * x;
+        double amplifier = 1;
+        if (Baritone.settings().considerPotionEffects.value && player != null) {
+            amplifier = potionAmplifier();
+            double amp = amplifier;
+            Function<Double, Double> amplify = x -> amp * x;
             backendCalculation = amplify.compose(this::getBestDestructionTime);
         } else {
             backendCalculation = this::getBestDestructionTime;
         }
+        this.fingerprint = fingerprint(player, amplifier);
+    }
+
+    /**
+     * A tool set for the same player that doesn't share the cache, so that the two can be used on different threads
+     *
+     * @param other The tool set to copy
+     */
+    public ToolSet(ToolSet other) {
+        this(other.player);
+    }
+
+    /**
+     * A hash of everything on the hotbar and the potion effects, two tool sets with the same fingerprint calculate the
+     * same break times
+     *
+     * @return The fingerprint
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    private static long fingerprint(EntityPlayerSP player, double amplifier) {
+        if (player == null) {
+            return 0;
+        }
+        long hash = Double.hashCode(amplifier);
+        hash = hash * 31 + player.inventory.currentItem;
+        for (int i = 0; i < 9; i++) {
+            ItemStack stack = player.inventory.getStackInSlot(i);
+            hash = hash * 31 + Item.getIdFromItem(stack.getItem());
+            hash = hash * 31 + stack.getItemDamage();
+            hash = hash * 31 + Objects.hashCode(stack.getTagCompound());
+        }
+        return hash;
     }
 
     /**
@@ -161,7 +206,7 @@ public class ToolSet {
      * @return A double containing the destruction ticks with the best tool
      */
     private double getBestDestructionTime(Block b) {
-        ItemStack stack = player.inventory.getStackInSlot(getBestSlot(b, false, true));
+        ItemStack stack = player == null ? ItemStack.EMPTY : player.inventory.getStackInSlot(getBestSlot(b, false, true));
         return calculateSpeedVsBlock(stack, b.getDefaultState()) * avoidanceMultiplier(b);
     }
 
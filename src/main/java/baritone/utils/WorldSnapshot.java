@@ -0,0 +1,395 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.utils;
+
+import baritone.pathing.precompute.PrecomputedData;
+import baritone.utils.accessor.IBitArray;
+import baritone.utils.accessor.IBlockStateContainer;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.BitArray;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * The blocks of the loaded chunks as they were at one moment, for a path calculation to read on another thread while
+ * the game thread keeps changing the real chunks
+ * <p>
+ * Never modified once it's taken. Each chunk section is copied in its compact form (palette and packed indices), and
+ * only if it changed since the previous snapshot, otherwise the copy from that one is shared. If nothing changed at
+ * all, the previous snapshot itself is returned, so searches that are planned one after another read the same one.
+ */
+public final class WorldSnapshot {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final Long2ObjectMap<Column> columns;
+
+    private WorldSnapshot(Long2ObjectMap<Column> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return The chunk at these chunk coordinates, or null if it wasn't loaded
+     */
+    public Column getColumn(int chunkX, int chunkZ) {
+        return columns.get(ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        return columns.containsKey(ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    /**
+     * Takes a snapshot without sharing anything with an earlier one
+     */
+    public static WorldSnapshot of(Long2ObjectMap<Chunk> loadedChunks) {
+        return new Source().take(loadedChunks);
+    }
+
+    /**
+     * Keeps track of which chunk sections have changed, and takes snapshots that share the unchanged ones with the
+     * previous snapshot. Only to be used on the game thread, where the chunks are changed.
+     */
+    public static final class Source {
+
+        /**
+         * How many times each section of a chunk has changed, for the chunks that have changed at all since they were
+         * loaded
+         */
+        private final Long2ObjectMap<int[]> versions = new Long2ObjectOpenHashMap<>();
+
+        private WorldSnapshot latest;
+
+        public void onBlockChange(int x, int y, int z) {
+            if (y < 0 || y >= 256) {
+                return;
+            }
+            long key = ChunkPos.asLong(x >> 4, z >> 4);
+            int[] chunk = versions.get(key);
+            if (chunk == null) {
+                chunk = new int[16];
+                versions.put(key, chunk);
+            }
+            chunk[y >> 4]++;
+        }
+
+        /**
+         * When the data of an entire chunk was received, which may reuse the section objects of what was there
+         */
+        public void onChunkChange(int chunkX, int chunkZ) {
+            for (int y = 0; y < 256; y += 16) {
+                onBlockChange(chunkX << 4, y, chunkZ << 4);
+            }
+        }
+
+        public void onChunkUnload(int chunkX, int chunkZ) {
+            // a chunk that's loaded again is a new chunk, so nothing will be mistaken for an old copy of it
+            versions.remove(ChunkPos.asLong(chunkX, chunkZ));
+        }
+
+        /**
+         * Forgets the previous snapshot and the changes, for when the world is closed. The snapshot refers to the
+         * chunks it was taken from, and through them to the world, which would otherwise be kept around for as long
+         * as this is.
+         */
+        public void clear() {
+            versions.clear();
+            latest = null;
+        }
+
+        public WorldSnapshot take(Long2ObjectMap<Chunk> loadedChunks) {
+            WorldSnapshot previous = latest;
+            Long2ObjectMap<Column> columns = new Long2ObjectOpenHashMap<>(loadedChunks.size());
+            boolean unchanged = previous != null;
+            for (Chunk chunk : loadedChunks.values()) {
+                if (!chunk.isLoaded()) {
+                    continue;
+                }
+                long key = ChunkPos.asLong(chunk.x, chunk.z);
+                Column old = previous == null ? null : previous.columns.get(key);
+                Column column = Column.copy(chunk, old, versions.get(key));
+                unchanged &= column == old;
+                columns.put(key, column);
+            }
+            if (unchanged && columns.size() == previous.columns.size()) {
+                return previous;
+            }
+            latest = new WorldSnapshot(columns);
+            return latest;
+        }
+    }
+
+    /**
+     * The copy of one chunk
+     */
+    public static final class Column {
+
+        public final int x;
+
+        public final int z;
+
+        /**
+         * The chunk this is a copy of, only to tell whether the next snapshot can reuse this copy, never read from
+         */
+        private final Chunk source;
+
+        private final Section[] sections;
+
+        private Column(Chunk source, Section[] sections) {
+            this.x = source.x;
+            this.z = source.z;
+            this.source = source;
+            this.sections = sections;
+        }
+
+        public IBlockState get(int x, int y, int z) {
+            Section section = sections[y >> 4];
+            if (section == null) {
+                return AIR;
+            }
+            return section.get((y & 15) << 8 | (z & 15) << 4 | x & 15);
+        }
+
+        /**
+         * @return The dense flags of the block at this position, see {@link PrecomputedData#getDenseData(IBlockState)}
+         */
+        public int getDenseData(int x, int y, int z, PrecomputedData data) {
+            Section section = sections[y >> 4];
+            if (section == null) {
+                return data.getDenseData(AIR) & 0xff;
+            }
+            return section.denseData(data).flags[(y & 15) << 8 | (z & 15) << 4 | x & 15] & 0xff;
+        }
+
+        /**
+         * @return The highest y below the specified one where the block isn't plain air, or -1 if there isn't one
+         */
+        public int getNextNonPlainAirBelow(int x, int y, int z, PrecomputedData data) {
+            boolean airIsPlain = PrecomputedData.isPlainAir(data.getDenseData(AIR));
+            int column = (z & 15) << 4 | x & 15;
+            for (int below = Math.min(y, 256) - 1; below >= 0; below = (below & ~15) - 1) {
+                Section section = sections[below >> 4];
+                if (section == null) {
+                    if (!airIsPlain) {
+                        return below;
+                    }
+                    continue;
+                }
+                // only the part of the column at or below where we are
+                int mask = section.denseData(data).nonPlainAir[column] & ((2 << (below & 15)) - 1);
+                if (mask != 0) {
+                    return (below & ~15) + 31 - Integer.numberOfLeadingZeros(mask);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param old      The copy of the chunk in the previous snapshot, if any
+         * @param versions How many times each section has changed, if any have
+         * @return The old copy, if none of the sections changed since it was made
+         */
+        private static Column copy(Chunk chunk, Column old, int[] versions) {
+            ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+            Section[] sections = new Section[16];
+            boolean same = old != null && old.source == chunk;
+            for (int y = 0; y < 16; y++) {
+                Section previous = old == null ? null : old.sections[y];
+                int version = versions == null ? 0 : versions[y];
+                if (storage[y] == null) {
+                    // all air
+                    same &= previous == null;
+                } else if (previous != null && previous.isCopyOf(storage[y], version)) {
+                    sections[y] = previous;
+                } else {
+                    sections[y] = Section.copy(storage[y], version);
+                    same = false;
+                }
+            }
+            return same ? old : new Column(chunk, sections);
+        }
+    }
+
+    /**
+     * The copy of one 16x16x16 chunk section
+     */
+    private static final class Section {
+
+        /**
+         * What this is a copy of, and as of when, to tell whether the next snapshot can reuse this copy. Never read from.
+         * <p>
+         * Block changes are counted by {@link Source}, the rest is so that a change that doesn't come with an event,
+         * such as blocks destroyed by an explosion, most likely still gets noticed.
+         */
+        private final ExtendedBlockStorage source;
+        private final BitArray sourceStorage;
+        private final int sourceBlockCount;
+        private final int version;
+
+        /**
+         * The packed palette indices, as in {@link BitArray}
+         */
+        private final long[] data;
+        private final int bitsPerEntry;
+        private final long maxEntryValue;
+
+        /**
+         * The palette, or null if it's the global one, from block state id to block state
+         */
+        private final IBlockState[] palette;
+
+        /**
+         * Every block, for when the compact form can't be read
+         */
+        private final IBlockState[] blocks;
+
+        /**
+         * The precomputed flags of every block, made the first time they're needed
+         */
+        private volatile DenseData denseData;
+
+        private Section(ExtendedBlockStorage source, BitArray sourceStorage, int version, long[] data, int bitsPerEntry, long maxEntryValue, IBlockState[] palette, IBlockState[] blocks) {
+            this.source = source;
+            this.sourceStorage = sourceStorage;
+            this.sourceBlockCount = source.getBlockRefCount();
+            this.version = version;
+            this.data = data;
+            this.bitsPerEntry = bitsPerEntry;
+            this.maxEntryValue = maxEntryValue;
+            this.palette = palette;
+            this.blocks = blocks;
+        }
+
+        private boolean isCopyOf(ExtendedBlockStorage storage, int version) {
+            return source == storage
+                    && this.version == version
+                    && sourceStorage == ((IBlockStateContainer) storage.getData()).getStorage()
+                    && sourceBlockCount == storage.getBlockRefCount();
+        }
+
+        private static Section copy(ExtendedBlockStorage storage, int version) {
+            BlockStateContainer bsc = storage.getData();
+            BitArray array = ((IBlockStateContainer) bsc).getStorage();
+            if (array == null) {
+                IBlockState[] blocks = new IBlockState[4096];
+                for (int i = 0; i < 4096; i++) {
+                    blocks[i] = bsc.get(i & 15, i >> 8, i >> 4 & 15);
+                }
+                return new Section(storage, null, version, null, 0, 0, null, blocks);
+            }
+            int bitsPerEntry = ((IBitArray) array).getBitsPerEntry();
+            long maxEntryValue = ((IBitArray) array).getMaxEntryValue();
+            IBlockState[] palette = null;
+            if (bitsPerEntry <= 8) {
+                // with more bits per block than that, sections use the global palette, which never changes
+                palette = new IBlockState[(int) maxEntryValue + 1];
+                for (int i = 0; i < palette.length; i++) {
+                    palette[i] = ((IBlockStateContainer) bsc).getAtPalette(i);
+                }
+            }
+            return new Section(storage, array, version, array.getBackingLongArray().clone(), bitsPerEntry, maxEntryValue, palette, null);
+        }
+
+        private DenseData denseData(PrecomputedData data) {
+            DenseData dense = denseData;
+            if (dense == null || dense.data != data) {
+                // only ever replaced by an equivalent array, so it doesn't matter if two threads both do this
+                dense = new DenseData(data, this);
+                denseData = dense;
+            }
+            return dense;
+        }
+
+        /**
+         * @param index y << 8 | z << 4 | x
+         */
+        private IBlockState get(int index) {
+            if (blocks != null) {
+                return blocks[index];
+            }
+            int entry = entry(index);
+            IBlockState state = palette == null ? Block.BLOCK_STATE_IDS.getByValue(entry) : palette[entry];
+            return state == null ? AIR : state;
+        }
+
+        /**
+         * Decodes the palette index of a block
+         */
+        private int entry(int index) {
+            int i = index * bitsPerEntry;
+            int j = i >> 6;
+            int k = (i + bitsPerEntry - 1) >> 6;
+            int l = i & 63;
+            if (j == k) {
+                return (int) (data[j] >>> l & maxEntryValue);
+            }
+            return (int) ((data[j] >>> l | data[k] << (64 - l)) & maxEntryValue);
+        }
+    }
+
+    /**
+     * The precomputed flags of every block in a section, one byte per block in the same order as the blocks, so that a
+     * movement can check the common cases with a single array read rather than decoding the block state and looking
+     * it up
+     */
+    private static final class DenseData {
+
+        /**
+         * What the flags were computed with, they depend on the settings at that time
+         */
+        private final PrecomputedData data;
+
+        private final byte[] flags = new byte[4096];
+
+        /**
+         * For each column ({@code z << 4 | x}), a bit for each y in the section where the block isn't plain air, so
+         * that the next thing below that a fall could land on is found without looking at each block on the way
+         */
+        private final short[] nonPlainAir = new short[256];
+
+        private DenseData(PrecomputedData data, Section section) {
+            this.data = data;
+            if (section.palette != null) {
+                // each entry of the palette only needs to be looked up once
+                byte[] paletteFlags = new byte[section.palette.length];
+                for (int i = 0; i < paletteFlags.length; i++) {
+                    paletteFlags[i] = data.getDenseData(section.palette[i] == null ? AIR : section.palette[i]);
+                }
+                for (int i = 0; i < 4096; i++) {
+                    flags[i] = paletteFlags[section.entry(i)];
+                }
+            } else {
+                for (int i = 0; i < 4096; i++) {
+                    flags[i] = data.getDenseData(section.get(i));
+                }
+            }
+            for (int i = 0; i < 4096; i++) {
+                if (!PrecomputedData.isPlainAir(flags[i])) {
+                    nonPlainAir[i & 255] |= 1 << (i >> 8);
+                }
+            }
+        }
+    }
+}
@@ -47,4 +47,25 @@ public class BetterWorldBorder {
         // it won't let us right click it
         return x > minX && x + 1 < maxX && z > minZ && z + 1 < maxZ;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BetterWorldBorder other = (BetterWorldBorder) o;
+        return minX == other.minX && maxX == other.maxX && minZ == other.minZ && maxZ == other.maxZ;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(minX);
+        hash = hash * 31 + Double.hashCode(maxX);
+        hash = hash * 31 + Double.hashCode(minZ);
+        hash = hash * 31 + Double.hashCode(maxZ);
+        return hash;
+    }
 }
@@ -17,12 +17,37 @@
 
 package baritone.cache;
 
+import baritone.Baritone;
+import baritone.api.utils.BlockUtils;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
-import static junit.framework.TestCase.assertEquals;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
 
 public class CachedRegionTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Bootstrap.register();
+    }
+
     @Test
     public void blockPosSaving() {
         for (int x = 0; x < 16; x++) {
@@ -44,4 +69,200 @@ public class CachedRegionTest {
             }
         }
     }
+
+    @Test
+    public void legacyUpgrade() throws IOException {
+        String directory = folder.getRoot().toString();
+        Path regionFile = folder.getRoot().toPath().resolve("r.1.-2.bcr");
+        CachedChunk first = chunk(32, -64, 1, 1000);
+        CachedChunk second = chunk(32 + 3, -64 + 5, 2, 2000);
+        writeLegacy(regionFile, first, second);
+
+        // reading on its own leaves the old file alone
+        CachedRegion read = CachedRegion.read(directory, 1, -2, 0);
+        assertChunkEquals(first, read.getChunk(0, 0));
+        assertChunkEquals(second, read.getChunk(3, 5));
+        assertTrue(isGzip(regionFile));
+
+        CachedRegion loaded = new CachedRegion(1, -2, 0);
+        loaded.load(directory);
+        assertFalse(isGzip(regionFile));
+        assertFalse(loaded.hasUnsavedChanges());
+
+        CachedRegion reloaded = CachedRegion.read(directory, 1, -2, 0);
+        assertChunkEquals(first, reloaded.getChunk(0, 0));
+        assertChunkEquals(second, reloaded.getChunk(3, 5));
+        assertNull(reloaded.getChunk(0, 1));
+    }
+
+    @Test
+    public void deltaSave() throws IOException {
+        String directory = folder.getRoot().toString();
+        Path regionFile = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        CachedChunk first = chunk(0, 0, 1, 1000);
+        CachedChunk second = chunk(7, 9, 2, 2000);
+        CachedRegion region = new CachedRegion(0, 0, 0);
+        region.updateCachedChunk(0, 0, first);
+        region.updateCachedChunk(7, 9, second);
+        region.save(directory);
+        long size = Files.size(regionFile);
+
+        // from a region that was loaded from disk, so the unchanged chunk is still compressed in the mapped file
+        CachedRegion loaded = new CachedRegion(0, 0, 0);
+        loaded.load(directory);
+        CachedChunk changed = chunk(0, 0, 3, 3000);
+        loaded.updateCachedChunk(0, 0, changed);
+        loaded.save(directory);
+        assertTrue(Files.size(regionFile) > size);
+
+        CachedRegion reloaded = CachedRegion.read(directory, 0, 0, 0);
+        assertChunkEquals(changed, reloaded.getChunk(0, 0));
+        assertChunkEquals(second, reloaded.getChunk(7, 9));
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        String directory = folder.getRoot().toString();
+        Path regionFile = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        CachedRegion region = new CachedRegion(0, 0, 0);
+        region.updateCachedChunk(0, 0, chunk(0, 0, 1, 1000));
+        region.save(directory);
+        long size = Files.size(regionFile);
+
+        // the same contents compress to the same length, so the first resave leaves exactly as much of the file
+        // garbage as is live, which is still appended, and the second one leaves more, which compacts it
+        region.updateCachedChunk(0, 0, chunk(0, 0, 1, 2000));
+        region.save(directory);
+        assertTrue(Files.size(regionFile) > size);
+        CachedChunk last = chunk(0, 0, 1, 3000);
+        region.updateCachedChunk(0, 0, last);
+        region.save(directory);
+        assertEquals(size, Files.size(regionFile));
+
+        CachedRegion reloaded = CachedRegion.read(directory, 0, 0, 0);
+        assertChunkEquals(last, reloaded.getChunk(0, 0));
+    }
+
+    @Test
+    public void expiredChunkRemoved() {
+        String directory = folder.getRoot().toString();
+        long now = System.currentTimeMillis();
+        CachedChunk recent = chunk(2, 3, 2, now);
+        CachedRegion region = new CachedRegion(0, 0, 0);
+        region.updateCachedChunk(1, 1, chunk(1, 1, 1, now - 3600 * 1000L));
+        region.updateCachedChunk(2, 3, recent);
+        region.save(directory);
+
+        long expiry = Baritone.settings().cachedChunksExpirySeconds.value;
+        Baritone.settings().cachedChunksExpirySeconds.value = 60L;
+        try {
+            CachedRegion loaded = new CachedRegion(0, 0, 0);
+            loaded.load(directory);
+            assertNull(loaded.getChunk(1, 1));
+            assertTrue(loaded.hasUnsavedChanges());
+            loaded.save(directory);
+        } finally {
+            Baritone.settings().cachedChunksExpirySeconds.value = expiry;
+        }
+
+        // gone from the table, not just skipped while loading
+        CachedRegion reloaded = CachedRegion.read(directory, 0, 0, 0);
+        assertNull(reloaded.getChunk(1, 1));
+        assertChunkEquals(recent, reloaded.getChunk(2, 3));
+    }
+
+    @Test
+    public void specialBlocksOfStoredChunk() {
+        String directory = folder.getRoot().toString();
+        CachedChunk chunk = chunk(4, 6, 1, 1000);
+        CachedRegion region = new CachedRegion(0, 0, 0);
+        region.updateCachedChunk(4, 6, chunk);
+        region.save(directory);
+
+        // read from the stored chunk, before it's decompressed, and again after
+        CachedRegion loaded = CachedRegion.read(directory, 0, 0, 0);
+        assertEquals(chunk.getRelativeBlocks(), loaded.getSpecialBlocks(4, 6));
+        assertNull(loaded.getSpecialBlocks(4, 7));
+        assertChunkEquals(chunk, loaded.getChunk(4, 6));
+        assertEquals(chunk.getRelativeBlocks(), loaded.getSpecialBlocks(4, 6));
+    }
+
+    private static CachedChunk chunk(int chunkX, int chunkZ, long seed, long cacheTimestamp) {
+        Random random = new Random(seed);
+        long[] data = new long[CachedChunk.SIZE / 64];
+        // the bottom half is random, the rest is left as air
+        for (int i = 0; i < data.length / 2; i++) {
+            data[i] = random.nextLong();
+        }
+        IBlockState[] overview = new IBlockState[256];
+        for (int i = 0; i < overview.length; i++) {
+            overview[i] = (random.nextBoolean() ? Blocks.STONE : Blocks.DIRT).getDefaultState();
+        }
+        Map<String, List<BlockPos>> special = new HashMap<>();
+        special.put("chest", new ArrayList<>(Arrays.asList(new BlockPos(random.nextInt(16), 64, random.nextInt(16)), new BlockPos(0, 65, 15))));
+        return new CachedChunk(chunkX, chunkZ, data, overview, special, cacheTimestamp);
+    }
+
+    private static void assertChunkEquals(CachedChunk expected, CachedChunk actual) {
+        assertNotNull(actual);
+        assertEquals(expected.x, actual.x);
+        assertEquals(expected.z, actual.z);
+        assertEquals(expected.cacheTimestamp, actual.cacheTimestamp);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        assertArrayEquals(expected.getOverview(), actual.getOverview());
+        assertEquals(expected.getRelativeBlocks(), actual.getRelativeBlocks());
+    }
+
+    /**
+     * Writes a region file the way it was before chunks were compressed individually, see
+     * {@link CachedRegion#loadLegacy}
+     */
+    private static void writeLegacy(Path regionFile, CachedChunk... chunks) throws IOException {
+        CachedChunk[] table = new CachedChunk[32 * 32];
+        for (CachedChunk chunk : chunks) {
+            table[(chunk.x & 31) * 32 + (chunk.z & 31)] = chunk;
+        }
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(regionFile)))) {
+            out.writeInt(456022910);
+            for (CachedChunk chunk : table) {
+                if (chunk == null) {
+                    out.write(0);
+                } else {
+                    out.write(1);
+                    out.write(chunk.toByteArray());
+                }
+            }
+            for (CachedChunk chunk : table) {
+                if (chunk != null) {
+                    for (IBlockState state : chunk.getOverview()) {
+                        out.writeUTF(BlockUtils.blockToString(state.getBlock()));
+                    }
+                }
+            }
+            for (CachedChunk chunk : table) {
+                if (chunk != null) {
+                    out.writeShort(chunk.getRelativeBlocks().size());
+                    for (Map.Entry<String, List<BlockPos>> entry : chunk.getRelativeBlocks().entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeShort(entry.getValue().size());
+                        for (BlockPos pos : entry.getValue()) {
+                            out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+                            out.writeByte((byte) (pos.getY()));
+                        }
+                    }
+                }
+            }
+            for (CachedChunk chunk : table) {
+                if (chunk != null) {
+                    out.writeLong(chunk.cacheTimestamp);
+                }
+            }
+        }
+    }
+
+    private static boolean isGzip(Path regionFile) throws IOException {
+        try (InputStream in = Files.newInputStream(regionFile)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RegionFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        RegionFile file = new RegionFile(path);
+        Changes changes = new Changes();
+        changes.set(0, record(1, 100), 1000);
+        changes.set(33, record(2, 200), 2000);
+        assertTrue(file.save(changes.changed, changes.records, changes.timestamps));
+        assertEquals(RegionFile.HEADER_SIZE + 300, Files.size(path));
+        assertArrayEquals(record(1, 100), bytes(file.get(0)));
+
+        RegionFile loaded = new RegionFile(path);
+        assertTrue(loaded.load());
+        assertArrayEquals(record(1, 100), bytes(loaded.get(0)));
+        assertArrayEquals(record(2, 200), bytes(loaded.get(33)));
+        assertEquals(1000, loaded.getTimestamp(0));
+        assertEquals(2000, loaded.getTimestamp(33));
+        assertNull(loaded.get(1));
+        assertTrue(loaded.get(0).isDirect());
+    }
+
+    @Test
+    public void missingFile() throws IOException {
+        RegionFile file = new RegionFile(folder.getRoot().toPath().resolve("r.0.0.bcr"));
+        assertFalse(file.load());
+        assertNull(file.get(0));
+    }
+
+    @Test
+    public void appendChanges() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        RegionFile file = new RegionFile(path);
+        Changes changes = new Changes();
+        changes.set(0, record(1, 100), 1000);
+        changes.set(1, record(2, 100), 1000);
+        changes.set(2, record(3, 100), 1000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+
+        RegionFile loaded = new RegionFile(path);
+        loaded.load();
+        changes = new Changes();
+        changes.set(1, record(4, 150), 2000);
+        changes.set(2, null, 0);
+        assertTrue(loaded.save(changes.changed, changes.records, changes.timestamps));
+        // appended, the old copies are still in there
+        assertEquals(RegionFile.HEADER_SIZE + 450, Files.size(path));
+
+        RegionFile reloaded = new RegionFile(path);
+        reloaded.load();
+        assertArrayEquals(record(1, 100), bytes(reloaded.get(0)));
+        assertArrayEquals(record(4, 150), bytes(reloaded.get(1)));
+        assertEquals(2000, reloaded.getTimestamp(1));
+        assertNull(reloaded.get(2));
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        RegionFile file = new RegionFile(path);
+        Changes changes = new Changes();
+        changes.set(0, record(1, 100), 1000);
+        changes.set(5, record(2, 100), 1000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        ByteBuffer unchanged = file.get(5);
+
+        changes = new Changes();
+        changes.set(0, record(3, 200), 2000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        // 100 bytes of garbage and 300 live
+        assertEquals(RegionFile.HEADER_SIZE + 400, Files.size(path));
+        changes = new Changes();
+        changes.set(0, record(4, 50), 3000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        // 300 bytes of garbage would be more than the 150 live, so it's rewritten
+        assertEquals(RegionFile.HEADER_SIZE + 150, Files.size(path));
+
+        // still readable from before the file was replaced
+        assertArrayEquals(record(2, 100), bytes(unchanged));
+        RegionFile reloaded = new RegionFile(path);
+        reloaded.load();
+        assertArrayEquals(record(4, 50), bytes(reloaded.get(0)));
+        assertEquals(3000, reloaded.getTimestamp(0));
+        assertArrayEquals(record(2, 100), bytes(reloaded.get(5)));
+        assertEquals(1000, reloaded.getTimestamp(5));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void changedOnDisk() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        RegionFile file = new RegionFile(path);
+        Changes changes = new Changes();
+        changes.set(0, record(1, 100), 1000);
+        changes.set(1, record(2, 100), 1000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        // something else wrote to the end of it, so it's rewritten rather than appended to
+        Files.write(path, new byte[10], StandardOpenOption.APPEND);
+
+        changes = new Changes();
+        changes.set(1, record(3, 100), 2000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        assertEquals(RegionFile.HEADER_SIZE + 200, Files.size(path));
+        RegionFile reloaded = new RegionFile(path);
+        reloaded.load();
+        assertArrayEquals(record(1, 100), bytes(reloaded.get(0)));
+        assertArrayEquals(record(3, 100), bytes(reloaded.get(1)));
+    }
+
+    @Test
+    public void clear() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        RegionFile file = new RegionFile(path);
+        Changes changes = new Changes();
+        changes.set(0, record(1, 100), 1000);
+        changes.set(1, record(2, 100), 1000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        file.clear();
+        assertNull(file.get(0));
+
+        // everything that's left has to be in the changes now
+        changes = new Changes();
+        changes.set(1, record(2, 100), 1000);
+        file.save(changes.changed, changes.records, changes.timestamps);
+        RegionFile reloaded = new RegionFile(path);
+        reloaded.load();
+        assertNull(reloaded.get(0));
+        assertArrayEquals(record(2, 100), bytes(reloaded.get(1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void badMagic() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        Files.write(path, new byte[RegionFile.HEADER_SIZE]);
+        new RegionFile(path).load();
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedTable() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("r.0.0.bcr");
+        ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_SIZE);
+        header.putInt(RegionFile.MAGIC);
+        header.putInt(RegionFile.HEADER_SIZE); // past the end of the file
+        header.putInt(100);
+        Files.write(path, header.array());
+        new RegionFile(path).load();
+    }
+
+    private static byte[] record(long seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static final class Changes {
+
+        final BitSet changed = new BitSet(32 * 32);
+        final ByteBuffer[] records = new ByteBuffer[32 * 32];
+        final long[] timestamps = new long[32 * 32];
+
+        void set(int index, byte[] record, long timestamp) {
+            changed.set(index);
+            records[index] = record == null ? null : ByteBuffer.wrap(record);
+            timestamps[index] = timestamp;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.VoxelWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AStarPathFinderTest {
+
+    private static final long TIMEOUT = 10000;
+
+    private static final Goal GOAL = new GoalBlock(28, 65, 4);
+
+    private VoxelWorld world;
+
+    @Before
+    public void setUp() {
+        Bootstrap.register();
+        world = new VoxelWorld(0, 0, 32, 32);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                world.set(x, 63, z, Blocks.STONE.getDefaultState());
+            }
+        }
+        // a wall that can't be broken, with a gap at the far end, so that the greedy helpers go the wrong way first
+        for (int z = 0; z < 28; z++) {
+            world.set(16, 64, z, Blocks.BEDROCK.getDefaultState());
+            world.set(16, 65, z, Blocks.BEDROCK.getDefaultState());
+        }
+        for (int x = 22; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                world.set(x, 64, z, Blocks.STONE.getDefaultState());
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        Baritone.settings().pathingThreads.reset();
+    }
+
+    @Test
+    public void parallelNeverWorse() {
+        double single = cost(path(search(null)));
+        Baritone.settings().pathingThreads.value = 4;
+        assertEquals(single, cost(path(search(null))), 1e-6);
+    }
+
+    @Test
+    public void parallelReusesArenas() {
+        Baritone.settings().pathingThreads.value = 4;
+        SearchArena arena = new SearchArena();
+        IPath first = path(search(arena));
+        IPath second = path(search(arena));
+        assertEquals(cost(first), cost(second), 1e-6);
+        assertEquals(first.positions(), second.positions());
+        // every helper gave its arena back, so the next search can have them again
+        for (int i = 0; i < 3; i++) {
+            assertTrue(arena.helper(i).acquire(GOAL));
+            arena.helper(i).release();
+        }
+    }
+
+    private PathCalculationResult search(SearchArena arena) {
+        CalculationContext context = ScenarioRunner.createContext(world);
+        return new AStarPathFinder(2, 64, 4, GOAL, new Favoring(null, context), context, arena).calculate(TIMEOUT, TIMEOUT);
+    }
+
+    private static double cost(IPath path) {
+        return path.ticksRemainingFrom(0);
+    }
+
+    private static IPath path(PathCalculationResult result) {
+        assertEquals(PathCalculationResult.Type.SUCCESS_TO_GOAL, result.getType());
+        return result.getPath().get();
+    }
+}
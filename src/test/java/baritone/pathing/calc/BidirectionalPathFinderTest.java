@@ -0,0 +1,86 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.VoxelWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalPathFinderTest {
+
+    private static final long TIMEOUT = 10000;
+
+    private VoxelWorld world;
+
+    @Before
+    public void setUp() {
+        Bootstrap.register();
+        world = new VoxelWorld(0, 0, 32, 32);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                world.set(x, 63, z, Blocks.STONE.getDefaultState());
+            }
+        }
+    }
+
+    @Test
+    public void flat() {
+        assertSameCost(new GoalBlock(28, 64, 20));
+    }
+
+    @Test
+    public void aroundWall() {
+        // a wall that can't be broken, with a gap at one end, and a step up on the far side
+        for (int z = 0; z < 28; z++) {
+            world.set(16, 64, z, Blocks.BEDROCK.getDefaultState());
+            world.set(16, 65, z, Blocks.BEDROCK.getDefaultState());
+        }
+        for (int x = 22; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                world.set(x, 64, z, Blocks.STONE.getDefaultState());
+            }
+        }
+        assertSameCost(new GoalBlock(28, 65, 4));
+    }
+
+    private void assertSameCost(Goal goal) {
+        assertTrue(BidirectionalPathFinder.canSearch(goal));
+        CalculationContext context = ScenarioRunner.createContext(world);
+        IPath bidirectional = path(new BidirectionalPathFinder(2, 64, 4, goal, new Favoring(null, context), context).calculate(TIMEOUT, TIMEOUT));
+        IPath aStar = path(new AStarPathFinder(2, 64, 4, goal, new Favoring(null, context), context).calculate(TIMEOUT, TIMEOUT));
+        assertEquals(aStar.ticksRemainingFrom(0), bidirectional.ticksRemainingFrom(0), 1e-6);
+        assertEquals(aStar.getSrc(), bidirectional.getSrc());
+        assertEquals(aStar.getDest(), bidirectional.getDest());
+    }
+
+    private static IPath path(PathCalculationResult result) {
+        assertEquals(PathCalculationResult.Type.SUCCESS_TO_GOAL, result.getType());
+        return result.getPath().get();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.VoxelWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IncrementalPathFinderTest {
+
+    private static final long TIMEOUT = 10000;
+
+    private static final Goal GOAL = new GoalBlock(28, 64, 8);
+
+    private VoxelWorld world;
+
+    private IncrementalSearchGraph graph;
+
+    @Before
+    public void setUp() {
+        Bootstrap.register();
+        world = new VoxelWorld(0, 0, 32, 32);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                world.set(x, 63, z, Blocks.STONE.getDefaultState());
+            }
+        }
+        graph = new IncrementalSearchGraph();
+    }
+
+    @Test
+    public void repairAfterBlockChange() {
+        IPath first = incremental(new BetterBlockPos(2, 64, 8));
+        // a pillar that can't be broken, right where the path went
+        BetterBlockPos blocked = first.positions().get(first.length() / 2);
+        world.set(blocked.x, blocked.y, blocked.z, Blocks.BEDROCK.getDefaultState());
+        world.set(blocked.x, blocked.y + 1, blocked.z, Blocks.BEDROCK.getDefaultState());
+        graph.onBlockChange(blocked.x, blocked.y, blocked.z);
+        graph.onBlockChange(blocked.x, blocked.y + 1, blocked.z);
+
+        // picked up from further along the old path, so the graph is rebased as well as repaired
+        BetterBlockPos start = first.positions().get(3);
+        IPath repaired = incremental(start);
+        assertTrue(graph.getRecalculated() > 0);
+        IPath fresh = aStar(start);
+        assertEquals(fresh.ticksRemainingFrom(0), repaired.ticksRemainingFrom(0), 1e-6);
+        assertEquals(start, repaired.getSrc());
+        assertEquals(fresh.getDest(), repaired.getDest());
+        assertFalse(repaired.positions().contains(blocked));
+    }
+
+    @Test
+    public void rebaseKeepsGraph() {
+        IPath first = incremental(new BetterBlockPos(2, 64, 8));
+        BetterBlockPos start = first.positions().get(5);
+        IncrementalPathFinder finder = finder(start);
+        IPath rebased = path(finder.calculate(TIMEOUT, TIMEOUT));
+        AStarPathFinder aStar = new AStarPathFinder(start.x, start.y, start.z, GOAL, new Favoring(null, context()), context());
+        IPath fresh = path(aStar.calculate(TIMEOUT, TIMEOUT));
+        assertEquals(fresh.ticksRemainingFrom(0), rebased.ticksRemainingFrom(0), 1e-6);
+        assertEquals(first.positions().subList(5, first.length()), rebased.positions());
+        // nothing changed, so the rest of the old search is still good, and there's next to nothing left to expand
+        assertTrue(finder.getNumNodesExpanded() < aStar.getNumNodesExpanded());
+    }
+
+    private IPath incremental(BetterBlockPos start) {
+        return path(finder(start).calculate(TIMEOUT, TIMEOUT));
+    }
+
+    private IncrementalPathFinder finder(BetterBlockPos start) {
+        assertTrue(graph.acquire());
+        CalculationContext context = context();
+        return new IncrementalPathFinder(start.x, start.y, start.z, GOAL, new Favoring(null, context), context, graph);
+    }
+
+    private IPath aStar(BetterBlockPos start) {
+        CalculationContext context = context();
+        return path(new AStarPathFinder(start.x, start.y, start.z, GOAL, new Favoring(null, context), context).calculate(TIMEOUT, TIMEOUT));
+    }
+
+    private CalculationContext context() {
+        return ScenarioRunner.createContext(world);
+    }
+
+    private static IPath path(PathCalculationResult result) {
+        assertEquals(PathCalculationResult.Type.SUCCESS_TO_GOAL, result.getType());
+        return result.getPath().get();
+    }
+}
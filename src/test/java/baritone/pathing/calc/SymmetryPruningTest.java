@@ -0,0 +1,78 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.pathing.movement.Moves;
+import baritone.utils.headless.ScenarioRunner;
+import baritone.utils.headless.VoxelWorld;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SymmetryPruningTest {
+
+    @Test
+    public void prunable() {
+        int count = 0;
+        for (Moves moves : Moves.values()) {
+            if (SymmetryPruning.isPrunable(moves)) {
+                assertTrue(moves.name().startsWith("TRAVERSE_") || moves.name().startsWith("DIAGONAL_"));
+                count++;
+            }
+        }
+        assertEquals(8, count);
+    }
+
+    @Test
+    public void natural() {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (dx == 0 && dz == 0) {
+                    continue;
+                }
+                int natural = 0;
+                for (Moves moves : Moves.values()) {
+                    if (SymmetryPruning.isPrunable(moves) && SymmetryPruning.isNatural(moves, dx, dz)) {
+                        natural++;
+                    }
+                }
+                // keep going straight, or diagonally plus both of its halves
+                assertEquals(dx != 0 && dz != 0 ? 3 : 1, natural);
+            }
+        }
+    }
+
+    @Test
+    public void soulSandIsNotOpen() {
+        Bootstrap.register();
+        VoxelWorld world = new VoxelWorld(0, 0, 16, 16);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                world.set(x, 63, z, Blocks.STONE.getDefaultState());
+            }
+        }
+        assertTrue(SymmetryPruning.isOpen(ScenarioRunner.createContext(world), 8, 64, 8));
+        // walking over it costs more, so the ways through here aren't all equally good
+        world.set(9, 63, 8, Blocks.SOUL_SAND.getDefaultState());
+        assertFalse(SymmetryPruning.isOpen(ScenarioRunner.createContext(world), 8, 64, 8));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.hierarchy;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.pathing.calc.hierarchy.ChunkPortals.Portal;
+import baritone.utils.pathing.PathingBlockType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkPortalsTest {
+
+    private static PathingBlockType flat(int x, int y, int z) {
+        return y <= 64 ? PathingBlockType.SOLID : PathingBlockType.AIR;
+    }
+
+    private static Portal onSide(ChunkPortals chunk, int side) {
+        Portal found = null;
+        for (Portal portal : chunk.getPortals()) {
+            if (portal.side == side) {
+                assertNull(found);
+                found = portal;
+            }
+        }
+        assertNotNull(found);
+        return found;
+    }
+
+    @Test
+    public void testFlat() {
+        ChunkPortals chunk = ChunkPortals.build(0, 0, ChunkPortalsTest::flat);
+        assertEquals(256, chunk.getStandingCount());
+        assertEquals(4, chunk.getPortals().length);
+        for (Portal from : chunk.getPortals()) {
+            assertEquals(65, from.y);
+            for (Portal to : chunk.getPortals()) {
+                assertTrue(chunk.distance(from, to) < ActionCosts.COST_INF);
+            }
+        }
+        Portal east = onSide(chunk, ChunkPortals.EAST);
+        assertEquals(15, east.x);
+        assertEquals(1, east.neighborChunkX());
+        assertEquals(0, east.neighborChunkZ());
+        assertEquals(ChunkPortals.WEST, east.oppositeSide());
+    }
+
+    @Test
+    public void testWall() {
+        ChunkPortals chunk = ChunkPortals.build(0, 0, (x, y, z) -> x == 8 ? PathingBlockType.SOLID : flat(x, y, z));
+        Portal east = onSide(chunk, ChunkPortals.EAST);
+        Portal west = onSide(chunk, ChunkPortals.WEST);
+        assertEquals(ActionCosts.COST_INF, chunk.distance(west, east), 0);
+        assertEquals(ActionCosts.COST_INF, chunk.distance(east, west), 0);
+    }
+
+    @Test
+    public void testStep() {
+        // one block up can be walked up, three can only be dropped down
+        ChunkPortals step = ChunkPortals.build(0, 0, (x, y, z) -> y <= (x < 8 ? 64 : 65) ? PathingBlockType.SOLID : PathingBlockType.AIR);
+        assertTrue(step.distance(onSide(step, ChunkPortals.WEST), onSide(step, ChunkPortals.EAST)) < ActionCosts.COST_INF);
+        ChunkPortals cliff = ChunkPortals.build(0, 0, (x, y, z) -> y <= (x < 8 ? 64 : 67) ? PathingBlockType.SOLID : PathingBlockType.AIR);
+        assertEquals(ActionCosts.COST_INF, cliff.distance(onSide(cliff, ChunkPortals.WEST), onSide(cliff, ChunkPortals.EAST)), 0);
+        assertTrue(cliff.distance(onSide(cliff, ChunkPortals.EAST), onSide(cliff, ChunkPortals.WEST)) < ActionCosts.COST_INF);
+    }
+}
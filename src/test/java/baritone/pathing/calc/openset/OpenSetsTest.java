@@ -18,7 +18,9 @@
 package baritone.pathing.calc.openset;
 
 import baritone.api.pathing.goals.Goal;
-import baritone.pathing.calc.PathNode;
+import baritone.pathing.calc.INodeStore;
+import baritone.pathing.calc.PathNodeStore;
+import baritone.pathing.calc.PrimitiveNodeStore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -50,16 +52,16 @@ public class OpenSetsTest {
         return testSizes;
     }
 
-    private static void removeAndTest(int amount, IOpenSet[] test, Collection<PathNode> mustContain) {
+    private static void removeAndTest(INodeStore store, int amount, IOpenSet[] test, Collection<Integer> mustContain) {
         double[][] results = new double[test.length][amount];
         for (int i = 0; i < test.length; i++) {
             long before = System.nanoTime() / 1000000L;
             for (int j = 0; j < amount; j++) {
-                PathNode pn = test[i].removeLowest();
+                int pn = test[i].removeLowest();
                 if (mustContain != null && !mustContain.contains(pn)) {
                     throw new IllegalStateException(mustContain + " " + pn);
                 }
-                results[i][j] = pn.combinedCost;
+                results[i][j] = store.getCombinedCost(pn);
             }
             System.out.println(test[i].getClass() + " " + (System.nanoTime() / 1000000L - before));
         }
@@ -75,39 +77,93 @@ public class OpenSetsTest {
 
     @Test
     public void testSize() {
-        System.out.println("Testing size " + size);
+        // can't use an existing goal
+        // because they use Baritone.settings()
+        // and we can't do that because Minecraft itself isn't initted
+        Goal goal = new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                return 0;
+            }
+        };
+        testSize(new PathNodeStore(goal, 16, 0.75f));
+        testSize(new PrimitiveNodeStore(goal, 16, 0.75f));
+    }
+
+    @Test
+    public void testRemove() {
+        Goal goal = new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                return 0;
+            }
+        };
+        INodeStore store = new PrimitiveNodeStore(goal, 16, 0.75f);
+        BinaryHeapOpenSet set = new BinaryHeapOpenSet(store);
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int pn = store.getOrCreate(i, 0, 0, i);
+            store.setCombinedCost(pn, Math.random());
+            set.insert(pn);
+            remaining.add(pn);
+        }
+        // remove every third node from wherever it is in the heap
+        for (int i = 0; i < size; i += 3) {
+            set.remove(i);
+            assertFalse(store.isOpen(i));
+            remaining.remove((Integer) i);
+        }
+        // and raise the cost of every fifth, which update alone can't do
+        for (int i = 1; i < size; i += 5) {
+            if (store.isOpen(i)) {
+                set.remove(i);
+                store.setCombinedCost(i, store.getCombinedCost(i) + Math.random());
+                set.insert(i);
+            }
+        }
+        remaining.sort(Comparator.comparingDouble(store::getCombinedCost));
+        for (int expected : remaining) {
+            assertEquals(store.getCombinedCost(expected), set.lowestCost(), 0);
+            assertEquals(store.getCombinedCost(expected), store.getCombinedCost(set.removeLowest()), 0);
+        }
+        assertTrue(set.isEmpty());
+    }
+
+    private void testSize(INodeStore store) {
+        System.out.println("Testing size " + size + " with " + store.getClass());
         // Include LinkedListOpenSet even though it's not performant because I absolutely trust that it behaves properly
         // I'm really testing the heap implementations against it as the ground truth
-        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new LinkedListOpenSet()};
+        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(store), new LinkedListOpenSet(store)};
         for (IOpenSet set : test) {
             assertTrue(set.isEmpty());
         }
 
         // generate the pathnodes that we'll be testing the sets on
-        PathNode[] toInsert = new PathNode[size];
+        int[] toInsert = new int[size];
         for (int i = 0; i < size; i++) {
-            // can't use an existing goal
-            // because they use Baritone.settings()
-            // and we can't do that because Minecraft itself isn't initted
-            PathNode pn = new PathNode(0, 0, 0, new Goal() {
-                @Override
-                public boolean isInGoal(int x, int y, int z) {
-                    return false;
-                }
-
-                @Override
-                public double heuristic(int x, int y, int z) {
-                    return 0;
-                }
-            });
-            pn.combinedCost = Math.random();
+            int pn = store.getOrCreate(i, 0, 0, i);
+            assertEquals(i, pn);
+            store.setCombinedCost(pn, Math.random());
             toInsert[i] = pn;
         }
 
         // create a list of what the first removals should be
-        ArrayList<PathNode> copy = new ArrayList<>(Arrays.asList(toInsert));
-        copy.sort(Comparator.comparingDouble(pn -> pn.combinedCost));
-        Set<PathNode> lowestQuarter = new HashSet<>(copy.subList(0, size / 4));
+        ArrayList<Integer> copy = new ArrayList<>();
+        for (int pn : toInsert) {
+            copy.add(pn);
+        }
+        copy.sort(Comparator.comparingDouble(store::getCombinedCost));
+        Set<Integer> lowestQuarter = new HashSet<>(copy.subList(0, size / 4));
 
         // all opensets should be empty; nothing has been inserted yet
         for (IOpenSet set : test) {
@@ -131,7 +187,7 @@ public class OpenSetsTest {
 
         System.out.println("Removal round 1");
         // remove a quarter of the nodes and verify that they are indeed the size/4 lowest ones
-        removeAndTest(size / 4, test, lowestQuarter);
+        removeAndTest(store, size / 4, test, lowestQuarter);
 
         // none of them should be empty (sanity check)
         for (IOpenSet set : test) {
@@ -142,7 +198,7 @@ public class OpenSetsTest {
             if (lowestQuarter.contains(toInsert[i])) { // these were already removed and can't be updated to test
                 continue;
             }
-            toInsert[i].combinedCost *= Math.random();
+            store.setCombinedCost(toInsert[i], store.getCombinedCost(toInsert[i]) * Math.random());
             // multiplying it by a random number between 0 and 1 is guaranteed to decrease it
             for (IOpenSet set : test) {
                 // it's difficult to benchmark these individually because if you modify all at once then update then
@@ -160,7 +216,7 @@ public class OpenSetsTest {
 
         System.out.println("Removal round 2");
         // remove the remaining 3/4
-        removeAndTest(size - size / 4, test, null);
+        removeAndTest(store, size - size / 4, test, null);
 
         // every set should now be empty
         for (IOpenSet set : test) {
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.headless;
+
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.pathing.goals.GoalYLevel;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.PathCalculationResult;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ScenarioTest {
+
+    private static final Path DIRECTORY = Paths.get("/scenarios");
+
+    @Test
+    public void parse() {
+        Scenario scenario = Scenario.parse("test", DIRECTORY, Arrays.asList(
+                "# a comment",
+                "",
+                "world regions cache/DIM0 -1",
+                "start 1 64 -2",
+                "goal 10 70 20",
+                "setting allowParkour true",
+                "setting allowBreakAnyway minecraft:dirt minecraft:stone",
+                "timeout 100 200",
+                "expect success_segment"
+        ));
+        assertEquals(Arrays.asList("regions", DIRECTORY.resolve("cache/DIM0").toString(), "-1"), scenario.world);
+        assertEquals(new BetterBlockPos(1, 64, -2), scenario.start);
+        assertTrue(scenario.goal instanceof GoalBlock);
+        assertTrue(scenario.goal.isInGoal(10, 70, 20));
+        assertEquals("true", scenario.settings.get("allowParkour"));
+        assertEquals("minecraft:dirt minecraft:stone", scenario.settings.get("allowBreakAnyway"));
+        assertEquals(100, scenario.primaryTimeout);
+        assertEquals(200, scenario.failureTimeout);
+        assertEquals(PathCalculationResult.Type.SUCCESS_SEGMENT, scenario.expected);
+    }
+
+    @Test
+    public void defaults() {
+        Scenario scenario = Scenario.parse("test", DIRECTORY, Arrays.asList("world terrain hills", "start 0 0 0", "goal 5"));
+        assertTrue(scenario.goal instanceof GoalYLevel);
+        assertTrue(scenario.settings.isEmpty());
+        assertEquals(-1, scenario.primaryTimeout);
+        assertEquals(-1, scenario.failureTimeout);
+        assertNull(scenario.expected);
+    }
+
+    @Test
+    public void goalXZ() {
+        Scenario scenario = Scenario.parse("test", DIRECTORY, Arrays.asList("world terrain FLAT 1", "start 0 0 0", "goal 5 6"));
+        assertTrue(scenario.goal instanceof GoalXZ);
+        assertTrue(scenario.goal.isInGoal(5, 100, 6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingStart() {
+        Scenario.parse("test", DIRECTORY, Arrays.asList("world terrain FLAT", "goal 5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownKey() {
+        Scenario.parse("test", DIRECTORY, Collections.singletonList("wrold terrain FLAT"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTerrain() {
+        Scenario.parse("test", DIRECTORY, Collections.singletonList("world terrain MOUNTAINS"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badNumber() {
+        Scenario.parse("test", DIRECTORY, Collections.singletonList("start 1 two 3"));
+    }
+}